@@ -0,0 +1,92 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Alliance Mirror - One Autonomous Plan for Both Alliances
+ *
+ * The field is a mirror image across its x axis: the Blue goal (tag 20) is
+ * at negative y, the Red goal (tag 24) at the same spot with positive y.
+ * So a plan written for one alliance becomes the other alliance's plan by
+ * reflecting it - nothing has to be written twice:
+ * - Field points:  (x, y)  ->  (x, -y)
+ * - Headings:      h  ->  -h  (every left turn becomes a right turn)
+ * - Tank moves:    the left and right wheel distances swap (a robot-relative
+ *                  move reflected is the same move with the sides swapped)
+ * - AprilTags:     each alliance's tag becomes the other's (20 <-> 24);
+ *                  tags both alliances share keep their ID
+ * - Trajectories:  Trajectory.mirrored() reflects the finished tables, so
+ *                  both alliances get exactly the same timing
+ *
+ * Field coordinates as in MyFIRSTJavaOpMode: (0, 0) is the field center,
+ * inches, heading in radians counter-clockwise.
+ *
+ * Everything here is for INIT: the array methods return new arrays.
+ */
+public final class AllianceMirror {
+
+  public static final String BLUE = "blue";
+  public static final String RED = "red";
+
+  public static final int BLUE_GOAL_TAG = 20;
+  public static final int RED_GOAL_TAG = 24;
+  private static final int[][] TAG_PAIRS = { { BLUE_GOAL_TAG, RED_GOAL_TAG } };
+
+  private AllianceMirror() {
+  }
+
+  /**
+   * @param written  BLUE or RED: the alliance a plan was written for
+   * @param alliance BLUE or RED: the alliance it will run for
+   * @return true if the plan has to be mirrored
+   */
+  public static boolean needed(String written, String alliance) {
+    return !written.equals(alliance);
+  }
+
+  public static double y(double y) {
+    return -y;
+  }
+
+  public static double heading(double heading) {
+    return PoseEstimator.angleWrap(-heading);
+  }
+
+  /** @return The other alliance's tag in the same place (the same ID if it is shared) */
+  public static int tag(int id) {
+    for (int[] pair : TAG_PAIRS) {
+      if (pair[0] == id) {
+        return pair[1];
+      } else if (pair[1] == id) {
+        return pair[0];
+      }
+    }
+    return id;
+  }
+
+  /** @return {x, y, heading} reflected */
+  public static double[] pose(double[] pose) {
+    return new double[] { pose[0], y(pose[1]), heading(pose[2]) };
+  }
+
+  /** @return Every {x, y, heading} reflected, e.g. a trajectory's waypoints */
+  public static double[][] poses(double[][] poses) {
+    double[][] mirrored = new double[poses.length][];
+    for (int i = 0; i < poses.length; i++) {
+      mirrored[i] = pose(poses[i]);
+    }
+    return mirrored;
+  }
+
+  /** @return {speed, left inches, right inches} with the wheels swapped */
+  public static double[] move(double[] move) {
+    return new double[] { move[0], move[2], move[1] };
+  }
+
+  /** @return Every {speed, left inches, right inches} with the wheels swapped */
+  public static double[][] moves(double[][] moves) {
+    double[][] mirrored = new double[moves.length][];
+    for (int i = 0; i < moves.length; i++) {
+      mirrored[i] = move(moves[i]);
+    }
+    return mirrored;
+  }
+}
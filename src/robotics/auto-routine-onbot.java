@@ -0,0 +1,387 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Auto Routine - An Autonomous Written as Text, Compiled at INIT
+ *
+ * A hand-written autonomous is Java: changing one distance means editing
+ * the OpMode, rebuilding and redeploying. And a second alliance means a
+ * second copy of the whole method with one sign flipped. An AutoRoutine is
+ * a few lines of text instead - kept in a file on the robot, or handed to
+ * StarterBotSim to try many versions in a row - and compile() turns it into
+ * Commands during INIT, mirrored for the other alliance if needed.
+ *
+ * Format (one instruction per line, # starts a comment):
+ * <pre>
+ * alliance blue         The alliance the numbers are written for
+ * shoot 3 10            Shoot 3 artifacts; give up after 10 seconds
+ * wait 0.5              Do nothing for half a second
+ * drive 0.5 -12         Both wheels 12" backward at half speed
+ * drive 0.5 -8 8        Left wheel 8" backward, right wheel 8" forward
+ * turn 0.5 61.1         Turn 61.1 degrees to the left (right if negative)
+ * path                  The drives and turns up to "end" as ONE smooth motion
+ * parallel              Everything up to "end" at the same time; the block
+ *                       is done when all of it is done
+ * end
+ * </pre>
+ * Blocks cannot be nested (a path inside a parallel block is fine).
+ *
+ * Mirroring (see alliance-mirror-onbot.java):
+ * A routine written for "alliance blue" and compiled for red has every
+ * turn reversed: drives and turns swap their left and right wheel
+ * distances, and each path is told to mirror itself (its trajectory is
+ * the Blue one reflected). A routine without an alliance line is never
+ * mirrored.
+ *
+ * Compiled Form:
+ * - Flat arrays, one row per step: what it is (a SHOOT, WAIT, DRIVE or
+ *   PATH) and its numbers
+ * - One Command per step, built by the OpMode's Actions
+ * - blockEnd[]: which steps run together (a parallel block) and which run
+ *   alone
+ * The routine is itself a Command: each loop it runs the steps of the
+ * current block and moves to the next block once they are all done.
+ * Nothing is allocated after compile().
+ */
+public class AutoRoutine extends Command {
+
+  // ===== STEP TYPES =====
+  public static final int SHOOT = 0;   // shots, timeout seconds
+  public static final int WAIT = 1;    // seconds
+  public static final int DRIVE = 2;   // speed, left inches, right inches
+  public static final int PATH = 3;    // number of moves (the moves are in the Command)
+
+  private static final int ARGS = 3;
+  private static final String[] NAMES = { "shoot", "wait", "drive", "path" };
+
+  /**
+   * What each step does on this robot. The OpMode implements this; every
+   * method is called during compile(), never while the routine runs.
+   */
+  public interface Actions {
+    Command shoot(int shots, double timeoutSeconds);
+
+    Command waitSeconds(double seconds);
+
+    Command drive(double speed, double leftInches, double rightInches);
+
+    /**
+     * @param moves    {speed, left inches, right inches} for each move, to be
+     *                 driven as one continuous motion - as written
+     * @param mirrored Build the path as written, then mirror it for the
+     *                 other alliance (AllianceMirror)
+     */
+    Command path(double[][] moves, boolean mirrored);
+  }
+
+  private final int[] types;
+  private final double[] args;
+  private final Command[] steps;
+  private final int[] blockEnd;      // Steps blockEnd[b - 1] .. blockEnd[b] - 1 run together
+  private final boolean[] running;
+  private final boolean mirrored;
+
+  private int block;
+  private int blockStart;
+
+  private AutoRoutine(int[] types, double[] args, Command[] steps, int[] blockEnd, boolean mirrored) {
+    this.types = types;
+    this.args = args;
+    this.steps = steps;
+    this.blockEnd = blockEnd;
+    this.mirrored = mirrored;
+    running = new boolean[steps.length];
+    int start = 0;
+    for (int end : blockEnd) {
+      int together = 0;
+      for (int i = start; i < end; i++) {
+        if ((together & steps[i].requirements()) != 0) {
+          throw new IllegalArgumentException("steps in a parallel block cannot share a subsystem");
+        }
+        together |= steps[i].requirements();
+      }
+      for (int i = start; i < end; i++) {
+        requireAll(this, steps[i]);
+      }
+      start = end;
+    }
+  }
+
+  // ===== COMPILING =====
+
+  /**
+   * Reads a routine file (call during INIT).
+   *
+   * @return The file's text
+   */
+  public static String read(File file) throws IOException {
+    StringBuilder text = new StringBuilder();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        text.append(line).append('\n');
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Turns routine text into a runnable routine.
+   *
+   * @param text       The routine (see the format above)
+   * @param alliance   AllianceMirror.BLUE or RED: the alliance it will run for
+   * @param trackWidth Distance between left and right wheels, inches (for turns)
+   * @param actions    Builds the Command for each step
+   * @throws IllegalArgumentException With the line number, if the text has a mistake
+   */
+  public static AutoRoutine compile(String text, String alliance, double trackWidth, Actions actions) {
+    String[] lines = text.split("\n");
+    int[] types = new int[lines.length];
+    double[] args = new double[lines.length * ARGS];
+    Command[] steps = new Command[lines.length];
+    int[] blockEnd = new int[lines.length];
+    double[][] moves = new double[lines.length][];
+    int count = 0;
+    int blocks = 0;
+    int pathMoves = -1;       // Moves in the open path block, -1 when none is open
+    boolean inParallel = false;
+    boolean mirror = false;
+
+    for (int n = 0; n < lines.length; n++) {
+      String line = lines[n];
+      int comment = line.indexOf('#');
+      String[] words = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+      String word = words[0].toLowerCase();
+      if (word.isEmpty()) {
+        continue;
+      }
+      try {
+        if (word.equals("alliance")) {
+          expect(words, 1);
+          String written = words[1].toLowerCase();
+          if (!written.equals(AllianceMirror.BLUE) && !written.equals(AllianceMirror.RED)) {
+            throw new IllegalArgumentException("alliance must be blue or red");
+          }
+          mirror = AllianceMirror.needed(written, alliance);
+          continue;
+        } else if (word.equals("turn") || word.equals("drive")) {
+          double speed;
+          double left;
+          double right;
+          if (word.equals("turn")) {
+            expect(words, 2);
+            speed = number(words[1]);
+            double wheel = Math.toRadians(number(words[2])) * trackWidth / 2;
+            left = -wheel;
+            right = wheel;
+          } else {
+            if (words.length != 3 && words.length != 4) {
+              throw new IllegalArgumentException("drive needs a speed and one or two distances");
+            }
+            speed = number(words[1]);
+            left = number(words[2]);
+            right = words.length == 4 ? number(words[3]) : left;
+          }
+          double[] move = { Math.abs(speed), left, right };
+          if (pathMoves >= 0) {
+            moves[pathMoves++] = move;   // As written: the path mirrors itself
+            continue;
+          }
+          if (mirror) {
+            move = AllianceMirror.move(move);
+          }
+          set(types, args, count, DRIVE, move[0], move[1], move[2]);
+          steps[count++] = actions.drive(move[0], move[1], move[2]);
+        } else if (pathMoves >= 0 && !word.equals("end")) {
+          throw new IllegalArgumentException("only drive and turn can be in a path");
+        } else if (word.equals("shoot")) {
+          expect(words, 2);
+          set(types, args, count, SHOOT, number(words[1]), number(words[2]), 0);
+          steps[count++] = actions.shoot((int) number(words[1]), number(words[2]));
+        } else if (word.equals("wait")) {
+          expect(words, 1);
+          set(types, args, count, WAIT, number(words[1]), 0, 0);
+          steps[count++] = actions.waitSeconds(number(words[1]));
+        } else if (word.equals("path")) {
+          expect(words, 0);
+          pathMoves = 0;
+          continue;
+        } else if (word.equals("parallel")) {
+          expect(words, 0);
+          if (inParallel) {
+            throw new IllegalArgumentException("parallel blocks cannot be nested");
+          }
+          inParallel = true;
+          continue;
+        } else if (word.equals("end")) {
+          expect(words, 0);
+          if (pathMoves > 0) {
+            double[][] path = new double[pathMoves][];
+            System.arraycopy(moves, 0, path, 0, pathMoves);
+            set(types, args, count, PATH, pathMoves, 0, 0);
+            steps[count++] = actions.path(path, mirror);
+            pathMoves = -1;
+          } else if (pathMoves == 0) {
+            throw new IllegalArgumentException("empty path");
+          } else if (inParallel) {
+            inParallel = false;
+            if (blocks == 0 || blockEnd[blocks - 1] < count) {
+              blockEnd[blocks++] = count;
+            }
+            continue;
+          } else {
+            throw new IllegalArgumentException("end without path or parallel");
+          }
+        } else {
+          throw new IllegalArgumentException("unknown instruction '" + words[0] + "'");
+        }
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("line " + (n + 1) + ": " + e.getMessage());
+      }
+      if (!inParallel) {
+        blockEnd[blocks++] = count;   // A step on its own is a block of one
+      }
+    }
+    if (pathMoves >= 0 || inParallel) {
+      throw new IllegalArgumentException("line " + lines.length + ": missing end");
+    }
+
+    int[] compactTypes = new int[count];
+    double[] compactArgs = new double[count * ARGS];
+    Command[] compactSteps = new Command[count];
+    int[] compactBlocks = new int[blocks];
+    System.arraycopy(types, 0, compactTypes, 0, count);
+    System.arraycopy(args, 0, compactArgs, 0, count * ARGS);
+    System.arraycopy(steps, 0, compactSteps, 0, count);
+    System.arraycopy(blockEnd, 0, compactBlocks, 0, blocks);
+    return new AutoRoutine(compactTypes, compactArgs, compactSteps, compactBlocks, mirror);
+  }
+
+  private static void set(int[] types, double[] args, int step, int type, double a, double b, double c) {
+    types[step] = type;
+    args[step * ARGS] = a;
+    args[step * ARGS + 1] = b;
+    args[step * ARGS + 2] = c;
+  }
+
+  private static void expect(String[] words, int numbers) {
+    if (words.length != numbers + 1) {
+      throw new IllegalArgumentException(words[0] + " needs " + numbers + " number(s)");
+    }
+  }
+
+  private static double number(String word) {
+    try {
+      return Double.parseDouble(word);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("'" + word + "' is not a number");
+    }
+  }
+
+  // ===== RUNNING (no allocation) =====
+
+  @Override
+  public void initialize() {
+    block = 0;
+    blockStart = 0;
+    startBlock();
+  }
+
+  private void startBlock() {
+    if (block < blockEnd.length) {
+      for (int i = blockStart; i < blockEnd[block]; i++) {
+        steps[i].initialize();
+        running[i] = true;
+      }
+    }
+  }
+
+  @Override
+  public void execute() {
+    if (block >= blockEnd.length) {
+      return;
+    }
+    boolean anyRunning = false;
+    for (int i = blockStart; i < blockEnd[block]; i++) {
+      if (!running[i]) {
+        continue;
+      }
+      steps[i].execute();
+      if (steps[i].isFinished()) {
+        steps[i].end(false);
+        running[i] = false;
+      } else {
+        anyRunning = true;
+      }
+    }
+    if (!anyRunning) {
+      // The next block starts now and runs its first execute() next loop
+      blockStart = blockEnd[block];
+      block++;
+      startBlock();
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return block >= blockEnd.length;
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (block < blockEnd.length) {
+      for (int i = blockStart; i < blockEnd[block]; i++) {
+        if (running[i]) {
+          steps[i].end(true);
+          running[i] = false;
+        }
+      }
+    }
+  }
+
+  // ===== READING THE COMPILED ROUTINE =====
+
+  public int stepCount() {
+    return types.length;
+  }
+
+  /** @return SHOOT, WAIT, DRIVE or PATH */
+  public int type(int step) {
+    return types[step];
+  }
+
+  /** @return The step's number'th value (see the step types) */
+  public double arg(int step, int number) {
+    return args[step * ARGS + number];
+  }
+
+  /** @return true if this routine was written for the other alliance */
+  public boolean isMirrored() {
+    return mirrored;
+  }
+
+  /**
+   * @return One line per step, with "|" marking steps that run together
+   *         (e.g. for telemetry during INIT)
+   */
+  public String listing() {
+    StringBuilder listing = new StringBuilder();
+    int start = 0;
+    for (int end : blockEnd) {
+      for (int i = start; i < end; i++) {
+        listing.append(end - start > 1 ? "| " : "").append(NAMES[types[i]]);
+        int shown = types[i] == DRIVE ? 3 : types[i] == SHOOT ? 2 : 1;
+        for (int a = 0; a < shown; a++) {
+          listing.append(' ').append(String.format("%.3g", args[i * ARGS + a]));
+        }
+        listing.append('\n');
+      }
+      start = end;
+    }
+    return listing.toString();
+  }
+}
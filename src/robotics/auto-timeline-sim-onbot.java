@@ -0,0 +1,140 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/**
+ * Autonomous Timeline Simulator - How Much of the 30 Seconds Do We Use?
+ *
+ * Plays the StarterBot autonomous on a laptop with a virtual clock:
+ * 1. LAUNCH: FlywheelController spins the wheel, ShotDetector runs the feeder,
+ *    and FlywheelSim loses speed every time a ball goes through
+ * 2. NAVIGATE: the three autoDrive() moves (back up, turn, drive off the line)
+ *
+ * The launch phase ends like it does on the robot: once ShotDetector has
+ * counted the expected number of shots, or when the timeout runs out.
+ *
+ * What It Reports:
+ * - When the launch phase ended, and whether it timed out
+ * - When navigation finished
+ * - How many seconds were reclaimed compared to always waiting the full
+ *   10-second launch window
+ *
+ * Example:
+ * <pre>
+ * AutoTimelineSim.Result result = AutoTimelineSim.run(3, 3, 1300, 10, 1);
+ * System.out.println(result);
+ * </pre>
+ */
+public class AutoTimelineSim {
+
+  public static final double AUTO_SECONDS = 30;
+  public static final double FIXED_LAUNCH_SECONDS = 10;  // The old autoLaunchTimer window
+
+  private static final double LOOP_SECONDS = 0.01;
+  private static final double VELOCITY_NOISE = 15;          // ticks/second, like getVelocity() jitter
+  private static final double FEED_TRAVEL_SECONDS = StarterBotShooter.FEED_LEAD_SECONDS;  // Feeder running time per ball
+  private static final double FEED_TOLERANCE = StarterBotShooter.BANK_TOLERANCE;        // Same as bankShot()
+
+  // autoDrive() legs after launching: {speed, inches}
+  private static final double[][] DRIVE_LEGS = { { 0.5, 12 }, { 0.5, 8 }, { 1.0, 50 } };
+  private static final double DRIVE_INCHES_PER_SECOND = 40;  // Straight-line speed at full power
+
+  /**
+   * One simulated autonomous run.
+   */
+  public static final class Result {
+    public final int ballsFired;
+    public final int shotsDetected;
+    public final boolean timedOut;
+    public final double launchSeconds;
+    public final double navigationSeconds;
+
+    Result(int ballsFired, int shotsDetected, boolean timedOut, double launchSeconds, double navigationSeconds) {
+      this.ballsFired = ballsFired;
+      this.shotsDetected = shotsDetected;
+      this.timedOut = timedOut;
+      this.launchSeconds = launchSeconds;
+      this.navigationSeconds = navigationSeconds;
+    }
+
+    /** @return Seconds saved compared to a launch phase that always lasts FIXED_LAUNCH_SECONDS */
+    public double reclaimedSeconds() {
+      return FIXED_LAUNCH_SECONDS - launchSeconds;
+    }
+
+    /** @return Seconds of autonomous left over after parking */
+    public double spareSeconds() {
+      return AUTO_SECONDS - launchSeconds - navigationSeconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "0.00 s  start%n"
+          + "%.2f s  launch done: %d balls fired, %d shots detected%s%n"
+          + "%.2f s  parked%n"
+          + "reclaimed %.2f s of the %.0f s autonomous (%.2f s spare)",
+          launchSeconds, ballsFired, shotsDetected, timedOut ? " (TIMEOUT)" : "",
+          launchSeconds + navigationSeconds,
+          reclaimedSeconds(), AUTO_SECONDS, spareSeconds());
+    }
+  }
+
+  /**
+   * Simulates one autonomous.
+   *
+   * @param ballsLoaded    Artifacts actually in the robot (fewer than expected = timeout)
+   * @param expectedShots  Shots to count before the launch phase ends
+   * @param targetVelocity Flywheel target in ticks/second
+   * @param timeoutSeconds Launch phase fallback (10 on the robot)
+   * @param seed           Random seed for velocity noise (same seed = same result)
+   */
+  public static Result run(int ballsLoaded, int expectedShots, double targetVelocity,
+                           double timeoutSeconds, long seed) {
+    RobotClock.Virtual clock = new RobotClock.Virtual();
+    FlywheelController controller = new FlywheelController(clock);
+    ShotDetector detector = new ShotDetector(0.5, 60);
+    FlywheelSim flywheel = new FlywheelSim();
+    Random noise = new Random(seed);
+
+    int ballsLeft = ballsLoaded;
+    double feedSeconds = 0;
+    int loops = 0;
+    int timeoutLoops = (int) Math.round(timeoutSeconds / LOOP_SECONDS);
+    while (detector.shotCount() < expectedShots && loops < timeoutLoops) {
+      double raw = flywheel.velocity() + noise.nextGaussian() * VELOCITY_NOISE;
+      flywheel.setPower(controller.update(targetVelocity, raw));
+      double velocity = detector.filter(raw);
+      boolean feeding = detector.update(
+          controller.readyWithin(targetVelocity, velocity, FEED_TOLERANCE, FEED_TRAVEL_SECONDS));
+
+      // A ball reaches the wheel after the feeder has pushed it for FEED_TRAVEL_SECONDS
+      if (feeding && ballsLeft > 0) {
+        feedSeconds += LOOP_SECONDS;
+        if (feedSeconds >= FEED_TRAVEL_SECONDS) {
+          flywheel.launchBall();
+          ballsLeft--;
+          feedSeconds = 0;
+        }
+      }
+
+      flywheel.step(LOOP_SECONDS);
+      clock.advanceNanos((long) (LOOP_SECONDS * 1e9));
+      loops++;
+    }
+    boolean timedOut = detector.shotCount() < expectedShots;
+
+    return new Result(ballsLoaded - ballsLeft, detector.shotCount(), timedOut, loops * LOOP_SECONDS, navigationSeconds());
+  }
+
+  /**
+   * @return Time for the autoDrive() legs, at DRIVE_INCHES_PER_SECOND times each leg's speed
+   */
+  public static double navigationSeconds() {
+    double seconds = 0;
+    for (double[] leg : DRIVE_LEGS) {
+      seconds += leg[1] / (leg[0] * DRIVE_INCHES_PER_SECOND);
+    }
+    return seconds;
+  }
+}
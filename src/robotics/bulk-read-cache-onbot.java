@@ -0,0 +1,276 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import java.util.List;
+
+/**
+ * Bulk Read Cache - One Hub Read Per Loop
+ *
+ * Every call to getVelocity() or getCurrentPosition() is a separate round trip
+ * to the Control Hub. Asking for the same flywheel velocity three times in one
+ * loop costs three round trips, and the loop can only run as fast as those
+ * reads allow.
+ *
+ * This class reads every motor ONCE per loop and serves all later questions from
+ * that saved "snapshot":
+ * 1. Call invalidate() at the top of each loop (the old snapshot is now stale)
+ * 2. The first velocity()/position()/busy() call refreshes the snapshot
+ * 3. Every other call in the same loop reuses the saved values
+ *
+ * busy() is isBusy() (RUN_TO_POSITION still moving), which is part of the
+ * bulk data too. It changes as soon as a motor is switched to
+ * RUN_TO_POSITION, so code that polls it right after a mode change should
+ * invalidate() first.
+ *
+ * Why No Motor Power?
+ * getPower() is not part of the hub's bulk data: every call is its own round
+ * trip, snapshot or not. The power is whatever the OpMode last commanded, so
+ * use that value instead (CachedActuator.value() keeps it).
+ *
+ * Motors are referred to by index (the order they were passed to the hub), so
+ * the OpMode declares constants like FLYWHEEL = 0 to keep the code readable.
+ *
+ * Why a Hub interface?
+ * - ControlHub talks to the real robot using the SDK's MANUAL bulk caching mode
+ * - FakeHub pretends to be a hub so the read count and loop rate can be
+ *   checked on a laptop with no robot attached
+ */
+public class BulkReadCache {
+
+  /**
+   * Anything that can read every motor in a single transaction.
+   */
+  public interface Hub {
+    int motorCount();
+    void readAll(int[] positions, double[] velocities, boolean[] busy);
+  }
+
+  private final Hub hub;
+  private final int[] positions;
+  private final double[] velocities;
+  private final boolean[] busy;
+  private boolean fresh = false;
+  private long readCount = 0;
+
+  public BulkReadCache(Hub hub) {
+    this.hub = hub;
+    positions = new int[hub.motorCount()];
+    velocities = new double[hub.motorCount()];
+    busy = new boolean[hub.motorCount()];
+  }
+
+  /**
+   * Marks the snapshot as stale. Call once at the top of every loop.
+   */
+  public void invalidate() {
+    fresh = false;
+  }
+
+  public int position(int motor) {
+    refresh();
+    return positions[motor];
+  }
+
+  public double velocity(int motor) {
+    refresh();
+    return velocities[motor];
+  }
+
+  /** @return true while the motor is still moving to its RUN_TO_POSITION target */
+  public boolean busy(int motor) {
+    refresh();
+    return busy[motor];
+  }
+
+  /**
+   * @return How many times the hub has actually been read (one per loop when used correctly)
+   */
+  public long readCount() {
+    return readCount;
+  }
+
+  private void refresh() {
+    if (!fresh) {
+      hub.readAll(positions, velocities, busy);
+      readCount++;
+      fresh = true;
+    }
+  }
+
+  // ===== REAL HARDWARE =====
+
+  /**
+   * Control Hub Reader
+   *
+   * Puts every Lynx module into MANUAL bulk caching mode. In this mode the first
+   * encoder read after clearBulkCache() fetches ALL encoder, velocity and isBusy()
+   * data in one packet, and later reads are answered from the SDK's cache until it
+   * is cleared - which only readAll() does. Reading isBusy() from the motor
+   * directly would return the same old flag forever; read it through busy().
+   */
+  public static class ControlHub implements Hub {
+    private final List<LynxModule> modules;
+    private final DcMotorEx[] motors;
+
+    public ControlHub(HardwareMap hardwareMap, DcMotorEx... motors) {
+      this.motors = motors;
+      modules = hardwareMap.getAll(LynxModule.class);
+      for (LynxModule module : modules) {
+        module.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+      }
+    }
+
+    @Override
+    public int motorCount() {
+      return motors.length;
+    }
+
+    @Override
+    public void readAll(int[] positions, double[] velocities, boolean[] busy) {
+      for (LynxModule module : modules) {
+        module.clearBulkCache();
+      }
+      for (int i = 0; i < motors.length; i++) {
+        positions[i] = motors[i].getCurrentPosition();
+        velocities[i] = motors[i].getVelocity();
+        busy[i] = motors[i].isBusy();
+      }
+    }
+  }
+
+  // ===== FAKE HARDWARE (for testing without a robot) =====
+
+  /**
+   * Fake Hub
+   *
+   * Stores motor values in plain arrays and counts transactions. Each transaction
+   * busy-waits for transactionNanos to imitate the real hub's round trip time, so a
+   * loop that reads too often really does run slower on a laptop too. Its motors
+   * never run to a position, so they are never busy.
+   *
+   * readVelocity() and readUncached() imitate the old uncached style (one
+   * transaction per call) so the two styles can be compared side by side (see
+   * loopRateReport()).
+   */
+  public static class FakeHub implements Hub {
+    private final int[] positions;
+    private final double[] velocities;
+    private final long transactionNanos;
+    private long transactions = 0;
+
+    public FakeHub(int motorCount, long transactionNanos) {
+      positions = new int[motorCount];
+      velocities = new double[motorCount];
+      this.transactionNanos = transactionNanos;
+    }
+
+    public void setMotor(int motor, int position, double velocity) {
+      positions[motor] = position;
+      velocities[motor] = velocity;
+    }
+
+    /** Imitates one uncached getVelocity(): one transaction. */
+    public double readVelocity(int motor) {
+      transaction();
+      return velocities[motor];
+    }
+
+    /** Imitates a read that is not in the bulk data, like getPower(): one transaction. */
+    public void readUncached() {
+      transaction();
+    }
+
+    public long transactions() {
+      return transactions;
+    }
+
+    @Override
+    public int motorCount() {
+      return positions.length;
+    }
+
+    @Override
+    public void readAll(int[] positions, double[] velocities, boolean[] busy) {
+      transaction();
+      System.arraycopy(this.positions, 0, positions, 0, positions.length);
+      System.arraycopy(this.velocities, 0, velocities, 0, velocities.length);
+    }
+
+    private void transaction() {
+      transactions++;
+      long end = System.nanoTime() + transactionNanos;
+      while (System.nanoTime() < end) {
+        // Simulated hub round trip
+      }
+    }
+  }
+  // ===== LOOP RATE BENCHMARK =====
+
+  private static final int BENCH_MOTORS = 4;               // Flywheel, feeder, left, right
+  private static final int BENCH_FLYWHEEL = 0;
+  private static final long BENCH_HUB_NANOS = 1_000_000;   // Per transaction
+  private static final double BENCH_BANK_VELOCITY = 1300;  // ticks/second
+
+  /**
+   * Runs the reads of a REVStarterBotTeleOpJava loop for the given time, two
+   * ways:
+   * - per call: every read is its own transaction, as before this class.
+   *   bankShotAuto() reads the flywheel velocity, then telemetry reads its
+   *   velocity and its power (getPower()) again
+   * - snapshot: one bulk read per loop. Telemetry shows the power the loop
+   *   commanded last, which needs no read
+   * both idle (no buttons: only the telemetry reads) and shooting.
+   *
+   * @return Transactions per loop and loop rate for each
+   */
+  public static String loopRateReport(double seconds) {
+    // Warm-up so the JIT has compiled the loop before it is timed
+    for (int shooting = 0; shooting < 2; shooting++) {
+      benchmarkLoop(seconds / 4, shooting == 1, false);
+      benchmarkLoop(seconds / 4, shooting == 1, true);
+    }
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%-9s %-9s %9s %9s %17s%n",
+        "loop", "reads", "loop Hz", "p50 ms", "transactions/loop"));
+    for (int shooting = 0; shooting < 2; shooting++) {
+      report.append(benchmarkLoop(seconds, shooting == 1, false));
+      report.append(benchmarkLoop(seconds, shooting == 1, true));
+    }
+    return report.toString();
+  }
+
+  private static String benchmarkLoop(double seconds, boolean shooting, boolean cached) {
+    FakeHub hub = new FakeHub(BENCH_MOTORS, BENCH_HUB_NANOS);
+    BulkReadCache sensors = new BulkReadCache(hub);
+    LoopProfiler profiler = new LoopProfiler(RobotClock.SYSTEM);
+    long loops = 0;
+    long end = System.nanoTime() + (long) (seconds * 1e9);
+    while (System.nanoTime() < end) {
+      profiler.startLoop();
+      sensors.invalidate();
+      hub.setMotor(BENCH_FLYWHEEL, (int) loops, BENCH_BANK_VELOCITY - 50 + loops % 100);
+
+      // bankShotAuto() compares the flywheel velocity with its target
+      if (shooting) {
+        readFlywheelVelocity(hub, sensors, cached);
+      }
+      // Telemetry shows the flywheel velocity and power; the snapshot style
+      // shows the power it commanded last, which needs no read
+      readFlywheelVelocity(hub, sensors, cached);
+      if (!cached) {
+        hub.readUncached();   // getPower()
+      }
+      loops++;
+    }
+    return String.format("%-9s %-9s %9.1f %9.2f %17.2f%n", shooting ? "shooting" : "idle",
+        cached ? "snapshot" : "per call", profiler.loopHz(), profiler.percentileMs(LoopProfiler.LOOP, 50),
+        hub.transactions() / (double) loops);
+  }
+
+  private static double readFlywheelVelocity(FakeHub hub, BulkReadCache sensors, boolean cached) {
+    return cached ? sensors.velocity(BENCH_FLYWHEEL) : hub.readVelocity(BENCH_FLYWHEEL);
+  }
+}
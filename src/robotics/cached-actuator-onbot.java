@@ -0,0 +1,258 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.Servo;
+import java.util.Random;
+
+/**
+ * Cached Actuator - Only Send a Motor or Servo What Has Changed
+ *
+ * Every setPower() or setPosition() is a round trip to the hub, even when the
+ * value is the same as last loop. An idle TeleOp loop sends setPower(0) to
+ * the flywheel, feeder and agitator every time, and a robot with the sticks
+ * at rest keeps resending the same drive powers. Those round trips are loop
+ * time spent on nothing.
+ *
+ * A CachedActuator sits in front of one motor or servo:
+ * 1. set(value) remembers the last value actually sent
+ * 2. A value within epsilon of it is skipped (suppressed)
+ * 3. Anything else is sent, and becomes the new "last value"
+ *
+ * Two exceptions make sure skipping is always safe:
+ * - Stopping: a change to exactly 0 is always sent, so stop means stop
+ * - Refresh: the value is sent again every refreshSeconds even if it did not
+ *   change, in case a write was lost (for example a hub that reset)
+ *
+ * After anything else changes the device behind the cache's back (a mode
+ * change, or a write that did not go through set()), call invalidate() so
+ * the next set() is always sent.
+ *
+ * issued() and suppressed() count both kinds; loopRateReport() shows what
+ * the suppressed writes are worth in loop rate.
+ *
+ * Why an Output interface?
+ * - power() and position() wrap the real SDK devices
+ * - FakeOutput pretends to be a device so writes and loop rate can be
+ *   checked on a laptop, like BulkReadCache.FakeHub
+ */
+public class CachedActuator {
+
+  /**
+   * Anything a value can be written to.
+   */
+  public interface Output {
+    void write(double value);
+  }
+
+  private final Output output;
+  private final RobotClock clock;
+  private final double epsilon;
+  private final long refreshNanos;
+
+  private double last = Double.NaN;   // NaN = nothing sent yet
+  private long lastWriteNanos;
+  private long issued = 0;
+  private long suppressed = 0;
+
+  /**
+   * @param output         Where values are sent
+   * @param clock          Time source for the refresh
+   * @param epsilon        Changes this small or smaller are skipped (0 = only exact repeats)
+   * @param refreshSeconds Longest time a value goes without being sent again
+   */
+  public CachedActuator(Output output, RobotClock clock, double epsilon, double refreshSeconds) {
+    this.output = output;
+    this.clock = clock;
+    this.epsilon = epsilon;
+    this.refreshNanos = (long) (refreshSeconds * 1e9);
+  }
+
+  /** @return A cache in front of a motor or CR servo's setPower() */
+  public static CachedActuator power(final DcMotorSimple device, RobotClock clock,
+                                     double epsilon, double refreshSeconds) {
+    return new CachedActuator(new Output() {
+      @Override
+      public void write(double value) {
+        device.setPower(value);
+      }
+    }, clock, epsilon, refreshSeconds);
+  }
+
+  /** @return A cache in front of a servo's setPosition() */
+  public static CachedActuator position(final Servo servo, RobotClock clock,
+                                        double epsilon, double refreshSeconds) {
+    return new CachedActuator(new Output() {
+      @Override
+      public void write(double value) {
+        servo.setPosition(value);
+      }
+    }, clock, epsilon, refreshSeconds);
+  }
+
+  /**
+   * Sends the value unless it is within epsilon of the last one sent.
+   *
+   * @return true if the value was sent
+   */
+  public boolean set(double value) {
+    long now = clock.nanoTime();
+    if (Math.abs(value - last) <= epsilon
+        && (value != 0 || last == 0)
+        && now - lastWriteNanos < refreshNanos) {
+      suppressed++;
+      return false;
+    }
+    output.write(value);
+    last = value;
+    lastWriteNanos = now;
+    issued++;
+    return true;
+  }
+
+  /**
+   * Forgets the last value, so the next set() is sent whatever it is.
+   */
+  public void invalidate() {
+    last = Double.NaN;
+  }
+
+  /** @return The last value sent (0 before the first one) */
+  public double value() {
+    return Double.isNaN(last) ? 0 : last;
+  }
+
+  /** @return Values sent to the device */
+  public long issued() {
+    return issued;
+  }
+
+  /** @return Values skipped because they had not changed */
+  public long suppressed() {
+    return suppressed;
+  }
+
+  // ===== FAKE HARDWARE (for testing without a robot) =====
+
+  /**
+   * Fake Output
+   *
+   * Stores the value and counts writes. Each write busy-waits for
+   * transactionNanos to imitate the hub's round trip, like BulkReadCache.FakeHub.
+   */
+  public static class FakeOutput implements Output {
+    private final long transactionNanos;
+    private double value = 0;
+    private long writes = 0;
+
+    public FakeOutput(long transactionNanos) {
+      this.transactionNanos = transactionNanos;
+    }
+
+    @Override
+    public void write(double value) {
+      this.value = value;
+      writes++;
+      long end = System.nanoTime() + transactionNanos;
+      while (System.nanoTime() < end) {
+        // Simulated hub round trip
+      }
+    }
+
+    public double value() {
+      return value;
+    }
+
+    public long writes() {
+      return writes;
+    }
+  }
+
+  // ===== LOOP RATE BENCHMARK =====
+
+  private static final int BENCH_ACTUATORS = 5;            // Left, right, flywheel, feeder, agitator
+  private static final long BENCH_HUB_NANOS = 1_000_000;    // Per bulk read and per write
+  private static final double BENCH_EPSILON = 0.005;
+  private static final double BENCH_REFRESH_SECONDS = 0.5;
+
+  /**
+   * Runs a StarterBot-style loop (one bulk read, then five actuator writes)
+   * for the given time in each of three situations, with every write sent
+   * and with the writes going through CachedActuators:
+   * - idle:     sticks at rest, no buttons (every command is 0)
+   * - driving:  sticks moving slowly, shooter off
+   * - shooting: driving, plus a flywheel power that jitters every loop (like
+   *   FlywheelController's output on a noisy velocity) and the feeder
+   *   turning on and off
+   *
+   * @return Loop rate and writes per loop for each
+   */
+  public static String loopRateReport(double seconds) {
+    // Warm-up so the JIT has compiled the loop before it is timed
+    for (int scenario = 0; scenario < 3; scenario++) {
+      benchmarkLoop(seconds / 4, scenario, false);
+      benchmarkLoop(seconds / 4, scenario, true);
+    }
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%-9s %-7s %9s %9s %12s %12s%n",
+        "loop", "writes", "loop Hz", "p50 ms", "sent/loop", "skipped/loop"));
+    for (int scenario = 0; scenario < 3; scenario++) {
+      report.append(benchmarkLoop(seconds, scenario, false));
+      report.append(benchmarkLoop(seconds, scenario, true));
+    }
+    return report.toString();
+  }
+
+  private static String benchmarkLoop(double seconds, int scenario, boolean cached) {
+    BulkReadCache.FakeHub hub = new BulkReadCache.FakeHub(BENCH_ACTUATORS, BENCH_HUB_NANOS);
+    BulkReadCache sensors = new BulkReadCache(hub);
+    LoopProfiler profiler = new LoopProfiler(RobotClock.SYSTEM);
+    FakeOutput[] outputs = new FakeOutput[BENCH_ACTUATORS];
+    CachedActuator[] actuators = new CachedActuator[BENCH_ACTUATORS];
+    double[] commands = new double[BENCH_ACTUATORS];
+    Random noise = new Random(1);
+    for (int i = 0; i < BENCH_ACTUATORS; i++) {
+      outputs[i] = new FakeOutput(BENCH_HUB_NANOS);
+      actuators[i] = new CachedActuator(outputs[i], RobotClock.SYSTEM, BENCH_EPSILON, BENCH_REFRESH_SECONDS);
+    }
+
+    long loops = 0;
+    long start = System.nanoTime();
+    long end = start + (long) (seconds * 1e9);
+    while (System.nanoTime() < end) {
+      profiler.startLoop();
+      sensors.invalidate();
+      double t = (System.nanoTime() - start) / 1e9;
+      double velocity = sensors.velocity(2) + 15 * noise.nextGaussian();
+
+      // Stick values come in steps of 1/128, like a real gamepad
+      double y = scenario == 0 ? 0 : Math.round(Math.sin(t) * 128) / 128.0;
+      double x = scenario == 0 ? 0 : Math.round(Math.sin(0.7 * t) * 64) / 128.0;
+      commands[0] = y - x;
+      commands[1] = y + x;
+      commands[2] = scenario == 2 ? 0.6 + 0.001 * (1300 - velocity) : 0;
+      commands[3] = scenario == 2 && (loops / 20) % 2 == 0 ? 1 : 0;
+      commands[4] = scenario == 2 ? -1 : 0;
+
+      for (int i = 0; i < BENCH_ACTUATORS; i++) {
+        if (cached) {
+          actuators[i].set(commands[i]);
+        } else {
+          outputs[i].write(commands[i]);
+        }
+      }
+      loops++;
+    }
+
+    long sent = 0;
+    long skipped = 0;
+    for (int i = 0; i < BENCH_ACTUATORS; i++) {
+      sent += outputs[i].writes();
+      skipped += actuators[i].suppressed();
+    }
+    String name = scenario == 0 ? "idle" : scenario == 1 ? "driving" : "shooting";
+    return String.format("%-9s %-7s %9.1f %9.2f %12.2f %12.2f%n", name, cached ? "cached" : "all",
+        profiler.loopHz(), profiler.percentileMs(LoopProfiler.LOOP, 50),
+        sent / (double) loops, skipped / (double) loops);
+  }
+}
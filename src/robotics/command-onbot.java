@@ -0,0 +1,262 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Command - One Thing the Robot Does, a Loop at a Time
+ *
+ * A blocking helper like autoDrive() owns the whole loop until it is done,
+ * so nothing else can happen at the same time. A Command does its work one
+ * loop at a time instead, and CommandScheduler runs every scheduled command
+ * once per loop - so a drive and a flywheel spin-up can run together.
+ *
+ * Lifecycle (called by the scheduler or by a group):
+ * 1. initialize() - once, when the command starts
+ * 2. execute()    - once per loop while it runs
+ * 3. isFinished() - checked after each execute(); true ends the command
+ * 4. end(interrupted) - once; interrupted is true if it was cancelled
+ *    (or another command took one of its subsystems)
+ *
+ * Requirements:
+ * A command lists the subsystems it uses (addRequirements()). Scheduling a
+ * command cancels any running command that uses the same subsystem, so two
+ * commands never fight over the drive motors.
+ *
+ * Groups (commands made of commands):
+ * - sequence(a, b, c): one after another
+ * - parallel(a, b):    all at the same time, done when all are done
+ * - race(a, b):        all at the same time, done when ANY is done
+ * - deadline(a, b):    all at the same time, done when the first (a) is done
+ * A group requires every subsystem its commands require.
+ *
+ * Nothing is allocated once the commands are built: groups keep their
+ * commands in arrays made by the factory methods, so build routines during
+ * INIT or before the loop starts, never inside it.
+ */
+public abstract class Command {
+
+  private int requirements = 0;   // One bit per CommandScheduler.Subsystem
+  boolean scheduled = false;      // Set by CommandScheduler
+
+  /** Called once when the command starts. */
+  public void initialize() {
+  }
+
+  /** Called once per loop while the command runs. */
+  public void execute() {
+  }
+
+  /** @return true once the command is done (checked after every execute()) */
+  public boolean isFinished() {
+    return false;
+  }
+
+  /**
+   * Called once when the command stops.
+   *
+   * @param interrupted true if it was cancelled before isFinished()
+   */
+  public void end(boolean interrupted) {
+  }
+
+  /**
+   * Declares the subsystems this command uses. Call from the constructor.
+   */
+  public final Command addRequirements(CommandScheduler.Subsystem... subsystems) {
+    for (CommandScheduler.Subsystem subsystem : subsystems) {
+      requirements |= subsystem.bit();
+    }
+    return this;
+  }
+
+  /** @return The bits of every subsystem this command uses */
+  public final int requirements() {
+    return requirements;
+  }
+
+  // ===== FACTORIES =====
+
+  /** @return A command that runs the commands one after another */
+  public static Command sequence(Command... commands) {
+    return new Sequence(commands);
+  }
+
+  /** @return A command that runs the commands together until all are done */
+  public static Command parallel(Command... commands) {
+    return new Parallel(commands, Parallel.ALL);
+  }
+
+  /** @return A command that runs the commands together until any one is done */
+  public static Command race(Command... commands) {
+    return new Parallel(commands, Parallel.ANY);
+  }
+
+  /**
+   * @return A command that runs the commands together until the first one
+   *         (the deadline) is done; the others are interrupted then
+   */
+  public static Command deadline(Command deadline, Command... others) {
+    Command[] commands = new Command[others.length + 1];
+    commands[0] = deadline;
+    System.arraycopy(others, 0, commands, 1, others.length);
+    return new Parallel(commands, Parallel.FIRST);
+  }
+
+  /** @return A command that does nothing and ends after the given time */
+  public static Command waitSeconds(RobotClock clock, double seconds) {
+    return new Wait(clock, seconds);
+  }
+
+  // ===== GROUPS =====
+
+  private static final class Sequence extends Command {
+    private final Command[] commands;
+    private int current;
+
+    Sequence(Command[] commands) {
+      this.commands = commands;
+      for (Command command : commands) {
+        requireAll(this, command);
+      }
+    }
+
+    @Override
+    public void initialize() {
+      current = 0;
+      if (commands.length > 0) {
+        commands[0].initialize();
+      }
+    }
+
+    @Override
+    public void execute() {
+      if (current >= commands.length) {
+        return;
+      }
+      commands[current].execute();
+      if (commands[current].isFinished()) {
+        commands[current].end(false);
+        current++;
+        // The next command starts now and runs its first execute() next loop
+        if (current < commands.length) {
+          commands[current].initialize();
+        }
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return current >= commands.length;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      if (interrupted && current < commands.length) {
+        commands[current].end(true);
+      }
+    }
+  }
+
+  private static final class Parallel extends Command {
+    static final int ALL = 0;      // Done when every command is done
+    static final int ANY = 1;      // Done when any command is done
+    static final int FIRST = 2;    // Done when commands[0] is done
+
+    private final Command[] commands;
+    private final boolean[] running;
+    private final int finishWhen;
+    private boolean done;
+
+    Parallel(Command[] commands, int finishWhen) {
+      this.commands = commands;
+      this.finishWhen = finishWhen;
+      running = new boolean[commands.length];
+      for (Command command : commands) {
+        if ((requirements() & command.requirements()) != 0) {
+          throw new IllegalArgumentException("commands running together cannot share a subsystem");
+        }
+        requireAll(this, command);
+      }
+    }
+
+    @Override
+    public void initialize() {
+      done = commands.length == 0;
+      for (int i = 0; i < commands.length; i++) {
+        commands[i].initialize();
+        running[i] = true;
+      }
+    }
+
+    @Override
+    public void execute() {
+      boolean anyRunning = false;
+      for (int i = 0; i < commands.length; i++) {
+        if (!running[i]) {
+          continue;
+        }
+        commands[i].execute();
+        if (commands[i].isFinished()) {
+          commands[i].end(false);
+          running[i] = false;
+          if (finishWhen == ANY || (finishWhen == FIRST && i == 0)) {
+            done = true;
+          }
+        } else {
+          anyRunning = true;
+        }
+      }
+      if (!anyRunning) {
+        done = true;
+      }
+      if (done) {
+        // Interrupt whatever is still running (race and deadline)
+        for (int i = 0; i < commands.length; i++) {
+          if (running[i]) {
+            commands[i].end(true);
+            running[i] = false;
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return done;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      for (int i = 0; i < commands.length; i++) {
+        if (running[i]) {
+          commands[i].end(true);
+          running[i] = false;
+        }
+      }
+    }
+  }
+
+  private static final class Wait extends Command {
+    private final RobotClock clock;
+    private final long durationNanos;
+    private long startNanos;
+
+    Wait(RobotClock clock, double seconds) {
+      this.clock = clock;
+      durationNanos = (long) (seconds * 1e9);
+    }
+
+    @Override
+    public void initialize() {
+      startNanos = clock.nanoTime();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return clock.nanoTime() - startNanos >= durationNanos;
+    }
+  }
+
+  /** A group (or AutoRoutine) requires everything its members require. */
+  static void requireAll(Command group, Command member) {
+    group.requirements |= member.requirements;
+  }
+}
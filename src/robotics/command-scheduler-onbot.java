@@ -0,0 +1,179 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Command Scheduler - Runs Every Scheduled Command Once Per Loop
+ *
+ * The OpMode's loop calls run() once per loop. Each scheduled Command gets
+ * one execute(); commands that report isFinished() are ended and removed.
+ * Nothing in the loop waits, so commands on different subsystems (drive,
+ * shooter, ...) run side by side.
+ *
+ * Usage:
+ * <pre>
+ * CommandScheduler scheduler = new CommandScheduler(8);      // at INIT
+ * CommandScheduler.Subsystem drive = scheduler.subsystem("drive");
+ * ...
+ * scheduler.schedule(routine);
+ * while (robot.nextLoop() && scheduler.isScheduled(routine)) {
+ *   scheduler.run();
+ * }
+ * scheduler.cancelAll();
+ * </pre>
+ *
+ * Subsystems:
+ * Each subsystem is one bit, so checking two commands for a shared
+ * subsystem is a single AND - no sets or lists. Up to 32 subsystems.
+ *
+ * No Allocation:
+ * Scheduled commands live in an array sized in the constructor. schedule(),
+ * run() and cancel() never create objects.
+ */
+public class CommandScheduler {
+
+  /**
+   * Something only one command may use at a time (the drive, the shooter).
+   */
+  public static final class Subsystem {
+    private final String name;
+    private final int bit;
+
+    private Subsystem(String name, int bit) {
+      this.name = name;
+      this.bit = bit;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    int bit() {
+      return bit;
+    }
+  }
+
+  private final Command[] scheduled;
+  private int count = 0;
+  private int subsystems = 0;
+  private boolean running = false;   // Inside run(): removals are left for the end
+
+  /**
+   * @param capacity Most commands scheduled at the same time (groups count as one)
+   */
+  public CommandScheduler(int capacity) {
+    scheduled = new Command[capacity];
+  }
+
+  /** @return A new subsystem for commands to require */
+  public Subsystem subsystem(String name) {
+    if (subsystems == Integer.SIZE) {
+      throw new IllegalStateException("more than " + Integer.SIZE + " subsystems");
+    }
+    return new Subsystem(name, 1 << subsystems++);
+  }
+
+  /**
+   * Starts a command: cancels running commands that use any of its
+   * subsystems, then calls its initialize(). Does nothing if it is already
+   * scheduled.
+   */
+  public void schedule(Command command) {
+    if (command.scheduled) {
+      return;
+    }
+    // Backwards, so a cancel() closing its gap does not skip a command
+    for (int i = count - 1; i >= 0; i--) {
+      Command other = scheduled[i];
+      if (other != null && (other.requirements() & command.requirements()) != 0) {
+        cancel(other);
+      }
+    }
+    if (count == scheduled.length) {
+      throw new IllegalStateException("more than " + scheduled.length + " commands scheduled");
+    }
+    command.scheduled = true;
+    scheduled[count++] = command;
+    command.initialize();
+  }
+
+  /**
+   * Runs one loop: execute() for every scheduled command, and end() for
+   * the ones that are finished. Call once per loop.
+   */
+  public void run() {
+    running = true;
+    // Commands scheduled by other commands during this loop run this loop too
+    for (int i = 0; i < count; i++) {
+      Command command = scheduled[i];
+      if (command == null) {
+        continue;   // Cancelled earlier in this loop
+      }
+      command.execute();
+      if (command.isFinished()) {
+        command.scheduled = false;
+        scheduled[i] = null;
+        command.end(false);
+      }
+    }
+    running = false;
+    compact();
+  }
+
+  /**
+   * Stops a command early; its end() is called with interrupted = true.
+   */
+  public void cancel(Command command) {
+    for (int i = 0; i < count; i++) {
+      if (scheduled[i] == command) {
+        command.scheduled = false;
+        scheduled[i] = null;
+        command.end(true);
+        break;
+      }
+    }
+    compact();
+  }
+
+  /** Stops every scheduled command (e.g. when the OpMode stops). */
+  public void cancelAll() {
+    for (int i = count - 1; i >= 0; i--) {
+      if (scheduled[i] != null) {
+        cancel(scheduled[i]);
+      }
+    }
+  }
+
+  public boolean isScheduled(Command command) {
+    return command.scheduled;
+  }
+
+  /** @return Commands currently scheduled */
+  public int scheduledCount() {
+    int scheduledCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (scheduled[i] != null) {
+        scheduledCount++;
+      }
+    }
+    return scheduledCount;
+  }
+
+  /**
+   * Closes the gaps left by removed commands, keeping the order they were
+   * scheduled in. Waits until run() is done so its loop index stays valid.
+   */
+  private void compact() {
+    if (running) {
+      return;
+    }
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      if (scheduled[i] != null) {
+        scheduled[kept++] = scheduled[i];
+      }
+    }
+    for (int i = kept; i < count; i++) {
+      scheduled[i] = null;
+    }
+    count = kept;
+  }
+}
@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Drive Output - What Actually Goes to the Drive Motors
+ *
+ * Arcade drive mixes the sticks into Y - X and Y + X. Sent straight to
+ * setPower(), that has three problems:
+ * - Full forward plus a turn asks for more than 1.0 on one side. The motor
+ *   clips it, so the turn the driver asked for is lost
+ * - Full forward to full reverse jumps from +1 to -1 in one loop: the
+ *   wheels slip, and both motors draw about twice their stall current
+ * - That current sags the battery, so the flywheel - on the same battery -
+ *   slows down right when it is shooting
+ *
+ * Every loop this stage works on the pair of wanted powers, in order:
+ * 1. Desaturate: if either side is over 1.0, both are divided by the larger,
+ *    so the ratio between the sides (the turn) is kept
+ * 2. Slew limit: each side's power may grow by at most acceleration per
+ *    second and shrink by at most deceleration per second. A reversal first
+ *    brakes to 0, then speeds up the other way
+ * 3. Current budget: each motor's battery current is estimated from its
+ *    power and its wheel speed (see motorAmps()). If the drive would take
+ *    more than currentBudget minus reservedAmps, both sides are pulled back
+ *    toward their coasting power (the power that draws no current at their
+ *    speed) until it fits
+ *
+ * reservedAmps is how the shooter gets priority: while it fires, the OpMode
+ * reserves the flywheel's stall current, so a ball's recovery never has to
+ * share the battery with a hard acceleration.
+ *
+ * Units: powers -1.0 to 1.0, wheel speeds as a fraction of free speed,
+ * current in amps. Nothing is allocated in update().
+ */
+public class DriveOutput {
+
+  // REV HD Hex motor at 12 V (drive sides and flywheel)
+  public static final double MOTOR_STALL_AMPS = 8.5;
+
+  // Defaults, tuned against StarterBotSim with a battery model (see batteryReport())
+  public static final double DEFAULT_ACCELERATION = 4.0;    // power per second: 0 to full in 0.25 s
+  public static final double DEFAULT_DECELERATION = 8.0;    // power per second: full to 0 in 0.125 s
+  public static final double DEFAULT_CURRENT_BUDGET = 20;   // amps for the drive and the flywheel
+
+  private final double acceleration;
+  private final double deceleration;
+  private final double currentBudget;
+
+  private double leftPower = 0;
+  private double rightPower = 0;
+  private double amps = 0;
+  private boolean limited = false;
+  private long lastNanos;
+  private boolean started = false;
+
+  public DriveOutput() {
+    this(DEFAULT_ACCELERATION, DEFAULT_DECELERATION, DEFAULT_CURRENT_BUDGET);
+  }
+
+  /**
+   * @param acceleration  Fastest a side's power may grow, per second
+   * @param deceleration  Fastest a side's power may shrink toward 0, per second
+   * @param currentBudget Amps the drive may share with reservedAmps
+   */
+  public DriveOutput(double acceleration, double deceleration, double currentBudget) {
+    this.acceleration = acceleration;
+    this.deceleration = deceleration;
+    this.currentBudget = currentBudget;
+  }
+
+  /**
+   * Works out both drive powers for this loop.
+   *
+   * @param left         Wanted left power (may be over 1.0)
+   * @param right        Wanted right power (may be over 1.0)
+   * @param leftSpeed    Left wheel speed, fraction of free speed
+   * @param rightSpeed   Right wheel speed, fraction of free speed
+   * @param reservedAmps Current kept for other motors (the flywheel)
+   * @param nanos        Now (RobotClock time)
+   */
+  public void update(double left, double right, double leftSpeed, double rightSpeed,
+                     double reservedAmps, long nanos) {
+    // 1. Desaturate
+    double largest = Math.max(1.0, Math.max(Math.abs(left), Math.abs(right)));
+    left /= largest;
+    right /= largest;
+
+    // 2. Slew limit (nothing moves on the first call: there is no dt yet)
+    double dt = started ? (nanos - lastNanos) / 1e9 : 0;
+    lastNanos = nanos;
+    started = true;
+    left = slew(leftPower, left, dt);
+    right = slew(rightPower, right, dt);
+
+    // 3. Current budget: scale each side's push past coasting by s (0..1).
+    // Battery amps = stall * sum of (coast + s * push) * s * push = a s² + b s
+    double budget = Math.max(0, currentBudget - reservedAmps);
+    double leftPush = left - leftSpeed;
+    double rightPush = right - rightSpeed;
+    double a = MOTOR_STALL_AMPS * (leftPush * leftPush + rightPush * rightPush);
+    double b = MOTOR_STALL_AMPS * (leftSpeed * leftPush + rightSpeed * rightPush);
+    amps = a + b;
+    limited = amps > budget && a > 1e-9;
+    if (limited) {
+      double s = (-b + Math.sqrt(Math.max(0, b * b + 4 * a * budget))) / (2 * a);
+      s = Math.max(0, Math.min(1, s));
+      left = leftSpeed + s * leftPush;
+      right = rightSpeed + s * rightPush;
+      amps = motorAmps(left, leftSpeed) + motorAmps(right, rightSpeed);
+    }
+    leftPower = left;
+    rightPower = right;
+  }
+
+  /** @return The next power: target, but no further from current than the slew limits allow */
+  private double slew(double current, double target, double dt) {
+    if (current * target < 0) {
+      target = 0;   // Reversing: brake to 0 first
+    }
+    double limit = (Math.abs(target) > Math.abs(current) ? acceleration : deceleration) * dt;
+    return current + Math.max(-limit, Math.min(limit, target - current));
+  }
+
+  /**
+   * Estimated battery current of one HD Hex motor.
+   *
+   * The motor current is (power - speed) * stall current (back-EMF cancels
+   * the part of the power that matches the speed). The motor controller
+   * only switches it on for |power| of each PWM cycle, so the battery sees
+   * power * (power - speed) * stall current.
+   *
+   * @param power Motor power, -1.0 to 1.0
+   * @param speed Motor speed, fraction of free speed
+   */
+  public static double motorAmps(double power, double speed) {
+    return MOTOR_STALL_AMPS * power * (power - speed);
+  }
+
+  /** Starts over from 0 power (e.g. at the start of a period). */
+  public void reset() {
+    leftPower = 0;
+    rightPower = 0;
+    started = false;
+  }
+
+  public double leftPower() {
+    return leftPower;
+  }
+
+  public double rightPower() {
+    return rightPower;
+  }
+
+  /** @return Estimated drive battery current after the last update, amps */
+  public double amps() {
+    return amps;
+  }
+
+  /** @return true if the last update was cut back to fit the current budget */
+  public boolean isLimited() {
+    return limited;
+  }
+}
@@ -0,0 +1,105 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Drive Segment - One Motion-Profiled Move of a Tank Drivetrain
+ *
+ * Plans one autoDrive()-style move (left wheels go one distance, right wheels
+ * go another) and works out both motor powers every loop.
+ *
+ * How Both Sides Stay Together:
+ * The side that travels farther gets the MotionProfile. The other side
+ * follows the same profile, scaled by (its distance / the longer distance),
+ * so both sides start and finish at the same moment. For a spin in place
+ * (-8, +8) the scale is -1.
+ *
+ * Usage (every loop, after start()):
+ * <pre>
+ * boolean running = segment.update(seconds, leftEncoder, rightEncoder);
+ * leftDrive.setPower(segment.leftPower());
+ * rightDrive.setPower(segment.rightPower());
+ * </pre>
+ *
+ * Done When:
+ * - The profile has finished AND both sides are within TOLERANCE_TICKS, or
+ * - MAX_SETTLE_SECONDS have passed since the profile finished (never hangs)
+ *
+ * The segment does not read hardware itself, so DriveSim can run the exact
+ * same code on a laptop.
+ */
+public class DriveSegment {
+
+  public static final double TOLERANCE_TICKS = 10;    // About 1/4 inch
+  public static final double MAX_SETTLE_SECONDS = 0.5;
+
+  private final MotionProfile profile;
+  private final ProfileFollower follower;
+  private final double leftScale;
+  private final double rightScale;
+
+  private double leftStart;
+  private double rightStart;
+  private double leftPower;
+  private double rightPower;
+
+  /**
+   * @param leftTicks       Left side distance in encoder ticks (negative = backward)
+   * @param rightTicks      Right side distance in encoder ticks
+   * @param maxVelocity     Fastest wheel speed allowed, ticks/second
+   * @param maxAcceleration Hardest wheel acceleration allowed, ticks/second²
+   * @param sCurve          Smooth S-curve ramps instead of a trapezoid
+   */
+  public DriveSegment(ProfileFollower follower, double leftTicks, double rightTicks,
+                      double maxVelocity, double maxAcceleration, boolean sCurve) {
+    this.follower = follower;
+    double longest = Math.max(Math.abs(leftTicks), Math.abs(rightTicks));
+    this.profile = new MotionProfile(longest, maxVelocity, maxAcceleration, sCurve);
+    this.leftScale = longest > 0 ? leftTicks / longest : 0;
+    this.rightScale = longest > 0 ? rightTicks / longest : 0;
+  }
+
+  /**
+   * Call once, right before the first update(), with the current encoder positions.
+   */
+  public void start(double leftPosition, double rightPosition) {
+    leftStart = leftPosition;
+    rightStart = rightPosition;
+  }
+
+  /**
+   * Works out both motor powers for this loop.
+   *
+   * @param seconds Time since start()
+   * @return true while the segment is still running
+   */
+  public boolean update(double seconds, double leftPosition, double rightPosition) {
+    double position = profile.position(seconds);
+    double velocity = profile.velocity(seconds);
+    double acceleration = profile.acceleration(seconds);
+
+    double leftTarget = leftStart + leftScale * position;
+    double rightTarget = rightStart + rightScale * position;
+    leftPower = follower.update(leftTarget, leftScale * velocity, leftScale * acceleration, leftPosition);
+    rightPower = follower.update(rightTarget, rightScale * velocity, rightScale * acceleration, rightPosition);
+
+    double overtime = seconds - profile.totalSeconds();
+    if (overtime < 0) {
+      return true;
+    }
+    boolean settled = Math.abs(leftTarget - leftPosition) <= TOLERANCE_TICKS
+        && Math.abs(rightTarget - rightPosition) <= TOLERANCE_TICKS;
+    return !settled && overtime < MAX_SETTLE_SECONDS;
+  }
+
+  public double leftPower() {
+    return leftPower;
+  }
+
+  public double rightPower() {
+    return rightPower;
+  }
+
+  /** @return Planned duration of the move (not counting settling) */
+  public double totalSeconds() {
+    return profile.totalSeconds();
+  }
+}
@@ -0,0 +1,326 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Drive Simulator - A Virtual Tank Drivetrain for Off-Robot Testing
+ *
+ * Models the StarterBot's two drive sides so autonomous moves can be timed on
+ * a laptop, the same way FlywheelSim does for the shooter.
+ *
+ * Physics (each side, one step of length dt):
+ *   v += (power * volts/12 * FREE_SPEED - v) / TIME_CONSTANT * dt
+ *   - Friction slows the wheel by FRICTION_DECEL, and holds it still if the
+ *     motor is too weak to get it moving
+ *
+ * The robot's position on the field comes from the two wheel speeds:
+ *   forward speed = (left + right) / 2
+ *   turn rate     = (right - left) / track width
+ *
+ * Ways to Drive:
+ * - runToPosition(): imitates the old autoDrive() - RUN_TO_POSITION at a
+ *   fixed power, waiting on isBusy()
+ * - profiled(): the DriveSegment motion-profiled drive, one move at a time
+ * - sequenced(): a PathSequencer running all moves as one continuous motion
+ * - runToPosition(left, right, maxPower) + step(): RUN_TO_POSITION on the
+ *   simulated robot itself (used by StarterBotSim)
+ * report() runs the autonomous parking moves every way and compares them.
+ */
+public class DriveSim {
+
+  // Same conversion as the OpMode: (28 * 5 * 3) / (3 * π) ticks per inch
+  public static final double TICKS_PER_INCH = (28 * 5 * 3) / (3 * Math.PI);
+
+  private static final double FREE_SPEED = 1780;      // ticks/second at full power (about 40 in/s)
+  private static final double TIME_CONSTANT = 0.15;   // seconds (robot mass vs motor torque)
+  private static final double FRICTION_DECEL = 475;   // ticks/second²
+  private static final double TRACK_WIDTH = 15;       // inches between left and right wheels
+  private static final double STALL_AMPS = 8.5;       // REV HD Hex motor at 12 V
+
+  // RUN_TO_POSITION imitation: position P into a velocity PI (like the hub firmware)
+  private static final double RTP_POSITION_GAIN = 10;          // (ticks/second) per tick of error
+  private static final double RTP_VELOCITY_P = 1.0 / FREE_SPEED;
+  private static final double RTP_VELOCITY_I = 2.0 / FREE_SPEED;
+  private static final double RTP_TOLERANCE = 5;               // ticks, isBusy() goes false inside this
+
+  private double volts = 12.0;
+  private double leftStrength = 1, rightStrength = 1;      // Fraction of FREE_SPEED each side reaches
+  private double leftPower = 0, rightPower = 0;
+  private double leftVelocity = 0, rightVelocity = 0;     // ticks/second
+  private double leftPosition = 0, rightPosition = 0;     // ticks
+  private double x = 0, y = 0, heading = 0;               // inches, inches, radians
+
+  // RUN_TO_POSITION mode (see runToPosition(double, double, double))
+  private boolean runToPosition = false;
+  private double leftTarget, rightTarget, maxPower;
+
+  public void setPower(double left, double right) {
+    leftPower = Math.max(-1.0, Math.min(1.0, left));
+    rightPower = Math.max(-1.0, Math.min(1.0, right));
+  }
+
+  public void setBatteryVoltage(double volts) {
+    this.volts = volts;
+  }
+
+  /**
+   * Makes the two sides unequal, like a stiff gearbox or a tight chain on
+   * one side: at the same power that side only reaches this fraction of
+   * its speed, so "straight" curves off.
+   */
+  public void setSideStrength(double left, double right) {
+    leftStrength = left;
+    rightStrength = right;
+  }
+
+  /**
+   * Switches both sides to RUN_TO_POSITION: every step the "hub" picks the
+   * power that drives each encoder to its target, no faster than maxPower.
+   */
+  public void runToPosition(double leftTarget, double rightTarget, double maxPower) {
+    runToPosition = true;
+    this.leftTarget = leftTarget;
+    this.rightTarget = rightTarget;
+    this.maxPower = Math.abs(maxPower);
+  }
+
+  /**
+   * Back to plain setPower() driving (RUN_WITHOUT_ENCODER).
+   */
+  public void runWithoutEncoder() {
+    runToPosition = false;
+  }
+
+  /** @return true while RUN_TO_POSITION is still moving either side (like isBusy()) */
+  public boolean isBusy() {
+    return runToPosition && (Math.abs(leftTarget - leftPosition) > RTP_TOLERANCE
+        || Math.abs(rightTarget - rightPosition) > RTP_TOLERANCE);
+  }
+
+  /**
+   * Advances the simulation by dt seconds.
+   */
+  public void step(double dt) {
+    if (runToPosition) {
+      leftPower = holdPower(leftTarget - leftPosition, leftVelocity);
+      rightPower = holdPower(rightTarget - rightPosition, rightVelocity);
+    }
+    leftVelocity = stepSide(leftVelocity, leftPower * leftStrength, dt);
+    rightVelocity = stepSide(rightVelocity, rightPower * rightStrength, dt);
+    leftPosition += leftVelocity * dt;
+    rightPosition += rightVelocity * dt;
+
+    double forward = (leftVelocity + rightVelocity) / 2 / TICKS_PER_INCH;
+    double turn = (rightVelocity - leftVelocity) / TICKS_PER_INCH / TRACK_WIDTH;
+    x += forward * Math.cos(heading + turn * dt / 2) * dt;
+    y += forward * Math.sin(heading + turn * dt / 2) * dt;
+    heading += turn * dt;
+  }
+
+  /**
+   * Moves the robot without turning its wheels, like a bump from another
+   * robot or a wheel slipping. The encoders do not see it; an IMU would.
+   */
+  public void push(double dx, double dy, double dHeading) {
+    x += dx;
+    y += dy;
+    heading += dHeading;
+  }
+
+  private double holdPower(double error, double velocity) {
+    double wanted = clamp(RTP_POSITION_GAIN * error, maxPower * FREE_SPEED);
+    return clamp(wanted / FREE_SPEED + RTP_VELOCITY_P * (wanted - velocity), maxPower);
+  }
+
+  private double stepSide(double velocity, double power, double dt) {
+    double accel = (power * volts / 12.0 * FREE_SPEED - velocity) / TIME_CONSTANT;
+    double friction = FRICTION_DECEL * dt;
+    if (Math.abs(velocity) < friction && Math.abs(accel) < FRICTION_DECEL) {
+      return 0;  // Stuck: motor cannot beat static friction
+    }
+    double next = velocity + accel * dt;
+    return next - Math.copySign(Math.min(friction, Math.abs(next)), next);
+  }
+
+  /** @return Left encoder position in ticks (like getCurrentPosition()) */
+  public int leftPosition() {
+    return (int) Math.round(leftPosition);
+  }
+
+  /** @return Right encoder position in ticks */
+  public int rightPosition() {
+    return (int) Math.round(rightPosition);
+  }
+
+  /**
+   * @return Current both drive motors draw from the battery, amps: each
+   *         motor's (power - speed) * stall current, switched on for |power|
+   *         of each PWM cycle (braking current is not given back)
+   */
+  public double batteryAmps() {
+    return sideAmps(leftPower * leftStrength, leftVelocity) + sideAmps(rightPower * rightStrength, rightVelocity);
+  }
+
+  private double sideAmps(double power, double velocity) {
+    return Math.abs(power * (power * volts / 12.0 - velocity / FREE_SPEED) * STALL_AMPS);
+  }
+
+  /** @return Left velocity in ticks/second (like getVelocity()) */
+  public double leftVelocity() {
+    return leftVelocity;
+  }
+
+  public double rightVelocity() {
+    return rightVelocity;
+  }
+
+  /** @return Field X position in inches */
+  public double x() {
+    return x;
+  }
+
+  /** @return Field Y position in inches */
+  public double y() {
+    return y;
+  }
+
+  /** @return Heading in radians (counter-clockwise positive) */
+  public double heading() {
+    return heading;
+  }
+
+  // ===== BENCHMARKS =====
+
+  /**
+   * How one simulated segment went.
+   */
+  public static final class Segment {
+    public final double seconds;
+    public final double overshootTicks;   // Worst distance past the target, either side
+
+    Segment(double seconds, double overshootTicks) {
+      this.seconds = seconds;
+      this.overshootTicks = overshootTicks;
+    }
+  }
+
+  /**
+   * Imitates autoDrive(): RUN_TO_POSITION at a fixed power until neither side
+   * is busy (or the timeout).
+   */
+  public static Segment runToPosition(DriveSim sim, double leftTicks, double rightTicks, double speed,
+                                      double loopSeconds, double timeoutSeconds) {
+    double leftTarget = sim.leftPosition() + leftTicks;
+    double rightTarget = sim.rightPosition() + rightTicks;
+    double maxVelocity = Math.abs(speed) * FREE_SPEED;
+    double leftIntegral = 0, rightIntegral = 0;
+    double overshoot = 0;
+    double elapsed = 0;
+    while (elapsed < timeoutSeconds) {
+      double leftError = leftTarget - sim.leftPosition();
+      double rightError = rightTarget - sim.rightPosition();
+      if (Math.abs(leftError) <= RTP_TOLERANCE && Math.abs(rightError) <= RTP_TOLERANCE) {
+        break;  // isBusy() is false on both sides
+      }
+      overshoot = Math.max(overshoot, Math.max(pastTarget(leftError, leftTicks), pastTarget(rightError, rightTicks)));
+
+      double leftWanted = clamp(RTP_POSITION_GAIN * leftError, maxVelocity);
+      double rightWanted = clamp(RTP_POSITION_GAIN * rightError, maxVelocity);
+      leftIntegral += (leftWanted - sim.leftVelocity()) * loopSeconds;
+      rightIntegral += (rightWanted - sim.rightVelocity()) * loopSeconds;
+      double leftOut = leftWanted / FREE_SPEED + RTP_VELOCITY_P * (leftWanted - sim.leftVelocity())
+          + RTP_VELOCITY_I * leftIntegral;
+      double rightOut = rightWanted / FREE_SPEED + RTP_VELOCITY_P * (rightWanted - sim.rightVelocity())
+          + RTP_VELOCITY_I * rightIntegral;
+      sim.setPower(clamp(leftOut, Math.abs(speed)), clamp(rightOut, Math.abs(speed)));
+      sim.step(loopSeconds);
+      elapsed += loopSeconds;
+    }
+    sim.setPower(0, 0);
+    return new Segment(elapsed, overshoot);
+  }
+
+  /**
+   * Drives the segment with DriveSegment, exactly as profiledDrive() does on the robot.
+   */
+  public static Segment profiled(DriveSim sim, DriveSegment segment, double leftTicks, double rightTicks,
+                                 double loopSeconds, double timeoutSeconds) {
+    double leftTarget = sim.leftPosition() + leftTicks;
+    double rightTarget = sim.rightPosition() + rightTicks;
+    double overshoot = 0;
+    double elapsed = 0;
+    segment.start(sim.leftPosition(), sim.rightPosition());
+    while (elapsed < timeoutSeconds && segment.update(elapsed, sim.leftPosition(), sim.rightPosition())) {
+      sim.setPower(segment.leftPower(), segment.rightPower());
+      sim.step(loopSeconds);
+      elapsed += loopSeconds;
+      overshoot = Math.max(overshoot, Math.max(pastTarget(leftTarget - sim.leftPosition(), leftTicks),
+          pastTarget(rightTarget - sim.rightPosition(), rightTicks)));
+    }
+    sim.setPower(0, 0);
+    return new Segment(elapsed, overshoot);
+  }
+
+  /**
+   * Drives a whole PathSequencer, exactly as drivePath() does on the robot.
+   *
+   * @return Seconds until the path finished (or timeoutSeconds)
+   */
+  public static double sequenced(DriveSim sim, PathSequencer path, double loopSeconds, double timeoutSeconds) {
+    double elapsed = 0;
+    path.start(sim.leftPosition(), sim.rightPosition());
+    while (elapsed < timeoutSeconds && path.update(elapsed, sim.leftPosition(), sim.rightPosition())) {
+      sim.setPower(path.leftPower(), path.rightPower());
+      sim.step(loopSeconds);
+      elapsed += loopSeconds;
+    }
+    sim.setPower(0, 0);
+    return elapsed;
+  }
+
+  /**
+   * Runs the autonomous parking moves (back up 12", turn 8", drive 50") with
+   * the old RUN_TO_POSITION drive, the motion-profiled drive one move at a
+   * time, and the motion-profiled drive as one continuous path.
+   *
+   * @return A table of segment times and overshoot, plus routine totals
+   */
+  public static String report(double maxAcceleration, boolean sCurve, double loopSeconds) {
+    double[][] legs = { { 0.5, -12, -12 }, { 0.5, -8, 8 }, { 1.0, -50, -50 } };
+    DriveSim oldSim = new DriveSim();
+    DriveSim newSim = new DriveSim();
+    ProfileFollower follower = new ProfileFollower();
+    PathSequencer path = new PathSequencer(follower, legs.length);
+    StringBuilder table = new StringBuilder(String.format("%-16s %18s %18s%n", "segment", "RUN_TO_POSITION", "profiled"));
+    double oldTotal = 0, newTotal = 0;
+    for (double[] leg : legs) {
+      double leftTicks = leg[1] * TICKS_PER_INCH;
+      double rightTicks = leg[2] * TICKS_PER_INCH;
+      Segment before = runToPosition(oldSim, leftTicks, rightTicks, leg[0], loopSeconds, 5);
+      DriveSegment segment = new DriveSegment(follower, leftTicks, rightTicks,
+          leg[0] * FREE_SPEED * 0.9, maxAcceleration, sCurve);
+      Segment after = profiled(newSim, segment, leftTicks, rightTicks, loopSeconds, 5);
+      path.add(leftTicks, rightTicks, leg[0] * FREE_SPEED * 0.9, maxAcceleration, sCurve);
+      oldTotal += before.seconds;
+      newTotal += after.seconds;
+      table.append(String.format("%-16s %7.2f s %4.0f tk %7.2f s %4.0f tk%n",
+          String.format("(%.0f\", %.0f\")", leg[1], leg[2]),
+          before.seconds, before.overshootTicks, after.seconds, after.overshootTicks));
+    }
+    table.append(String.format("%-16s %7.2f s %15.2f s%n", "total", oldTotal, newTotal));
+
+    DriveSim pathSim = new DriveSim();
+    double pathTotal = sequenced(pathSim, path, loopSeconds, 15);
+    table.append(String.format("%-16s %34.2f s%n", "one path", pathTotal));
+    table.append(String.format("final heading: stop-and-go %.1f deg, one path %.1f deg",
+        Math.toDegrees(newSim.heading()), Math.toDegrees(pathSim.heading())));
+    return table.toString();
+  }
+
+  private static double pastTarget(double error, double distance) {
+    // Error has the opposite sign of the move once the wheel has gone past the target
+    return distance >= 0 ? -error : error;
+  }
+
+  private static double clamp(double value, double limit) {
+    return Math.max(-limit, Math.min(limit, value));
+  }
+}
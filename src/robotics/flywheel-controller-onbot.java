@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Flywheel Controller - Feedforward + PIDF Velocity Control
+ *
+ * The motor's built-in setVelocity() only reacts AFTER the wheel is too slow.
+ * This controller also predicts how much power the wheel needs ahead of time
+ * (feedforward) and only uses feedback (PID) to fix what is left over.
+ *
+ * Feedforward (the "guess"):
+ *   power = kS * sign(v) + kV * v + kA * a
+ *   - kS: power needed just to overcome friction
+ *   - kV: power per tick/second of steady speed (back-EMF of the motor)
+ *   - kA: power per tick/second² of acceleration (inertia of the wheel)
+ *
+ * Feedback (the "fix"):
+ *   power += kP * error + kI * (sum of error) - kD * (change in velocity)
+ *
+ * Reference Ramp:
+ * The velocity we ask the feedforward for ramps up at the fastest rate the
+ * motor can actually reach, so during spin-up the controller sends full power
+ * and the PID has nothing to fight.
+ *
+ * Spin-Up Prediction:
+ * With full power, the wheel speed approaches its top speed like
+ *   v(t) = vMax - (vMax - v0) * e^(-t / tau)    where tau = kA / kV
+ * secondsUntilReady() solves that for the time to reach the target window, so
+ * the feeder can start a ball moving JUST before the wheel is ready instead of
+ * waiting for it to get there first.
+ *
+ * Units: velocity in encoder ticks/second (same as DcMotorEx.getVelocity()).
+ */
+public class FlywheelController {
+
+  // Default gains, tuned against FlywheelSim (28 tick/rev motor, 12 V battery)
+  public static final double DEFAULT_KS = 0.02;
+  public static final double DEFAULT_KV = 0.00039;
+  public static final double DEFAULT_KA = 0.000167;
+  public static final double DEFAULT_KP = 0.002;
+  public static final double DEFAULT_KI = 0.001;
+  public static final double DEFAULT_KD = 0.0;
+
+  private static final double NOMINAL_VOLTS = 12.0;
+
+  private final RobotClock clock;
+  private final double kS, kV, kA, kP, kI, kD;
+
+  private double voltageScale = 1.0;
+  private double reference = 0;
+  private double integral = 0;
+  private double lastMeasured = 0;
+  private long lastNanos;
+  private boolean started = false;
+
+  public FlywheelController(RobotClock clock) {
+    this(clock, DEFAULT_KS, DEFAULT_KV, DEFAULT_KA, DEFAULT_KP, DEFAULT_KI, DEFAULT_KD);
+  }
+
+  public FlywheelController(RobotClock clock, double kS, double kV, double kA, double kP, double kI, double kD) {
+    this.clock = clock;
+    this.kS = kS;
+    this.kV = kV;
+    this.kA = kA;
+    this.kP = kP;
+    this.kI = kI;
+    this.kD = kD;
+  }
+
+  /**
+   * Gains are tuned at 12 V. At lower battery voltage the same power makes less
+   * speed, so every output is scaled up by 12 / volts.
+   */
+  public void setBatteryVoltage(double volts) {
+    voltageScale = NOMINAL_VOLTS / Math.max(volts, 1.0);
+  }
+
+  /**
+   * Computes motor power for this loop. Call once per loop while the flywheel is running.
+   *
+   * @param target   Desired velocity (ticks/second)
+   * @param measured Current velocity (ticks/second)
+   * @return Motor power, -1.0 to 1.0
+   */
+  public double update(double target, double measured) {
+    long now = clock.nanoTime();
+    double dt = started ? (now - lastNanos) / 1e9 : 0;
+    if (!started) {
+      reference = measured;
+      lastMeasured = measured;
+      started = true;
+    }
+    lastNanos = now;
+
+    // Ramp the reference toward the target no faster than the motor can accelerate.
+    // The first call after reset() has no dt yet, so the reference stays at the
+    // measured speed and the ramp starts on the next loop
+    double accel = 0;
+    if (dt > 0) {
+      double maxAccel = maxAcceleration(reference);
+      double step = target - reference;
+      double limit = maxAccel * dt;
+      if (step > limit) {
+        step = limit;
+      } else if (step < -limit) {
+        step = -limit;
+      }
+      accel = step / dt;
+      reference += step;
+    }
+
+    double feedforward = kS * Math.signum(reference) + kV * reference + kA * accel;
+
+    double error = reference - measured;
+    double derivative = dt > 0 ? (measured - lastMeasured) / dt : 0;
+    lastMeasured = measured;
+
+    double power = (feedforward + kP * error + kI * integral - kD * derivative) * voltageScale;
+
+    // Anti-windup: only build up the integral while the output is not maxed out
+    if (Math.abs(power) < 1.0) {
+      integral += error * dt;
+    }
+    return Math.max(-1.0, Math.min(1.0, power));
+  }
+
+  /**
+   * Forgets the ramp and integral. Call whenever the flywheel is stopped or
+   * driven without this controller (e.g. reverse to clear a jam).
+   */
+  public void reset() {
+    started = false;
+    integral = 0;
+  }
+
+  /**
+   * Fastest acceleration (ticks/second²) possible from this velocity at full power.
+   */
+  public double maxAcceleration(double velocity) {
+    return Math.max(0, (1.0 / voltageScale - kS - kV * velocity) / kA);
+  }
+
+  /**
+   * @return Top speed (ticks/second) the motor can reach at full power
+   */
+  public double maxVelocity() {
+    return (1.0 / voltageScale - kS) / kV;
+  }
+
+  /**
+   * Predicts how long until the wheel is within tolerance of the target, if
+   * it keeps accelerating at full power from the measured velocity.
+   *
+   * @return Seconds (0 if already there, infinity if the target is out of reach)
+   */
+  public double secondsUntilReady(double target, double measured, double tolerance) {
+    double threshold = target - tolerance;
+    if (measured >= threshold) {
+      return 0;
+    }
+    double vMax = maxVelocity();
+    if (vMax <= threshold) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double tau = kA / kV;
+    return tau * Math.log((vMax - measured) / (vMax - threshold));
+  }
+
+  /**
+   * @param leadSeconds How long a ball takes to travel from the feeder to the wheel
+   * @return true if a ball fed now will arrive once the wheel is within tolerance
+   */
+  public boolean readyWithin(double target, double measured, double tolerance, double leadSeconds) {
+    return secondsUntilReady(target, measured, tolerance) <= leadSeconds;
+  }
+}
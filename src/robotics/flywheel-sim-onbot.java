@@ -0,0 +1,151 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Flywheel Simulator - A Virtual Flywheel for Off-Robot Testing
+ *
+ * Models a DC motor spinning a flywheel so controllers can be tuned and
+ * benchmarked on a laptop.
+ *
+ * Physics (one step of length dt):
+ *   current = (power * volts - kE * omega) / resistance     (back-EMF slows the current)
+ *   torque  = kT * current - friction * omega
+ *   omega  += torque / inertia * dt                          (inertia resists change)
+ *
+ * Launching a ball (launchBall) removes a fraction of the wheel's speed all at
+ * once, like a real ball dragging energy out of the wheel.
+ *
+ * Default numbers are for a REV HD Hex motor (6000 RPM free speed, 28 ticks
+ * per revolution, 8.5 A stall) driving a small flywheel.
+ *
+ * Benchmarks:
+ * - spinUpSeconds(): time from rest until the wheel is within tolerance
+ * - recoverySeconds(): time to get back within tolerance after a ball launch
+ */
+public class FlywheelSim {
+
+  public static final double TICKS_PER_REV = 28;
+
+  // REV HD Hex motor constants
+  private static final double STALL_TORQUE = 0.105;     // N*m at 12 V
+  private static final double STALL_CURRENT = 8.5;      // A at 12 V
+  private static final double FREE_SPEED = 6000 / 60.0 * 2 * Math.PI;  // rad/s at 12 V
+  private static final double RESISTANCE = 12.0 / STALL_CURRENT;
+  private static final double KT = STALL_TORQUE / STALL_CURRENT;
+  private static final double KE = 12.0 / FREE_SPEED;
+
+  private static final double DEFAULT_INERTIA = 8e-5;   // kg*m^2 (wheel + motor)
+  private static final double DEFAULT_FRICTION = 2e-5;  // N*m per rad/s
+  private static final double DEFAULT_SHOT_LOSS = 0.15; // Fraction of speed lost per ball
+
+  private final double inertia;
+  private final double friction;
+  private final double shotLoss;
+
+  private double volts = 12.0;
+  private double power = 0;
+  private double omega = 0;      // rad/s
+  private double angle = 0;      // rad
+  private double current = 0;    // A
+
+  public FlywheelSim() {
+    this(DEFAULT_INERTIA, DEFAULT_FRICTION, DEFAULT_SHOT_LOSS);
+  }
+
+  public FlywheelSim(double inertia, double friction, double shotLoss) {
+    this.inertia = inertia;
+    this.friction = friction;
+    this.shotLoss = shotLoss;
+  }
+
+  public void setPower(double power) {
+    this.power = Math.max(-1.0, Math.min(1.0, power));
+  }
+
+  public void setBatteryVoltage(double volts) {
+    this.volts = volts;
+  }
+
+  /**
+   * Advances the simulation by dt seconds.
+   */
+  public void step(double dt) {
+    current = (power * volts - KE * omega) / RESISTANCE;
+    double torque = KT * current - friction * omega;
+    omega += torque / inertia * dt;
+    angle += omega * dt;
+  }
+
+  /**
+   * A ball passes through the wheel and takes some of its speed.
+   */
+  public void launchBall() {
+    omega *= (1.0 - shotLoss);
+  }
+
+  /** @return Velocity in ticks/second (like DcMotorEx.getVelocity()) */
+  public double velocity() {
+    return omega / (2 * Math.PI) * TICKS_PER_REV;
+  }
+
+  /** @return Encoder position in ticks */
+  public int position() {
+    return (int) (angle / (2 * Math.PI) * TICKS_PER_REV);
+  }
+
+  /** @return Current drawn from the battery, in amps */
+  public double currentAmps() {
+    return Math.abs(current);
+  }
+
+  public double power() {
+    return power;
+  }
+
+  // ===== BENCHMARKS =====
+
+  /**
+   * Runs a controller from rest until the wheel is within tolerance of target.
+   * The controller must have been built with the same virtual clock.
+   *
+   * @return Seconds to spin up (or maxSeconds if it never gets there)
+   */
+  public static double spinUpSeconds(FlywheelController controller, RobotClock.Virtual clock,
+                                     double target, double tolerance, double loopSeconds, double maxSeconds) {
+    FlywheelSim sim = new FlywheelSim();
+    return runUntilReady(sim, controller, clock, target, tolerance, loopSeconds, maxSeconds);
+  }
+
+  /**
+   * Spins the wheel up, holds it for a moment, launches one ball, then times
+   * how long the controller takes to get back within tolerance.
+   *
+   * @return Seconds to recover (or maxSeconds if it never gets there)
+   */
+  public static double recoverySeconds(FlywheelController controller, RobotClock.Virtual clock,
+                                       double target, double tolerance, double loopSeconds, double maxSeconds) {
+    FlywheelSim sim = new FlywheelSim();
+    runUntilReady(sim, controller, clock, target, tolerance, loopSeconds, maxSeconds);
+    for (double t = 0; t < 1.0; t += loopSeconds) {
+      stepLoop(sim, controller, clock, target, loopSeconds);
+    }
+    sim.launchBall();
+    return runUntilReady(sim, controller, clock, target, tolerance, loopSeconds, maxSeconds);
+  }
+
+  private static double runUntilReady(FlywheelSim sim, FlywheelController loop, RobotClock.Virtual clock,
+                                      double target, double tolerance, double loopSeconds, double maxSeconds) {
+    double elapsed = 0;
+    while (Math.abs(target - sim.velocity()) > tolerance && elapsed < maxSeconds) {
+      stepLoop(sim, loop, clock, target, loopSeconds);
+      elapsed += loopSeconds;
+    }
+    return elapsed;
+  }
+
+  private static void stepLoop(FlywheelSim sim, FlywheelController loop, RobotClock.Virtual clock,
+                               double target, double loopSeconds) {
+    sim.setPower(loop.update(target, sim.velocity()));
+    sim.step(loopSeconds);
+    clock.advanceNanos((long) (loopSeconds * 1e9));
+  }
+}
@@ -0,0 +1,186 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Gamepad Recorder - Save Every Loop of the Driver's Inputs
+ *
+ * Stores the gamepad (sticks, triggers, buttons) once per loop so a match
+ * can be played back later on StarterBotSim (see gamepad-replay-onbot.java).
+ *
+ * Why a Fixed Binary Record?
+ * - All memory is allocated once, in the constructor (during INIT)
+ * - record() only writes numbers into that memory: no objects, no boxing,
+ *   no strings - so it never triggers the garbage collector mid-match
+ * - 18 bytes per loop: a 2-minute TeleOp at 100 loops/second is about 216 KB
+ *
+ * Record Layout (RECORD_BYTES, big-endian):
+ *   int   time since start() in microseconds
+ *   short left_stick_x, left_stick_y, right_stick_x, right_stick_y (-1..1 as -32767..32767)
+ *   byte  left_trigger, right_trigger (0..1 as 0..255)
+ *   int   buttons, one bit each (see the bit constants below)
+ *
+ * Ring Buffer:
+ * When more loops are recorded than the buffer holds, the oldest records
+ * are overwritten, so the file always has the LAST capacity loops. Such a
+ * recording starts mid-match, and GamepadReplay refuses it: size capacity
+ * for the fastest loop rate, not the usual one.
+ *
+ * File Layout:
+ *   int MAGIC, short VERSION, short RECORD_BYTES, int record count,
+ *   int records dropped by the ring buffer, then the records, oldest first
+ *
+ * psWasPressed():
+ * The ps bit is the button level each loop. The "was pressed" edges can be
+ * found again from it (a loop where ps is set and was not set before).
+ */
+public class GamepadRecorder {
+
+  public static final int MAGIC = 0x47505243;   // "GPRC"
+  public static final short VERSION = 1;
+  public static final int RECORD_BYTES = 18;
+  public static final int HEADER_BYTES = 16;
+
+  // ===== BUTTON BITS =====
+  public static final int CROSS = 1;
+  public static final int CIRCLE = 1 << 1;
+  public static final int SQUARE = 1 << 2;
+  public static final int TRIANGLE = 1 << 3;
+  public static final int LEFT_BUMPER = 1 << 4;
+  public static final int RIGHT_BUMPER = 1 << 5;
+  public static final int DPAD_UP = 1 << 6;
+  public static final int DPAD_DOWN = 1 << 7;
+  public static final int DPAD_LEFT = 1 << 8;
+  public static final int DPAD_RIGHT = 1 << 9;
+  public static final int OPTIONS = 1 << 10;
+  public static final int SHARE = 1 << 11;
+  public static final int PS = 1 << 12;
+  public static final int LEFT_STICK_BUTTON = 1 << 13;
+  public static final int RIGHT_STICK_BUTTON = 1 << 14;
+  public static final int TOUCHPAD = 1 << 15;
+
+  private static final float STICK_SCALE = 32767f;
+  private static final float TRIGGER_SCALE = 255f;
+
+  private final ByteBuffer records;
+  private final int capacity;
+  private long startNanos;
+  private int next = 0;       // Record slot written by the next record()
+  private long recorded = 0;  // Records since start(), including overwritten ones
+
+  /**
+   * @param capacity Most loops kept (e.g. 262144: over 2 minutes at 2000 loops/second)
+   */
+  public GamepadRecorder(int capacity) {
+    this.capacity = capacity;
+    records = ByteBuffer.allocate(capacity * RECORD_BYTES);
+  }
+
+  /**
+   * Clears the recording; record() times are measured from startNanos.
+   */
+  public void start(long startNanos) {
+    this.startNanos = startNanos;
+    next = 0;
+    recorded = 0;
+  }
+
+  /**
+   * Stores this loop's gamepad state. Call once per loop.
+   *
+   * @param nowNanos Current time on the OpMode's clock
+   */
+  public void record(long nowNanos, Gamepad gamepad) {
+    int at = next * RECORD_BYTES;
+    records.putInt(at, (int) ((nowNanos - startNanos) / 1000));
+    records.putShort(at + 4, stick(gamepad.left_stick_x));
+    records.putShort(at + 6, stick(gamepad.left_stick_y));
+    records.putShort(at + 8, stick(gamepad.right_stick_x));
+    records.putShort(at + 10, stick(gamepad.right_stick_y));
+    records.put(at + 12, trigger(gamepad.left_trigger));
+    records.put(at + 13, trigger(gamepad.right_trigger));
+    records.putInt(at + 14, buttons(gamepad));
+    next = next + 1 == capacity ? 0 : next + 1;
+    recorded++;
+  }
+
+  /** @return Records that will be saved (at most capacity) */
+  public int count() {
+    return (int) Math.min(recorded, capacity);
+  }
+
+  /** @return Oldest records overwritten because the buffer was full */
+  public long dropped() {
+    return Math.max(0, recorded - capacity);
+  }
+
+  /**
+   * Writes the recording to a file, oldest record first.
+   * Call once the OpMode has stopped - this is the only part that does file I/O.
+   */
+  public void save(File file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_BYTES)
+        .putInt(count()).putInt((int) dropped());
+    header.flip();
+
+    // Full buffer: the oldest record is the one about to be overwritten
+    int oldest = recorded > capacity ? next : 0;
+    ByteBuffer older = records.duplicate();
+    older.limit((recorded > capacity ? capacity : next) * RECORD_BYTES).position(oldest * RECORD_BYTES);
+    ByteBuffer newer = records.duplicate();
+    newer.limit(recorded > capacity ? next * RECORD_BYTES : 0).position(0);
+
+    try (FileOutputStream out = new FileOutputStream(file); FileChannel channel = out.getChannel()) {
+      while (header.hasRemaining() || older.hasRemaining() || newer.hasRemaining()) {
+        channel.write(new ByteBuffer[] { header, older, newer });
+      }
+    }
+  }
+
+  // ===== PACKING =====
+
+  private static short stick(float value) {
+    return (short) Math.round(Math.max(-1f, Math.min(1f, value)) * STICK_SCALE);
+  }
+
+  private static byte trigger(float value) {
+    return (byte) Math.round(Math.max(0f, Math.min(1f, value)) * TRIGGER_SCALE);
+  }
+
+  private static int buttons(Gamepad gamepad) {
+    int bits = 0;
+    bits |= gamepad.cross ? CROSS : 0;
+    bits |= gamepad.circle ? CIRCLE : 0;
+    bits |= gamepad.square ? SQUARE : 0;
+    bits |= gamepad.triangle ? TRIANGLE : 0;
+    bits |= gamepad.left_bumper ? LEFT_BUMPER : 0;
+    bits |= gamepad.right_bumper ? RIGHT_BUMPER : 0;
+    bits |= gamepad.dpad_up ? DPAD_UP : 0;
+    bits |= gamepad.dpad_down ? DPAD_DOWN : 0;
+    bits |= gamepad.dpad_left ? DPAD_LEFT : 0;
+    bits |= gamepad.dpad_right ? DPAD_RIGHT : 0;
+    bits |= gamepad.options ? OPTIONS : 0;
+    bits |= gamepad.share ? SHARE : 0;
+    bits |= gamepad.ps ? PS : 0;
+    bits |= gamepad.left_stick_button ? LEFT_STICK_BUTTON : 0;
+    bits |= gamepad.right_stick_button ? RIGHT_STICK_BUTTON : 0;
+    bits |= gamepad.touchpad ? TOUCHPAD : 0;
+    return bits;
+  }
+
+  /** @return A stick value as stored in a record, back in -1..1 */
+  static float unpackStick(short packed) {
+    return packed / STICK_SCALE;
+  }
+
+  /** @return A trigger value as stored in a record, back in 0..1 */
+  static float unpackTrigger(byte packed) {
+    return (packed & 0xFF) / TRIGGER_SCALE;
+  }
+}
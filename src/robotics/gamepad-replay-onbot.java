@@ -0,0 +1,201 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Gamepad Replay - Drive the Simulator With a Recorded Match
+ *
+ * Plays a GamepadRecorder file back as a StarterBotSim Driver: each
+ * simulated loop gets the gamepad exactly as it was on that loop of the
+ * real match, so splitStickArcadeDrive(), setFlywheelVelocity() and
+ * manualCoreHexAndServoControl() see the driver's real inputs.
+ *
+ * What Is It For?
+ * - Regressions: change the OpMode, replay last weekend's matches, and see
+ *   if the robot still ends up where it did and fires as many balls
+ * - Tuning: replay the same driver on a low battery, or with different
+ *   controller gains, and compare - a 2:30 match takes milliseconds
+ *
+ * Timing:
+ * update() is called with the seconds since TeleOp started. It uses the
+ * last record at or before that time, so a recording made at any loop
+ * rate plays back on the simulator's fixed loop. Calling update() with
+ * an earlier time than before starts the recording over, so one
+ * GamepadReplay can drive a whole batch of matches.
+ *
+ * Sticks come back within 1/32767 of what was recorded (see
+ * GamepadRecorder's record layout).
+ */
+public class GamepadReplay implements StarterBotSim.Driver {
+
+  private final ByteBuffer records;
+  private final int count;
+  private int next = 0;                           // First record not yet used
+  private long lastMicros = Long.MIN_VALUE;
+
+  /**
+   * @param records Records in GamepadRecorder's layout, oldest first, starting at index 0
+   * @param count   Number of records
+   */
+  public GamepadReplay(ByteBuffer records, int count) {
+    this.records = records;
+    this.count = count;
+  }
+
+  /**
+   * Reads a file written by GamepadRecorder.save().
+   *
+   * A recording whose ring buffer wrapped is refused: its first record is
+   * somewhere in the middle of TeleOp, and replaying it from the start of
+   * a simulated TeleOp would drive the robot from the wrong place.
+   *
+   * @throws IOException if the file cannot be read, is not a gamepad
+   *         recording, or lost records to the ring buffer
+   */
+  public static GamepadReplay load(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      if (in.readInt() != GamepadRecorder.MAGIC) {
+        throw new IOException(file + " is not a gamepad recording");
+      }
+      short version = in.readShort();
+      short recordBytes = in.readShort();
+      if (version != GamepadRecorder.VERSION || recordBytes != GamepadRecorder.RECORD_BYTES) {
+        throw new IOException(file + ": unsupported recording version " + version);
+      }
+      int count = in.readInt();
+      int dropped = in.readInt();
+      if (dropped > 0) {
+        throw new IOException(file + ": the first " + dropped + " records were overwritten,"
+            + " so it does not start at the start of TeleOp (record with a larger GamepadRecorder)");
+      }
+      byte[] records = new byte[count * GamepadRecorder.RECORD_BYTES];
+      in.readFully(records);
+      return new GamepadReplay(ByteBuffer.wrap(records), count);
+    }
+  }
+
+  /** @return Number of recorded loops */
+  public int count() {
+    return count;
+  }
+
+  /** @return Length of the recording in seconds */
+  public double seconds() {
+    return count == 0 ? 0 : micros(count - 1) / 1e6;
+  }
+
+  @Override
+  public void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot) {
+    long nowMicros = Math.round(periodSeconds * 1e6);
+    if (nowMicros < lastMicros) {
+      next = 0;  // A new match
+    }
+    lastMicros = nowMicros;
+    while (next < count && micros(next) <= nowMicros) {
+      next++;
+    }
+    if (next > 0) {
+      apply(next - 1, gamepad);
+    }
+  }
+
+  private long micros(int record) {
+    return records.getInt(record * GamepadRecorder.RECORD_BYTES);
+  }
+
+  /**
+   * Copies one record into the gamepad. The SDK's Xbox-style names
+   * (a, b, x, y, start, back, guide) are set too, like a real controller.
+   */
+  private void apply(int record, Gamepad gamepad) {
+    int at = record * GamepadRecorder.RECORD_BYTES;
+    gamepad.left_stick_x = GamepadRecorder.unpackStick(records.getShort(at + 4));
+    gamepad.left_stick_y = GamepadRecorder.unpackStick(records.getShort(at + 6));
+    gamepad.right_stick_x = GamepadRecorder.unpackStick(records.getShort(at + 8));
+    gamepad.right_stick_y = GamepadRecorder.unpackStick(records.getShort(at + 10));
+    gamepad.left_trigger = GamepadRecorder.unpackTrigger(records.get(at + 12));
+    gamepad.right_trigger = GamepadRecorder.unpackTrigger(records.get(at + 13));
+
+    int bits = records.getInt(at + 14);
+    gamepad.cross = gamepad.a = (bits & GamepadRecorder.CROSS) != 0;
+    gamepad.circle = gamepad.b = (bits & GamepadRecorder.CIRCLE) != 0;
+    gamepad.square = gamepad.x = (bits & GamepadRecorder.SQUARE) != 0;
+    gamepad.triangle = gamepad.y = (bits & GamepadRecorder.TRIANGLE) != 0;
+    gamepad.left_bumper = (bits & GamepadRecorder.LEFT_BUMPER) != 0;
+    gamepad.right_bumper = (bits & GamepadRecorder.RIGHT_BUMPER) != 0;
+    gamepad.dpad_up = (bits & GamepadRecorder.DPAD_UP) != 0;
+    gamepad.dpad_down = (bits & GamepadRecorder.DPAD_DOWN) != 0;
+    gamepad.dpad_left = (bits & GamepadRecorder.DPAD_LEFT) != 0;
+    gamepad.dpad_right = (bits & GamepadRecorder.DPAD_RIGHT) != 0;
+    gamepad.options = gamepad.start = (bits & GamepadRecorder.OPTIONS) != 0;
+    gamepad.share = gamepad.back = (bits & GamepadRecorder.SHARE) != 0;
+    gamepad.ps = gamepad.guide = (bits & GamepadRecorder.PS) != 0;
+    gamepad.left_stick_button = (bits & GamepadRecorder.LEFT_STICK_BUTTON) != 0;
+    gamepad.right_stick_button = (bits & GamepadRecorder.RIGHT_STICK_BUTTON) != 0;
+    gamepad.touchpad = (bits & GamepadRecorder.TOUCHPAD) != 0;
+  }
+
+  // ===== RECORD, SAVE, REPLAY =====
+
+  /**
+   * Records the scripted driver through the OpMode's own GamepadRecorder,
+   * saves and reloads the file, replays it on the same robot to check the
+   * match comes out the same, then replays it on weaker batteries.
+   *
+   * @return Recording size and cost, original vs replayed match, the
+   *         battery sweep, and the time per replayed match
+   */
+  public static String report(long seed) throws IOException {
+    StarterBotSim original = StarterBotSim.playMatch(StarterBotSim.SCRIPTED_DRIVER, seed, 12.0);
+    GamepadRecorder recorder = original.opMode().gamepadRecorder();
+    File file = File.createTempFile("gamepad1-teleop", ".bin");
+    file.deleteOnExit();
+    recorder.save(file);
+    GamepadReplay replay = load(file);
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("recording: %d loops, %.1f s, %d bytes on disk, %.0f ns per record()%n",
+        replay.count(), replay.seconds(), file.length(), recordNanos()));
+    report.append(String.format("%-9s %s%n", "original", original.summary()));
+    report.append(String.format("%-9s %s%n", "replayed", StarterBotSim.match(replay, seed, 12.0)));
+    for (double volts : new double[] { 11.5, 11.0, 10.5 }) {
+      report.append(String.format("%-9s %s%n", String.format("%.1f V", volts), StarterBotSim.match(replay, seed, volts)));
+    }
+
+    int matches = 50;
+    long start = System.nanoTime();
+    for (int i = 0; i < matches; i++) {
+      StarterBotSim.match(replay, seed, 12.0);
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / matches;
+    report.append(String.format("%d replayed matches: %.1f ms per 2:30 match (%.0fx real time)",
+        matches, millis, (StarterBotSim.AUTO_SECONDS + StarterBotSim.TELEOP_SECONDS) * 1000 / millis));
+    return report.toString();
+  }
+
+  /**
+   * Times GamepadRecorder.record() with the ring buffer wrapping around.
+   */
+  private static double recordNanos() {
+    GamepadRecorder recorder = new GamepadRecorder(4096);
+    Gamepad gamepad = new Gamepad();
+    int records = 2_000_000;
+    for (int i = 0; i < records; i++) {
+      // Warm-up so the JIT compiles record()
+      gamepad.left_stick_y = (i & 255) / 255f;
+      recorder.record((i & 4095) * 10_000_000L, gamepad);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < records; i++) {
+      gamepad.left_stick_y = (i & 255) / 255f;
+      gamepad.right_bumper = (i & 64) != 0;
+      recorder.record((i & 4095) * 10_000_000L, gamepad);
+    }
+    return (System.nanoTime() - start) / (double) records;
+  }
+}
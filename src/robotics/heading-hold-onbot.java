@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Heading Hold - Keeps the Robot Pointing Where the Driver Left It
+ *
+ * Arcade drive sends the sticks straight to the motors. No two drive sides
+ * are exactly alike (gearbox friction, a tight chain, a worn wheel), so
+ * "full forward, no turn" curves off, and the driver keeps nudging the turn
+ * stick to stay straight.
+ *
+ * With heading hold, the turn stick means "turn" only while it is pushed:
+ * - Turn stick pushed:    its value goes to the motors, as always
+ * - Turn stick released:  the robot brakes its spin (D term only), and once
+ *                         it has stopped turning that heading is latched
+ * - Latched:              every loop the IMU yaw is compared with the latched
+ *                         heading and a PD correction is added to the turn
+ *                           turn = kP * (latched - yaw) - kD * yaw rate
+ *                         limited to maxCorrection, so it can never out-turn
+ *                         the driver
+ * - Both sticks centred:  nothing is held, so a robot standing still does
+ *                         not buzz its motors fighting a bump
+ *
+ * Why "Fast Inner Loop"?
+ * A heading that is corrected late has already turned further: the
+ * correction is based on an old yaw. The correction is worked out right
+ * where the drive powers are set, from the newest yaw, every loop - not at
+ * telemetry speed. The yaw rate for the D term comes from the last two IMU
+ * samples; if no new sample arrived since the last loop, the last rate and
+ * correction are kept.
+ *
+ * Units: radians, counter-clockwise positive (like the IMU yaw); turn is
+ * the arcade drive's turn power, counter-clockwise positive.
+ */
+public class HeadingHold {
+
+  // Default gains, tuned against StarterBotSim (StarterBot drivetrain, 12 V battery)
+  public static final double DEFAULT_KP = 2.0;             // turn power per radian of error
+  public static final double DEFAULT_KD = 0.15;            // turn power per radian/second
+  public static final double DEFAULT_MAX_CORRECTION = 0.3; // Never more turn than this
+  public static final double STICK_DEADBAND = 0.05;        // Sticks this close to 0 count as centred
+  public static final double LATCH_RATE = 0.1;             // radians/second: "stopped turning"
+
+  private final double kP;
+  private final double kD;
+  private final double maxCorrection;
+
+  private boolean holding = false;
+  private double target;
+  private double error;
+  private double rate;
+  private double correction;
+  private double lastHeading = Double.NaN;
+  private long lastNanos;
+
+  public HeadingHold() {
+    this(DEFAULT_KP, DEFAULT_KD, DEFAULT_MAX_CORRECTION);
+  }
+
+  public HeadingHold(double kP, double kD, double maxCorrection) {
+    this.kP = kP;
+    this.kD = kD;
+    this.maxCorrection = maxCorrection;
+  }
+
+  /**
+   * Works out this loop's turn power.
+   *
+   * @param forward Forward stick (only checked for centred)
+   * @param turn    Turn stick, counter-clockwise positive
+   * @param heading IMU yaw, radians
+   * @param nanos   When the yaw was read (RobotClock time)
+   * @return The turn power to drive with: the stick while it is pushed,
+   *         otherwise the heading correction
+   */
+  public double turn(double forward, double turn, double heading, long nanos) {
+    if (Double.isNaN(lastHeading)) {
+      rate = 0;
+    } else if (nanos != lastNanos) {
+      rate = PoseEstimator.angleWrap(heading - lastHeading) / ((nanos - lastNanos) / 1e9);
+    } else {
+      return Math.abs(turn) > STICK_DEADBAND ? turn : correction;   // No new yaw since last loop
+    }
+    lastHeading = heading;
+    lastNanos = nanos;
+
+    if (Math.abs(turn) > STICK_DEADBAND || Math.abs(forward) <= STICK_DEADBAND) {
+      holding = false;   // The driver is turning, or not driving at all
+      error = 0;
+      correction = 0;
+      return Math.abs(turn) > STICK_DEADBAND ? turn : 0;
+    }
+    if (!holding) {
+      if (Math.abs(rate) < LATCH_RATE) {
+        holding = true;
+        target = heading;
+      } else {
+        correction = clamp(-kD * rate);   // Still spinning from the driver's turn: brake it
+        return correction;
+      }
+    }
+    error = PoseEstimator.angleWrap(target - heading);
+    correction = clamp(kP * error - kD * rate);
+    return correction;
+  }
+
+  /** Forgets the latched heading (e.g. after the pose was reset). */
+  public void release() {
+    holding = false;
+    lastHeading = Double.NaN;
+    error = 0;
+    correction = 0;
+  }
+
+  /** @return true while a heading is latched */
+  public boolean isHolding() {
+    return holding;
+  }
+
+  /** @return Latched heading minus the yaw at the last update, radians (0 when not holding) */
+  public double error() {
+    return error;
+  }
+
+  /** @return The turn power added at the last update */
+  public double correction() {
+    return correction;
+  }
+
+  private double clamp(double power) {
+    return Math.max(-maxCorrection, Math.min(maxCorrection, power));
+  }
+}
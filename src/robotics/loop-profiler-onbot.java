@@ -0,0 +1,163 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Loop Profiler - How Fast Is Our Loop, Really?
+ *
+ * Records how long every loop takes, and how long each part of the loop
+ * (drive, flywheel, feeder, telemetry, vision) takes, so we can spot which
+ * part causes slow loops during a match.
+ *
+ * Usage:
+ * <pre>
+ * profiler.startLoop();                 // top of every loop
+ * profiler.begin(LoopProfiler.DRIVE);
+ * splitStickArcadeDrive();
+ * profiler.end(LoopProfiler.DRIVE);
+ * ...
+ * if (gamepad1.share) {
+ *   profiler.addTo(telemetry);          // only when we want to look
+ * }
+ * </pre>
+ *
+ * How It Stays Cheap:
+ * - All histograms are created once in the constructor
+ * - Recording a time is a subtraction, a division and one array increment
+ * - No objects are created inside the loop, so the garbage collector never
+ *   has to pause the robot because of the profiler
+ * - Percentiles are only calculated when addTo() or percentileMs() is called
+ *
+ * Histogram:
+ * Times are counted in 0.1 ms "buckets" from 0 to 100 ms. Anything slower
+ * lands in the last bucket (but maxMs() still remembers the exact worst time).
+ */
+public class LoopProfiler {
+
+  // ===== SECTION INDEXES =====
+  public static final int DRIVE = 0;
+  public static final int FLYWHEEL = 1;
+  public static final int FEEDER = 2;
+  public static final int TELEMETRY = 3;
+  public static final int VISION = 4;
+  public static final int LOOP = 5;       // The whole loop, measured start to start
+
+  private static final String[] NAMES = { "Drive", "Flywheel", "Feeder", "Telemetry", "Vision", "Loop" };
+  private static final int SERIES = NAMES.length;
+
+  private static final long BUCKET_NANOS = 100_000;  // 0.1 ms per bucket
+  private static final int BUCKETS = 1000;           // 0 to 100 ms
+
+  private final RobotClock clock;
+  private final long[][] histogram = new long[SERIES][BUCKETS + 1];
+  private final long[] counts = new long[SERIES];
+  private final long[] maxNanos = new long[SERIES];
+  private final long[] sectionStart = new long[SERIES];
+  private boolean started = false;
+  private long loopStart;
+  private long firstLoopStart;
+
+  public LoopProfiler(RobotClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Call at the very top of every loop. The time since the previous call is one loop.
+   */
+  public void startLoop() {
+    long now = clock.nanoTime();
+    if (started) {
+      record(LOOP, now - loopStart);
+    } else {
+      firstLoopStart = now;
+      started = true;
+    }
+    loopStart = now;
+  }
+
+  public void begin(int section) {
+    sectionStart[section] = clock.nanoTime();
+  }
+
+  public void end(int section) {
+    record(section, clock.nanoTime() - sectionStart[section]);
+  }
+
+  private void record(int series, long nanos) {
+    int bucket = (int) (nanos / BUCKET_NANOS);
+    if (bucket > BUCKETS) {
+      bucket = BUCKETS;
+    }
+    histogram[series][bucket]++;
+    counts[series]++;
+    if (nanos > maxNanos[series]) {
+      maxNanos[series] = nanos;
+    }
+  }
+
+  /**
+   * @param series A section index or LOOP
+   * @param percentile 0 to 100 (50 = median, 99 = the slow 1% of loops)
+   * @return Time in milliseconds (upper edge of the bucket), or 0 if nothing was recorded
+   */
+  public double percentileMs(int series, double percentile) {
+    long total = counts[series];
+    if (total == 0) {
+      return 0;
+    }
+    long target = (long) Math.ceil(total * percentile / 100.0);
+    long seen = 0;
+    for (int bucket = 0; bucket <= BUCKETS; bucket++) {
+      seen += histogram[series][bucket];
+      if (seen >= target && seen > 0) {
+        return Math.min((bucket + 1) * BUCKET_NANOS, maxNanos[series]) / 1e6;
+      }
+    }
+    return maxNanos[series] / 1e6;
+  }
+
+  public double maxMs(int series) {
+    return maxNanos[series] / 1e6;
+  }
+
+  public long count(int series) {
+    return counts[series];
+  }
+
+  /**
+   * @return Average loops per second since the first startLoop()
+   */
+  public double loopHz() {
+    if (counts[LOOP] == 0) {
+      return 0;
+    }
+    return counts[LOOP] / ((loopStart - firstLoopStart) / 1e9);
+  }
+
+  /**
+   * Clears all recorded times (for example between autonomous and TeleOp).
+   */
+  public void reset() {
+    for (int series = 0; series < SERIES; series++) {
+      Arrays.fill(histogram[series], 0);
+      counts[series] = 0;
+      maxNanos[series] = 0;
+    }
+    started = false;
+  }
+
+  /**
+   * Adds a loop timing report to the Driver Station. Builds strings, so only
+   * call this when someone is actually looking at it.
+   */
+  public void addTo(Telemetry telemetry) {
+    telemetry.addData("Loop Hz", "%.1f", loopHz());
+    for (int series = 0; series < SERIES; series++) {
+      if (counts[series] > 0) {
+        telemetry.addData(NAMES[series] + " ms", "p50 %.1f  p99 %.1f  max %.1f",
+            percentileMs(series, 50), percentileMs(series, 99), maxMs(series));
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * Match Log Reader - Turn a MatchLogger File Into Columns or a CSV
+ *
+ * Runs on a laptop after the match. Copy the log off the Control Hub
+ * (/sdcard/FIRST/), then either:
+ * - Convert it: java MatchLogReader matchlog-1234.bin  (writes matchlog-1234.csv)
+ * - Or read() it in your own code and use the columns directly: one array
+ *   per column, ready for plotting or statistics
+ *
+ * A log that was cut off in the middle of a row (robot lost power) is still
+ * read; the unfinished row is skipped.
+ */
+public class MatchLogReader {
+
+  private final String[] columns;
+  private final long[] nanos;
+  private final float[][] values;    // values[column][row]
+
+  private MatchLogReader(String[] columns, long[] nanos, float[][] values) {
+    this.columns = columns;
+    this.nanos = nanos;
+    this.values = values;
+  }
+
+  /**
+   * Reads a whole log file.
+   *
+   * @throws IOException if the file cannot be read or is not a match log
+   */
+  public static MatchLogReader read(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      if (in.readInt() != MatchLogger.MAGIC) {
+        throw new IOException(file + " is not a match log");
+      }
+      short version = in.readShort();
+      if (version != MatchLogger.VERSION) {
+        throw new IOException(file + ": unsupported match log version " + version);
+      }
+      String[] columns = new String[in.readShort()];
+      for (int column = 0; column < columns.length; column++) {
+        columns[column] = in.readUTF();
+      }
+
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      byte[] chunk = new byte[65536];
+      for (int read = in.read(chunk); read > 0; read = in.read(chunk)) {
+        body.write(chunk, 0, read);
+      }
+      int rows = body.size() / (8 + 4 * columns.length);
+
+      // Rows on disk, columns in memory
+      ByteBuffer buffer = ByteBuffer.wrap(body.toByteArray());
+      long[] nanos = new long[rows];
+      float[][] values = new float[columns.length][rows];
+      for (int row = 0; row < rows; row++) {
+        nanos[row] = buffer.getLong();
+        for (int column = 0; column < columns.length; column++) {
+          values[column][row] = buffer.getFloat();
+        }
+      }
+      return new MatchLogReader(columns, nanos, values);
+    }
+  }
+
+  public String[] columns() {
+    return columns.clone();
+  }
+
+  public int rows() {
+    return nanos.length;
+  }
+
+  /** @return Row times in nanoseconds (the loop's clock) */
+  public long[] nanos() {
+    return nanos;
+  }
+
+  /**
+   * @return Every row's value for the named column
+   * @throws IllegalArgumentException if the log has no such column
+   */
+  public float[] column(String name) {
+    for (int column = 0; column < columns.length; column++) {
+      if (columns[column].equals(name)) {
+        return values[column];
+      }
+    }
+    throw new IllegalArgumentException("no column " + name);
+  }
+
+  /**
+   * Writes a CSV: a "seconds" column (from the first row) and then every
+   * logged column, one line per loop.
+   */
+  public void writeCsv(Writer out) throws IOException {
+    out.write("seconds");
+    for (String column : columns) {
+      out.write(',');
+      out.write(column);
+    }
+    out.write('\n');
+    for (int row = 0; row < nanos.length; row++) {
+      out.write(String.format("%.6f", (nanos[row] - nanos[0]) / 1e9));
+      for (int column = 0; column < columns.length; column++) {
+        out.write(',');
+        float value = values[column][row];
+        if (!Float.isNaN(value)) {
+          out.write(Float.toString(value));
+        }
+      }
+      out.write('\n');
+    }
+  }
+
+  /**
+   * Converts each log named on the command line to a CSV next to it.
+   */
+  public static void main(String[] args) throws IOException {
+    for (String name : args) {
+      File log = new File(name);
+      File csv = new File(name.replaceAll("\\.bin$", "") + ".csv");
+      MatchLogReader reader = read(log);
+      try (Writer out = new BufferedWriter(new FileWriter(csv))) {
+        reader.writeCsv(out);
+      }
+      System.out.println(csv + ": " + reader.rows() + " rows, " + reader.columns.length + " columns");
+    }
+  }
+}
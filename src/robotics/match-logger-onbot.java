@@ -0,0 +1,376 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Match Logger - Every Loop of the Match, Saved to a File
+ *
+ * Telemetry only shows a few numbers a few times per second, and they are
+ * gone once the match is over. The match logger saves a row of numbers
+ * (motor powers, encoders, heading, tag readings, ...) on EVERY loop into a
+ * compact binary file. MatchLogReader turns the file into a CSV afterwards.
+ *
+ * How the Loop Uses It:
+ * 1. Before the match: addColumn() for each value, then open(file)
+ * 2. Each loop: set(column, value) for the values that changed - one
+ *    store into an array - and commit(time) once to save the row
+ * 3. After the match: close()
+ * A column keeps its last value until set() changes it.
+ *
+ * Why a Background Thread?
+ * Writing to flash storage can take milliseconds, and sometimes much longer.
+ * The loop never waits for it. Two buffers take turns:
+ * - The loop fills one buffer with rows (commit() copies the numbers in)
+ * - When it is full, the loop hands it to the writer thread and keeps
+ *   going with the other buffer, which the writer has already emptied
+ * - The buffers are passed through AtomicReferences, like VisionMailbox,
+ *   so neither side ever locks or waits
+ * If the writer is ever so far behind that both buffers are full, the row
+ * is dropped (and counted) instead of slowing the loop down.
+ *
+ * Why Not a Memory-Mapped File?
+ * With a mapped file, the first write to each new page of the file can stall
+ * the loop while the system gets that page ready, and the file size must be
+ * fixed up front. The two buffers are allocated once, at INIT, and all file
+ * I/O happens on the writer thread.
+ *
+ * loopRateReport() runs the same loop with no logging, with this logger,
+ * and with a plain CSV writer, and compares the loop rates.
+ *
+ * File Layout (big-endian):
+ *   int MAGIC, short VERSION, short column count, column names (writeUTF),
+ *   then one row per commit(): long time in nanoseconds, one float per column
+ */
+public class MatchLogger {
+
+  public static final int MAGIC = 0x4D4C4F47;   // "MLOG"
+  public static final short VERSION = 1;
+
+  private static final long WRITER_POLL_MS = 5;
+
+  private final String[] names;
+  private final float[] values;
+  private final int bufferBytes;
+  private int columns = 0;
+  private int rowBytes;
+
+  // Loop-thread state
+  private ByteBuffer active;
+  private boolean open = false;
+  private long rows = 0;
+  private long dropped = 0;
+
+  // Shared with the writer thread
+  private final AtomicReference<ByteBuffer> full = new AtomicReference<>();   // Waiting to be written
+  private final AtomicReference<ByteBuffer> spare = new AtomicReference<>();  // Written, ready to refill
+  private volatile boolean running = false;
+  private volatile long bytesWritten = 0;
+  private volatile IOException error;
+  private FileChannel channel;
+  private Thread thread;
+
+  /**
+   * @param maxColumns  Most columns addColumn() can add
+   * @param bufferBytes Size of each of the two buffers (e.g. 65536)
+   */
+  public MatchLogger(int maxColumns, int bufferBytes) {
+    names = new String[maxColumns];
+    values = new float[maxColumns];
+    this.bufferBytes = bufferBytes;
+  }
+
+  /**
+   * Adds a column. Call before open().
+   *
+   * @return The column number to pass to set()
+   */
+  public int addColumn(String name) {
+    if (open) {
+      throw new IllegalStateException("addColumn() after open()");
+    }
+    names[columns] = name;
+    return columns++;
+  }
+
+  /**
+   * Creates the file, writes the column names, and starts the writer thread.
+   */
+  public void open(File file) throws IOException {
+    rowBytes = 8 + 4 * columns;
+    if (rowBytes > bufferBytes) {
+      throw new IllegalArgumentException("bufferBytes is smaller than one row");
+    }
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+    DataOutputStream header = new DataOutputStream(headerBytes);
+    header.writeInt(MAGIC);
+    header.writeShort(VERSION);
+    header.writeShort(columns);
+    for (int column = 0; column < columns; column++) {
+      header.writeUTF(names[column]);
+    }
+    header.flush();
+
+    channel = new FileOutputStream(file).getChannel();
+    writeFully(ByteBuffer.wrap(headerBytes.toByteArray()));
+    if (error != null) {
+      channel.close();
+      throw error;
+    }
+
+    active = ByteBuffer.allocateDirect(bufferBytes);
+    spare.set(ByteBuffer.allocateDirect(bufferBytes));
+    open = true;
+    running = true;
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writeLoop();
+      }
+    }, "MatchLogger");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stores this loop's value for a column. */
+  public void set(int column, double value) {
+    values[column] = (float) value;
+  }
+
+  /**
+   * Saves one row: the time plus every column's current value.
+   *
+   * @param nanos Loop time (e.g. RobotClock.SYSTEM.nanoTime())
+   */
+  public void commit(long nanos) {
+    if (!open) {
+      return;
+    }
+    if (active.remaining() < rowBytes && !handOff()) {
+      dropped++;
+      return;
+    }
+    active.putLong(nanos);
+    for (int column = 0; column < columns; column++) {
+      active.putFloat(values[column]);
+    }
+    rows++;
+  }
+
+  /**
+   * Gives the active buffer to the writer and takes the spare one.
+   *
+   * @return false if the writer has not finished with the spare buffer yet
+   */
+  private boolean handOff() {
+    ByteBuffer next = spare.getAndSet(null);
+    if (next == null) {
+      return false;
+    }
+    full.set(active);
+    active = next;
+    return true;
+  }
+
+  /**
+   * Writes the last rows and closes the file. Call once the loop is over;
+   * waits for the writer thread to finish.
+   */
+  public void close() {
+    if (!open) {
+      return;
+    }
+    open = false;
+    try {
+      while (!handOff()) {
+        Thread.sleep(1);
+      }
+      running = false;
+      thread.join();
+      channel.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      error = e;
+    }
+  }
+
+  // ===== WRITER THREAD =====
+
+  private void writeLoop() {
+    try {
+      while (true) {
+        ByteBuffer buffer = full.getAndSet(null);
+        if (buffer != null) {
+          buffer.flip();
+          if (error == null) {
+            writeFully(buffer);
+          }
+          buffer.clear();
+          spare.set(buffer);
+        } else if (running) {
+          Thread.sleep(WRITER_POLL_MS);
+        } else if (full.get() == null) {
+          // close() hands over the last buffer before clearing running
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      // Thread stopped
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer) {
+    try {
+      while (buffer.hasRemaining()) {
+        bytesWritten += channel.write(buffer);
+      }
+    } catch (IOException e) {
+      // Keep the loop running; rows are thrown away from now on
+      error = e;
+    }
+  }
+
+  // ===== RESULTS =====
+
+  public int columns() {
+    return columns;
+  }
+
+  /** @return Rows saved by commit() */
+  public long rows() {
+    return rows;
+  }
+
+  /** @return Rows thrown away because both buffers were full */
+  public long dropped() {
+    return dropped;
+  }
+
+  /** @return Bytes written to the file so far (header included) */
+  public long bytesWritten() {
+    return bytesWritten;
+  }
+
+  /** @return The first write error, or null if every write worked */
+  public IOException error() {
+    return error;
+  }
+
+  // ===== LOOP RATE BENCHMARK =====
+
+  private static final int BENCH_MOTORS = 4;
+  private static final long BENCH_HUB_NANOS = 1_000_000;   // One bulk read per loop
+
+  /**
+   * Runs a loop like TeleOp's (one bulk read of four motors, then the
+   * control math) for the given time, three ways: without logging, with a
+   * MatchLogger saving 16 columns every loop, and with a CSV line written
+   * through String.format() every loop. Each is timed with LoopProfiler.
+   *
+   * @return Loop rate and loop times for each, plus how much the logger wrote
+   */
+  public static String loopRateReport(double seconds) throws IOException {
+    File binary = File.createTempFile("match-log", ".bin");
+    File text = File.createTempFile("match-log", ".csv");
+    binary.deleteOnExit();
+    text.deleteOnExit();
+
+    // Warm-up so the JIT has finished compiling all three loops before they are timed
+    for (int round = 0; round < 2; round++) {
+      MatchLogger warmUp = benchmarkLogger(binary);
+      Writer warmUpCsv = new BufferedWriter(new FileWriter(text));
+      benchmarkLoop(seconds / 2, null, warmUpCsv);
+      benchmarkLoop(seconds / 2, warmUp, null);
+      benchmarkLoop(seconds / 2, null, null);
+      warmUp.close();
+      warmUpCsv.close();
+    }
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%-12s %9s %9s %9s %9s %12s%n",
+        "logging", "loop Hz", "p50 ms", "p99 ms", "max ms", "log ns/loop"));
+    report.append(benchmarkLoop(seconds, null, null));
+    MatchLogger logger = benchmarkLogger(binary);
+    report.append(benchmarkLoop(seconds, logger, null));
+    Writer csv = new BufferedWriter(new FileWriter(text));
+    report.append(benchmarkLoop(seconds, null, csv));
+    logger.close();
+    csv.close();
+    report.append(String.format("MatchLogger: %d rows, %d dropped, %d bytes (CSV: %d bytes)",
+        logger.rows(), logger.dropped(), binary.length(), text.length()));
+    return report.toString();
+  }
+
+  private static MatchLogger benchmarkLogger(File file) throws IOException {
+    MatchLogger logger = new MatchLogger(4 * BENCH_MOTORS, 65536);
+    for (int motor = 0; motor < BENCH_MOTORS; motor++) {
+      logger.addColumn("position" + motor);
+      logger.addColumn("velocity" + motor);
+      logger.addColumn("power" + motor);
+      logger.addColumn("command" + motor);
+    }
+    logger.open(file);
+    return logger;
+  }
+
+  private static String benchmarkLoop(double seconds, MatchLogger logger, Writer csv) throws IOException {
+    BulkReadCache.FakeHub hub = new BulkReadCache.FakeHub(BENCH_MOTORS, BENCH_HUB_NANOS);
+    BulkReadCache cache = new BulkReadCache(hub);
+    LoopProfiler profiler = new LoopProfiler(RobotClock.SYSTEM);
+    double[] commands = new double[BENCH_MOTORS];
+    double[] powers = new double[BENCH_MOTORS];   // Last loop's commands: what each motor runs at now
+    // Start each run with no garbage left over from the one before
+    System.gc();
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    long logNanos = 0;
+    long loops = 0;
+    long end = System.nanoTime() + (long) (seconds * 1e9);
+    while (System.nanoTime() < end) {
+      profiler.startLoop();
+      hub.setMotor((int) (loops % BENCH_MOTORS), (int) loops, loops * 0.5);
+      cache.invalidate();
+      for (int motor = 0; motor < BENCH_MOTORS; motor++) {
+        powers[motor] = commands[motor];
+        commands[motor] = 0.001 * (1500 - cache.velocity(motor)) + 0.0002 * powers[motor];
+      }
+
+      long start = System.nanoTime();
+      if (logger != null) {
+        for (int motor = 0; motor < BENCH_MOTORS; motor++) {
+          logger.set(4 * motor, cache.position(motor));
+          logger.set(4 * motor + 1, cache.velocity(motor));
+          logger.set(4 * motor + 2, powers[motor]);
+          logger.set(4 * motor + 3, commands[motor]);
+        }
+        logger.commit(start);
+      } else if (csv != null) {
+        csv.write(String.format("%d", start));
+        for (int motor = 0; motor < BENCH_MOTORS; motor++) {
+          csv.write(String.format(",%d,%.1f,%.3f,%.3f", cache.position(motor), cache.velocity(motor),
+              powers[motor], commands[motor]));
+        }
+        csv.write('\n');
+      }
+      logNanos += System.nanoTime() - start;
+      loops++;
+    }
+    String name = logger != null ? "MatchLogger" : csv != null ? "CSV text" : "none";
+    return String.format("%-12s %9.1f %9.1f %9.1f %9.1f %12.0f%n", name, profiler.loopHz(),
+        profiler.percentileMs(LoopProfiler.LOOP, 50), profiler.percentileMs(LoopProfiler.LOOP, 99),
+        profiler.maxMs(LoopProfiler.LOOP), logNanos / (double) loops);
+  }
+}
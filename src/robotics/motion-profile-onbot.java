@@ -0,0 +1,201 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Motion Profile - A Speed Plan for One Move
+ *
+ * Instead of slamming the motors to full power and hoping they stop at the
+ * right spot, a motion profile plans the whole move ahead of time:
+ *
+ *   speed
+ *     |     ___________
+ *     |    /           \
+ *     |   /             \
+ *     |__/_______________\____ time
+ *       accel   cruise   decel
+ *
+ * At every moment it says where the robot SHOULD be, how fast it should be
+ * going, and how hard it should be accelerating. A ProfileFollower then
+ * drives the motors to match.
+ *
+ * Trapezoid vs S-Curve:
+ * - Trapezoid: speed changes in straight lines. Acceleration jumps from zero
+ *   to maximum instantly, which can jolt the robot.
+ * - S-Curve: speed follows a smooth (cosine) curve, so acceleration builds up
+ *   and fades gently. Each ramp takes about 57% longer (π/2) but the robot
+ *   does not lurch or tip game pieces out.
+ *
+ * Start and End Speeds:
+ * A profile can start and end moving (not just stopped), so several moves
+ * can be chained together without stopping in between. If the end speed
+ * cannot be reached in the distance given, it is lowered.
+ *
+ * Units are up to the caller (encoder ticks and ticks/second in this project).
+ * Distance may be negative (driving backward); everything is mirrored.
+ * Nothing is allocated after construction.
+ */
+public class MotionProfile {
+
+  private final double direction;
+  private final double distance;     // Always positive; direction holds the sign
+  private final boolean sCurve;
+
+  private final double startVelocity;
+  private final double peakVelocity;
+  private final double endVelocity;
+
+  private final double accelSeconds;
+  private final double cruiseSeconds;
+  private final double decelSeconds;
+  private final double accelDistance;
+  private final double cruiseDistance;
+
+  /**
+   * A profile that starts and ends stopped.
+   */
+  public MotionProfile(double distance, double maxVelocity, double maxAcceleration, boolean sCurve) {
+    this(distance, 0, 0, maxVelocity, maxAcceleration, sCurve);
+  }
+
+  /**
+   * @param distance        How far to move (negative = backward)
+   * @param startVelocity   Speed at the start, in the direction of travel (0 or more)
+   * @param endVelocity     Speed wanted at the end, in the direction of travel (0 or more)
+   * @param maxVelocity     Fastest allowed speed
+   * @param maxAcceleration Hardest allowed acceleration (and braking)
+   * @param sCurve          true for smooth S-curve ramps, false for a trapezoid
+   */
+  public MotionProfile(double distance, double startVelocity, double endVelocity,
+                       double maxVelocity, double maxAcceleration, boolean sCurve) {
+    this.direction = distance < 0 ? -1 : 1;
+    this.distance = Math.abs(distance);
+    this.sCurve = sCurve;
+
+    // An S-curve ramp needs π/2 times as long to keep the same peak acceleration
+    double rampFactor = sCurve ? Math.PI / 2 : 1;
+    double rampAccel = maxAcceleration / rampFactor;  // Average acceleration during a ramp
+
+    double start = Math.min(Math.max(startVelocity, 0), maxVelocity);
+    double end = Math.min(Math.max(endVelocity, 0), maxVelocity);
+    // Lower the end speed if we cannot get there within the distance
+    end = Math.min(end, Math.sqrt(start * start + 2 * rampAccel * this.distance));
+
+    // Highest speed reachable while still leaving room to ramp to the end speed
+    double peak = Math.sqrt((2 * rampAccel * this.distance + start * start + end * end) / 2);
+    peak = Math.max(Math.min(peak, maxVelocity), Math.max(start, end));
+
+    this.startVelocity = start;
+    this.peakVelocity = peak;
+    this.endVelocity = end;
+
+    this.accelSeconds = (peak - start) / rampAccel;
+    this.decelSeconds = (peak - end) / rampAccel;
+    this.accelDistance = (start + peak) / 2 * accelSeconds;
+    double decelDistance = (peak + end) / 2 * decelSeconds;
+    this.cruiseDistance = Math.max(0, this.distance - accelDistance - decelDistance);
+    this.cruiseSeconds = peak > 0 ? cruiseDistance / peak : 0;
+  }
+
+  /** @return How long the whole move takes, in seconds */
+  public double totalSeconds() {
+    return accelSeconds + cruiseSeconds + decelSeconds;
+  }
+
+  /** @return Length of the speed-up ramp at the start, in seconds */
+  public double accelSeconds() {
+    return accelSeconds;
+  }
+
+  /** @return Length of the slow-down ramp at the end, in seconds */
+  public double decelSeconds() {
+    return decelSeconds;
+  }
+
+  /** @return Total distance, with its sign */
+  public double distance() {
+    return direction * distance;
+  }
+
+  /** @return Speed at the end of the move (may be lower than requested) */
+  public double endVelocity() {
+    return direction * endVelocity;
+  }
+
+  /** @return Where the robot should be t seconds into the move */
+  public double position(double t) {
+    if (t <= 0) {
+      return 0;
+    }
+    if (t < accelSeconds) {
+      return direction * rampDistance(startVelocity, peakVelocity, accelSeconds, t);
+    }
+    t -= accelSeconds;
+    if (t < cruiseSeconds) {
+      return direction * (accelDistance + peakVelocity * t);
+    }
+    t -= cruiseSeconds;
+    if (t < decelSeconds) {
+      return direction * (accelDistance + cruiseDistance + rampDistance(peakVelocity, endVelocity, decelSeconds, t));
+    }
+    // Past the end: keep moving at the end speed (0 for a stop)
+    return direction * (distance + endVelocity * (t - decelSeconds));
+  }
+
+  /** @return How fast the robot should be going t seconds into the move */
+  public double velocity(double t) {
+    if (t < 0) {
+      return direction * startVelocity;
+    }
+    if (t < accelSeconds) {
+      return direction * rampVelocity(startVelocity, peakVelocity, accelSeconds, t);
+    }
+    t -= accelSeconds;
+    if (t < cruiseSeconds) {
+      return direction * peakVelocity;
+    }
+    t -= cruiseSeconds;
+    if (t < decelSeconds) {
+      return direction * rampVelocity(peakVelocity, endVelocity, decelSeconds, t);
+    }
+    return direction * endVelocity;
+  }
+
+  /** @return How hard the robot should be accelerating t seconds into the move */
+  public double acceleration(double t) {
+    if (t < 0) {
+      return 0;
+    }
+    if (t < accelSeconds) {
+      return direction * rampAcceleration(startVelocity, peakVelocity, accelSeconds, t);
+    }
+    t -= accelSeconds + cruiseSeconds;
+    if (t >= 0 && t < decelSeconds) {
+      return direction * rampAcceleration(peakVelocity, endVelocity, decelSeconds, t);
+    }
+    return 0;
+  }
+
+  // ===== RAMP SHAPES =====
+  // A ramp changes speed from v0 to v1 over T seconds, either in a straight
+  // line (trapezoid) or along half a cosine wave (S-curve)
+
+  private double rampVelocity(double v0, double v1, double T, double t) {
+    if (sCurve) {
+      return v0 + (v1 - v0) * (1 - Math.cos(Math.PI * t / T)) / 2;
+    }
+    return v0 + (v1 - v0) * t / T;
+  }
+
+  private double rampDistance(double v0, double v1, double T, double t) {
+    if (sCurve) {
+      return v0 * t + (v1 - v0) / 2 * (t - T / Math.PI * Math.sin(Math.PI * t / T));
+    }
+    return v0 * t + (v1 - v0) * t * t / (2 * T);
+  }
+
+  private double rampAcceleration(double v0, double v1, double T, double t) {
+    if (sCurve) {
+      return (v1 - v0) / 2 * Math.PI / T * Math.sin(Math.PI * t / T);
+    }
+    return (v1 - v0) / T;
+  }
+}
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/**
+ * Odometry Simulator - Imperfect Encoders and IMU for Testing PoseEstimator
+ *
+ * Wraps a DriveSim (which knows the TRUE robot pose) and reports sensor
+ * readings with the kinds of errors real sensors have:
+ *
+ * Encoders:
+ * - Each wheel's reading is scaled slightly wrong (worn or mismatched
+ *   wheels, e.g. 1.01 = reads 1% long)
+ * - Readings are whole ticks
+ *
+ * IMU:
+ * - Slow drift: a small constant bias that adds up over time
+ * - Noise on every reading
+ * - Rounded to 1/16 degree, like the BNO055
+ *
+ * Turning scrub is modeled by telling the estimator a track width that is a
+ * bit narrower than DriveSim's real one, so turns measured by the encoders
+ * come out too large - exactly what happens on a real tank drive.
+ *
+ * driftReport() drives a route and compares encoder-only odometry with
+ * encoder + IMU odometry against the true pose.
+ */
+public class OdometrySim implements PoseEstimator.Sensors {
+
+  private static final double IMU_RESOLUTION = Math.toRadians(1.0 / 16);
+
+  private final DriveSim drive;
+  private final double leftScale;
+  private final double rightScale;
+  private final double imuBias;     // radians/second
+  private final double imuNoise;    // radians (standard deviation)
+  private final Random random;
+  private double seconds = 0;
+
+  /**
+   * @param leftScale  Left encoder scale error (1.0 = perfect)
+   * @param rightScale Right encoder scale error
+   * @param imuBias    IMU drift in radians/second
+   * @param imuNoise   IMU noise in radians (standard deviation)
+   * @param seed       Random seed (same seed = same run)
+   */
+  public OdometrySim(DriveSim drive, double leftScale, double rightScale, double imuBias, double imuNoise, long seed) {
+    this.drive = drive;
+    this.leftScale = leftScale;
+    this.rightScale = rightScale;
+    this.imuBias = imuBias;
+    this.imuNoise = imuNoise;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Advances the drivetrain (and IMU drift) by dt seconds.
+   */
+  public void step(double dt) {
+    drive.step(dt);
+    seconds += dt;
+  }
+
+  @Override
+  public int leftPosition() {
+    return (int) Math.round(drive.leftPosition() * leftScale);
+  }
+
+  @Override
+  public int rightPosition() {
+    return (int) Math.round(drive.rightPosition() * rightScale);
+  }
+
+  @Override
+  public double heading() {
+    double reading = drive.heading() + imuBias * seconds + random.nextGaussian() * imuNoise;
+    return PoseEstimator.angleWrap(Math.round(reading / IMU_RESOLUTION) * IMU_RESOLUTION);
+  }
+
+  // ===== DRIFT BENCHMARK =====
+
+  /**
+   * Drives two laps of a 48-inch square (about 30 seconds, like autonomous)
+   * and measures how far each estimate ends up from the true pose.
+   *
+   * @return Final and worst position error, and final heading error, for both estimators
+   */
+  public static String driftReport(long seed) {
+    final double loopSeconds = 0.01;
+    final double estimatorSeconds = 0.005;
+    final double trackWidth = 14;   // Measured with a tape; the real (scrubbing) track is wider
+
+    DriveSim drive = new DriveSim();
+    final OdometrySim sensors = new OdometrySim(drive, 1.01, 0.995, Math.toRadians(0.01), Math.toRadians(0.05), seed);
+    RobotClock.Virtual clock = new RobotClock.Virtual();
+    PoseEstimator withImu = new PoseEstimator(sensors, clock, DriveSim.TICKS_PER_INCH, trackWidth);
+    PoseEstimator encodersOnly = new PoseEstimator(new PoseEstimator.Sensors() {
+      @Override
+      public int leftPosition() {
+        return sensors.leftPosition();
+      }
+
+      @Override
+      public int rightPosition() {
+        return sensors.rightPosition();
+      }
+
+      @Override
+      public double heading() {
+        return Double.NaN;
+      }
+    }, clock, DriveSim.TICKS_PER_INCH, trackWidth);
+
+    // Square: 48" forward, then a 90 degree spin, four times per lap
+    double side = 48 * DriveSim.TICKS_PER_INCH;
+    double quarterTurn = Math.PI / 2 * trackWidth / 2 * DriveSim.TICKS_PER_INCH;
+    PathSequencer path = new PathSequencer(new ProfileFollower(), 16);
+    for (int leg = 0; leg < 8; leg++) {
+      path.add(side, side, 900, 3000, false);
+      path.add(-quarterTurn, quarterTurn, 600, 3000, false);
+    }
+
+    double worstImu = 0, worstEncoders = 0;
+    double elapsed = 0;
+    path.start(sensors.leftPosition(), sensors.rightPosition());
+    withImu.step();
+    encodersOnly.step();
+    while (elapsed < 60 && path.update(elapsed, sensors.leftPosition(), sensors.rightPosition())) {
+      drive.setPower(path.leftPower(), path.rightPower());
+      for (int i = 0; i < Math.round(loopSeconds / estimatorSeconds); i++) {
+        sensors.step(estimatorSeconds);
+        clock.advanceNanos((long) (estimatorSeconds * 1e9));
+        withImu.step();
+        encodersOnly.step();
+      }
+      elapsed += loopSeconds;
+      worstImu = Math.max(worstImu, positionError(withImu.latest(), drive));
+      worstEncoders = Math.max(worstEncoders, positionError(encodersOnly.latest(), drive));
+    }
+
+    return String.format(
+        "%-16s %12s %12s %14s%n"
+        + "%-16s %9.2f in %9.2f in %10.2f deg%n"
+        + "%-16s %9.2f in %9.2f in %10.2f deg%n"
+        + "route time %.1f s",
+        "estimator", "final error", "worst error", "heading error",
+        "encoders only", positionError(encodersOnly.latest(), drive), worstEncoders,
+        headingErrorDegrees(encodersOnly.latest(), drive),
+        "encoders + IMU", positionError(withImu.latest(), drive), worstImu,
+        headingErrorDegrees(withImu.latest(), drive),
+        elapsed);
+  }
+
+  private static double positionError(PoseEstimator.Pose pose, DriveSim drive) {
+    return Math.hypot(pose.x - drive.x(), pose.y - drive.y());
+  }
+
+  private static double headingErrorDegrees(PoseEstimator.Pose pose, DriveSim drive) {
+    return Math.toDegrees(Math.abs(PoseEstimator.angleWrap(pose.heading - drive.heading())));
+  }
+}
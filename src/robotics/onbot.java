@@ -39,17 +39,126 @@ public class MyFIRSTJavaOpMode extends LinearOpMode {
     DcMotor shootwheel;           // Flywheel motor that propels artifacts
     Servo artifactstopper;        // Servo that gates artifact flow (0.0 = open, 0.2 = closed)
 
+    // Cached Outputs - Drive, flywheel and gate commands go through these, so a
+    // value that has not changed is not sent to the hub again (resent every
+    // WRITE_REFRESH_SECONDS to be safe; see cached-actuator-onbot.java)
+    static final double WRITE_EPSILON = 0.005;
+    static final double WRITE_REFRESH_SECONDS = 0.5;
+    CachedActuator leftDriveOutput;
+    CachedActuator rightDriveOutput;
+    CachedActuator shootwheelOutput;
+    CachedActuator stopperOutput;
+
     // Sensors - Environmental awareness
     ColorSensor color1;           // Detects color of objects or field elements
     DistanceSensor distance1;     // Measures distance to objects
     BNO055IMU imu;               // Gyroscope for orientation and rotation sensing
 
+    // Shooter Sequencer - Runs the gate/flywheel timing without blocking the loop
+    ShooterStateMachine shooter;
+
+    // Spin-Up Planner - Predicts when autonomous drives arrive, so the flywheel
+    // is already at speed when the robot gets to the shooting spot
+    // (see spin-up-planner-onbot.java)
+    SpinUpPlanner spinUpPlanner;
+
+    // Loop Timing - Records loop and section times (hold SHARE to see the report)
+    LoopProfiler profiler = new LoopProfiler(RobotClock.SYSTEM);
+
+    // Telemetry - Sent 10 times per second, and only when a value changed
+    // Shows the tag count plus ID/range/yaw for up to MAX_TAGS_SHOWN tags
+    static final int MAX_TAGS_SHOWN = 3;
+    TelemetryBatcher telemetryBatcher;
+    int tagsSeenSlot;
+    int frameAgeSlot;
+    int[] tagIdSlots = new int[MAX_TAGS_SHOWN];
+    int[] tagRangeSlots = new int[MAX_TAGS_SHOWN];
+    int[] tagYawSlots = new int[MAX_TAGS_SHOWN];
+    int poseXSlot;
+    int poseYSlot;
+    int poseHeadingSlot;
+    int tagFixesSlot;
+
+    // Match Log - Every loop's motor powers, encoders, IMU heading, pose and
+    // tags, saved to a file by a background thread (see match-logger-onbot.java).
+    // Copy it off the Control Hub and convert it with MatchLogReader.
+    MatchLogger matchLog = new MatchLogger(13 + 4 * MAX_TAGS_SHOWN, 65536);
+    int leftPowerColumn;
+    int rightPowerColumn;
+    int flywheelPowerColumn;
+    int leftTicksColumn;
+    int rightTicksColumn;
+    int odometryXColumn;
+    int odometryYColumn;
+    int imuHeadingColumn;
+    int fusedXColumn;
+    int fusedYColumn;
+    int fusedHeadingColumn;
+    int tagsSeenColumn;
+    int frameAgeColumn;
+    int[] tagIdColumns = new int[MAX_TAGS_SHOWN];
+    int[] tagRangeColumns = new int[MAX_TAGS_SHOWN];
+    int[] tagBearingColumns = new int[MAX_TAGS_SHOWN];
+    int[] tagYawColumns = new int[MAX_TAGS_SHOWN];
+
     // ===== CONTROL VARIABLES =====
     // Vision Processing - AprilTag detection for autonomous navigation
-var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, horizontalInput, myAprilTagDetection, shootPower, isShooting, verticalInput, myApriltagProcessor, maxDrivePower, myAprilTagProcessorBuilder, mode;
+var myVisionPortalBuilder, myVisionPortal, horizontalInput, shootPower, verticalInput, myApriltagProcessor, maxDrivePower, myAprilTagProcessorBuilder, mode;
     // myVisionPortal: Camera interface for processing video
     // myApriltagProcessor: Detects AprilTags (fiducial markers used for positioning)
 
+    // Vision Mailbox - A background thread drops the newest AprilTag frame here
+    VisionMailbox vision;
+
+    // Odometry - A background thread tracks the robot's x, y and heading
+    // from the drive encoders and the IMU (see pose-estimator-onbot.java)
+    static final double DRIVE_TICKS_PER_INCH = (28 * 5 * 3) / (3 * Math.PI);  // Measure for your robot
+    static final double TRACK_WIDTH_INCHES = 15;    // Distance between left and right wheels
+    static final long ODOMETRY_PERIOD_MS = 5;       // 200 pose updates per second
+    PoseEstimator odometry;
+
+    // Heading Hold - While driving with no turn input, hold the IMU heading
+    // (see heading-hold-onbot.java); the odometry thread reads the IMU at 200 Hz
+    static final boolean USE_HEADING_HOLD = true;
+    HeadingHold headingHold = new HeadingHold();
+
+    // Tag Localizer - Corrects odometry drift whenever the camera sees a goal
+    // AprilTag (see tag-localizer-onbot.java). Field coordinates, inches:
+    // (0, 0) is the field center, heading 0 points toward the red alliance wall
+    // The plan below is written for the RED alliance; for BLUE it is
+    // mirrored across the field's x axis (see alliance-mirror-onbot.java)
+    static final String ALLIANCE = AllianceMirror.RED;   // Set before each match
+    static final String PLAN_ALLIANCE = AllianceMirror.RED;
+    static final double START_X = -48;              // Measure for your starting spot
+    static final double START_Y = 0;
+    static final double START_HEADING = 0;          // radians
+    static final double GOAL_TAG_X = -58.4;         // The red goal tag (24); blue's (20) is its mirror
+    static final double GOAL_TAG_Y = 55.6;
+    static final double GOAL_TAG_HEIGHT = 21;       // Tag center above the camera lens
+    TagLocalizer localizer;
+    long lastFusedFrameNanos = 0;
+
+    // Closed-loop autonomous moves
+    static final double LOADING_SPOT_INCHES = 48;   // Shooting spot to loading spot
+    static final double DRIVE_GAIN = 0.05;          // Power per inch still to go
+    static final double MIN_DRIVE_POWER = 0.15;     // Enough to overcome friction
+    static final double POSITION_TOLERANCE_INCHES = 1;
+    static final double FULL_POWER_INCHES_PER_SECOND = 40;  // Measure for your robot
+    static final double DRIVE_LAG_SECONDS = 0.15;   // Time for the robot's speed to follow the power
+
+    // Drive to the goal: one smooth trajectory from the starting spot,
+    // followed with Ramsete on the tag-corrected pose (see trajectory-onbot.java)
+    static final double SHOOT_X = -3;               // Where the old timed drive ended
+    static final double SHOOT_Y = 1.5;              // (measure for your robot)
+    static final double SHOOT_HEADING = Math.toRadians(63);
+    static final double TRAJECTORY_MAX_VELOCITY = 31;       // inches/second, ~80%: room to correct
+    static final double TRAJECTORY_MAX_ACCELERATION = 110;  // inches/second²
+    static final double TRAJECTORY_MAX_CENTRIPETAL = 60;    // inches/second² on bends
+    static final double TRAJECTORY_SAMPLE_SECONDS = 0.01;
+    Trajectory goalTrajectory;
+    double[] startPose;                             // {x, y, heading} for ALLIANCE
+    RamseteFollower ramsete;
+
     // Drive Control Variables
     // horizontalInput: Left/right turning input (-1.0 to 1.0)
     // verticalInput: Forward/backward driving input (-1.0 to 1.0)
@@ -57,8 +166,6 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
 
     // Shooter Control Variables
     // shootPower: Power level for the flywheel motor
-    // isShooting: Flag to prevent multiple simultaneous shooting sequences
-    // nArtifacts: Counter for autonomous shooting sequences
 
     // Mode Selection
     // mode: 0 = keyboard, 1 = gamepad, 2 = autonomous
@@ -75,6 +182,7 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      * 2. Configure camera from hardwareMap (device name: "webcam")
      * 3. Create AprilTagProcessor - analyzes frames for AprilTag markers
      * 4. Attach processor to the vision portal
+     * 5. Start the vision mailbox thread that copies each new frame's detections
      *
      * FTC Vision API: VisionPortal manages camera lifecycle and frame processing
      */
@@ -85,6 +193,113 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
       myAprilTagProcessorBuilder = new AprilTagProcessor.Builder();
       myApriltagProcessor = (myAprilTagProcessorBuilder.build());
       myVisionPortalBuilder.addProcessor(myApriltagProcessor);
+      // Check for a fresh frame every 5 ms on the vision thread (not the control loop)
+      vision = new VisionMailbox(new VisionMailbox.AprilTagSource(myApriltagProcessor, 5));
+      vision.start();
+    }
+
+    /**
+     * Initialize Odometry
+     *
+     * Starts up the IMU and creates the pose estimator. The estimator thread
+     * itself is started right after START, so the pose counts from the
+     * starting spot (START_X, START_Y, START_HEADING on the field, mirrored
+     * for the other alliance).
+     *
+     * Why a thread?
+     * - Odometry adds up tiny moves, so it needs small, evenly spaced steps
+     * - The thread steps every ODOMETRY_PERIOD_MS even while the main loop is
+     *   busy
+     * - Drive code reads odometry.latest() - one read, never waits
+     */
+    public void initializeOdometry(){
+      imu.initialize(new BNO055IMU.Parameters());
+      odometry = new PoseEstimator(new PoseEstimator.HardwareSensors(driveLeft, driveRight, imu),
+          RobotClock.SYSTEM, DRIVE_TICKS_PER_INCH, TRACK_WIDTH_INCHES);
+    }
+
+    /**
+     * Initialize Tag Localizer
+     *
+     * Tells the localizer where the goal AprilTags are on the field. Every
+     * tag sighting after START pulls the odometry pose back toward the truth.
+     *
+     * Why not just trust odometry?
+     * - Wheels slip, and the IMU slowly drifts
+     * - Over a 30 second autonomous that adds up to a few inches
+     * - Tags never move, so seeing one tells us where we really are
+     */
+    public void initializeLocalization(){
+      localizer = new TagLocalizer(256);   // 1.3 s of poses, for frame latency
+      localizer.setTag(AllianceMirror.RED_GOAL_TAG, GOAL_TAG_X, GOAL_TAG_Y, GOAL_TAG_HEIGHT);
+      localizer.setTag(AllianceMirror.tag(AllianceMirror.RED_GOAL_TAG), GOAL_TAG_X, AllianceMirror.y(GOAL_TAG_Y),
+          GOAL_TAG_HEIGHT);
+      // Starting spot is known to within about an inch and 2 degrees
+      localizer.setUncertainty(1, Math.toRadians(2));
+    }
+
+    /**
+     * Initialize Telemetry Slots
+     *
+     * Registers every value shown on the Driver Station once, before the match.
+     * During the match the loop only stores numbers into these slots; the
+     * TelemetryBatcher formats and sends them a few times per second.
+     */
+    public void initializeTelemetry(){
+      telemetryBatcher = new TelemetryBatcher(telemetry, RobotClock.SYSTEM, 10, 6 + 3 * MAX_TAGS_SHOWN);
+      poseXSlot = telemetryBatcher.addSlot("X in", "%.1f");
+      poseYSlot = telemetryBatcher.addSlot("Y in", "%.1f");
+      poseHeadingSlot = telemetryBatcher.addSlot("Heading deg", "%.1f");
+      tagFixesSlot = telemetryBatcher.addSlot("Tag Fixes", "%.0f");
+      tagsSeenSlot = telemetryBatcher.addSlot("Tags Seen", "%.0f");
+      frameAgeSlot = telemetryBatcher.addSlot("Frame Age ms", "%.0f");
+      for (int tag = 0; tag < MAX_TAGS_SHOWN; tag++) {
+        tagIdSlots[tag] = telemetryBatcher.addSlot("ID", "%.0f");
+        tagRangeSlots[tag] = telemetryBatcher.addSlot("Range", "%.1f");
+        tagYawSlots[tag] = telemetryBatcher.addSlot("Yaw", "%.1f");
+      }
+    }
+
+    /**
+     * Initialize Match Log
+     *
+     * Names every logged column once, then creates the log file (one new file
+     * per run, named by the time it started) and starts the writer thread.
+     *
+     * During the match:
+     * - Motor powers are logged where they are set (reading them back from the
+     *   hub would cost a round trip each)
+     * - Encoders and the IMU heading come from the odometry thread's pose,
+     *   which has already read them
+     * - displayVisionPortalData() saves the row once per loop
+     *
+     * If the file cannot be created, the match runs without a log.
+     */
+    public void initializeMatchLog(){
+      leftPowerColumn = matchLog.addColumn("left_power");
+      rightPowerColumn = matchLog.addColumn("right_power");
+      flywheelPowerColumn = matchLog.addColumn("flywheel_power");
+      leftTicksColumn = matchLog.addColumn("left_ticks");
+      rightTicksColumn = matchLog.addColumn("right_ticks");
+      odometryXColumn = matchLog.addColumn("odometry_x");
+      odometryYColumn = matchLog.addColumn("odometry_y");
+      imuHeadingColumn = matchLog.addColumn("imu_heading");
+      fusedXColumn = matchLog.addColumn("fused_x");
+      fusedYColumn = matchLog.addColumn("fused_y");
+      fusedHeadingColumn = matchLog.addColumn("fused_heading");
+      tagsSeenColumn = matchLog.addColumn("tags_seen");
+      frameAgeColumn = matchLog.addColumn("frame_age_ms");
+      for (int tag = 0; tag < MAX_TAGS_SHOWN; tag++) {
+        tagIdColumns[tag] = matchLog.addColumn("tag" + tag + "_id");
+        tagRangeColumns[tag] = matchLog.addColumn("tag" + tag + "_range");
+        tagBearingColumns[tag] = matchLog.addColumn("tag" + tag + "_bearing");
+        tagYawColumns[tag] = matchLog.addColumn("tag" + tag + "_yaw");
+      }
+      try {
+        matchLog.open(new File("/sdcard/FIRST/matchlog-" + System.currentTimeMillis() + ".bin"));
+      } catch (IOException e) {
+        telemetry.addData("Match Log", "off: %s", e.getMessage());
+      }
     }
 
     /**
@@ -100,15 +315,19 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      * - Position 0.2 keeps the stopper closed to hold artifacts in the hopper
      * - Position 0.0 would open the gate to allow artifacts through
      *
-     * isShooting Flag:
-     * - Prevents overlapping shooting sequences that could jam the mechanism
+     * Cached Outputs:
+     * - From here on, every power and gate position is sent through a
+     *   CachedActuator instead of calling setPower()/setPosition() directly
      */
     public void inititalSetup(){
       // Put initialization blocks here
       driveLeft.setDirection(DcMotor.Direction.REVERSE);
-      isShooting = false;
+      leftDriveOutput = CachedActuator.power(driveLeft, RobotClock.SYSTEM, WRITE_EPSILON, WRITE_REFRESH_SECONDS);
+      rightDriveOutput = CachedActuator.power(driveRight, RobotClock.SYSTEM, WRITE_EPSILON, WRITE_REFRESH_SECONDS);
+      shootwheelOutput = CachedActuator.power(shootwheel, RobotClock.SYSTEM, WRITE_EPSILON, WRITE_REFRESH_SECONDS);
+      stopperOutput = CachedActuator.position(artifactstopper, RobotClock.SYSTEM, WRITE_EPSILON, WRITE_REFRESH_SECONDS);
       // Holds back artifacts until we start shooting
-      artifactstopper.setPosition(0.2);
+      stopperOutput.set(0.2);
     }
     
     /**
@@ -153,13 +372,17 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      */
     public void keyboardDrive(){
       while (opModeIsActive()) {
+        profiler.startLoop();
         // Convert keyboard input to a final direction value
         horizontalInput = keyboard.isPressed(108) - keyboard.isPressed(106);
         verticalInput = keyboard.isPressed(105) - keyboard.isPressed(107);
+        profiler.begin(LoopProfiler.DRIVE);
         processDriveInputs();
-        if (keyboard.isPressed(112) && !isShooting) {
+        profiler.end(LoopProfiler.DRIVE);
+        if (keyboard.isPressed(112) && !shooter.isBusy()) {
           shoot();
         }
+        updateShooter();
         displayVisionPortalData();
       }
     }
@@ -184,12 +407,16 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      */
     public void gamepadDrive(){
       while (opModeIsActive()) {
+        profiler.startLoop();
         horizontalInput = gamepad1.right_stick_x;
         verticalInput = gamepad1.left_stick_y;
+        profiler.begin(LoopProfiler.DRIVE);
         processDriveInputs();
-        if (gamepad1.a && !isShooting) {
+        profiler.end(LoopProfiler.DRIVE);
+        if (gamepad1.a && !shooter.isBusy()) {
           shoot();
         }
+        updateShooter();
         displayVisionPortalData();
       }
     }
@@ -206,8 +433,14 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      * 4. Shoot 3 more artifacts (if loaded)
      * 5. Switch to keyboard control for remaining time
      *
-     * This time-based autonomous is simple but not very accurate. Better approaches
-     * would use encoders (counting motor rotations) or vision (AprilTags).
+     * Driving to the goal follows a trajectory planned at INIT, and the trip
+     * to the loading spot and back drives straight; both use the
+     * tag-corrected pose, so the robot reaches the same shooting spot no
+     * matter how the battery or floor behaves.
+     *
+     * Both drives to the shooting spot start the flywheel early, timed to
+     * reach speed as the robot arrives, so each volley fires on arrival
+     * instead of waiting about a second for spin-up.
      */
     public void autoDrive(){
       driveToGoal();
@@ -220,30 +453,42 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
     /**
      * Drive to Goal - Autonomous Navigation
      *
-     * Uses time-based driving to position robot at scoring location.
-     *
-     * Movement Sequence:
-     * 1. Drive forward at full power for 1.2 seconds
-     * 2. Turn right (left motor backward, right forward) for 0.23 seconds
-     * 3. Stop and pause for 0.5 seconds to stabilize
-     *
-     * Limitations of Time-Based Driving:
-     * - Battery voltage affects speed (low battery = slower)
-     * - Floor friction varies (carpet vs. tiles)
-     * - Motor wear changes performance over time
-     *
-     * Better Alternative: Use encoders to measure actual distance traveled
+     * Follows goalTrajectory, one smooth curve from the starting spot to the
+     * shooting spot (SHOOT_X, SHOOT_Y, SHOOT_HEADING), planned at INIT and
+     * mirrored there for the BLUE alliance.
+     *
+     * The old version drove forward for 1.2 s, spun for 0.23 s and paused
+     * 0.5 s, all by the clock: a low battery or a slippery floor put the
+     * robot somewhere else. Now, every loop:
+     * 1. Update the tag-corrected pose (displayVisionPortalData())
+     * 2. Ramsete compares it with where the trajectory says the robot should
+     *    be, and steers back onto the path (see ramsete-follower-onbot.java)
+     * 3. The time left on the trajectory goes to the shooter, so the flywheel
+     *    is at speed when the robot arrives
      */
     public void driveToGoal(){
-      driveLeft.setPower(1);
-      driveRight.setPower(1);
-      sleep(1200);
-      driveLeft.setPower(-1);
-      driveRight.setPower(1);
-      sleep(230);
-      driveLeft.setPower(0);
-      driveRight.setPower(0);
-      sleep(500);
+      double start = getRuntime();
+      PoseEstimator.Pose pose = odometry.latest();
+      ramsete.start(pose.leftTicks, pose.rightTicks);
+      boolean moving = true;
+      while (opModeIsActive() && moving) {
+        profiler.startLoop();
+        displayVisionPortalData();
+        double elapsed = getRuntime() - start;
+        pose = odometry.latest();
+        moving = ramsete.update(goalTrajectory, elapsed, localizer.x(), localizer.y(), localizer.heading(),
+            pose.leftTicks, pose.rightTicks);
+        leftDriveOutput.set(ramsete.leftPower());
+        rightDriveOutput.set(ramsete.rightPower());
+        matchLog.set(leftPowerColumn, ramsete.leftPower());
+        matchLog.set(rightPowerColumn, ramsete.rightPower());
+        shooter.spinUpForArrival(goalTrajectory.totalSeconds() - elapsed);
+        updateShooter();
+      }
+      leftDriveOutput.set(0);
+      rightDriveOutput.set(0);
+      matchLog.set(leftPowerColumn, 0);
+      matchLog.set(rightPowerColumn, 0);
     }
 
     /**
@@ -252,50 +497,102 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      * Moves robot to artifact loading zone and waits for human player to load artifacts.
      *
      * Sequence:
-     * 1. Back up 1.5 seconds to reach loading zone
-     * 2. Wait 10 seconds for human player to load artifacts
-     * 3. Drive forward 1.5 seconds to return to shooting position
-     * 4. Pause 0.5 seconds to stabilize
+     * 1. Remember the shooting spot (tag-corrected pose)
+     * 2. Back up LOADING_SPOT_INCHES to reach loading zone
+     * 3. Wait 10 seconds for human player to load artifacts
+     * 4. Drive forward until back at the remembered shooting spot,
+     *    spinning the flywheel up on the way
      *
      * The 10-second wait allows time for human players to manually load
-     * artifacts into the robot's hopper during autonomous.
+     * artifacts into the robot's hopper during autonomous. Vision and the
+     * localizer keep running during the wait, so the pose is fresh for the
+     * drive back.
      */
     public void driveToLoadingSpotAndBack(){
-      driveLeft.setPower(-1);
-      driveRight.setPower(-1);
-      sleep(1500);
-      driveLeft.setPower(0);
-      driveRight.setPower(0);
-      sleep(10000);
-      driveLeft.setPower(1);
-      driveRight.setPower(1);
-      sleep(1500);
-      driveLeft.setPower(0);
-      driveRight.setPower(0);
-      sleep(500);
+      double shootX = localizer.x();
+      double shootY = localizer.y();
+      double heading = localizer.heading();
+      driveStraightTo(shootX - LOADING_SPOT_INCHES * Math.cos(heading),
+          shootY - LOADING_SPOT_INCHES * Math.sin(heading), 3);
+      double loadingDone = getRuntime() + 10;
+      while (opModeIsActive() && getRuntime() < loadingDone) {
+        profiler.startLoop();
+        displayVisionPortalData();
+      }
+      driveStraightTo(shootX, shootY, 3, true);
+    }
+
+    /**
+     * Drive Straight To - Closed-Loop Move Along the Current Heading
+     *
+     * Drives forward or backward until the robot is level with the target
+     * point, using the tag-corrected pose from the localizer.
+     *
+     * Each loop:
+     * 1. Update the pose (odometry + any new tag sightings)
+     * 2. "Still to go" = distance to the target measured along the heading
+     *    (negative means the target is behind us)
+     * 3. Power = still-to-go * DRIVE_GAIN, so the robot slows as it arrives
+     *    (never below MIN_DRIVE_POWER, or friction would stall it short)
+     * 4. Stop within POSITION_TOLERANCE_INCHES, or when timeoutSeconds runs out
+     *
+     * With spinUpOnArrival, each loop also predicts the seconds still to go
+     * (spinUpPlanner follows the same power rule) so the flywheel is at
+     * speed when the robot stops.
+     */
+    public void driveStraightTo(double targetX, double targetY, double timeoutSeconds){
+      driveStraightTo(targetX, targetY, timeoutSeconds, false);
+    }
+
+    public void driveStraightTo(double targetX, double targetY, double timeoutSeconds, boolean spinUpOnArrival){
+      double giveUp = getRuntime() + timeoutSeconds;
+      while (opModeIsActive() && getRuntime() < giveUp) {
+        profiler.startLoop();
+        displayVisionPortalData();
+        double heading = localizer.heading();
+        double remaining = (targetX - localizer.x()) * Math.cos(heading)
+            + (targetY - localizer.y()) * Math.sin(heading);
+        if (Math.abs(remaining) < POSITION_TOLERANCE_INCHES) {
+          break;
+        }
+        double power = Math.copySign(
+            Math.max(MIN_DRIVE_POWER, Math.min(maxDrivePower, Math.abs(remaining) * DRIVE_GAIN)), remaining);
+        leftDriveOutput.set(power);
+        rightDriveOutput.set(power);
+        matchLog.set(leftPowerColumn, power);
+        matchLog.set(rightPowerColumn, power);
+        if (spinUpOnArrival) {
+          shooter.spinUpForArrival(spinUpPlanner.secondsLeft(remaining));
+        }
+        updateShooter();
+      }
+      leftDriveOutput.set(0);
+      rightDriveOutput.set(0);
+      matchLog.set(leftPowerColumn, 0);
+      matchLog.set(rightPowerColumn, 0);
     }
 
     /**
      * Shoot Three Artifacts - Autonomous Scoring
      *
-     * Fires three artifacts sequentially while checking for early termination.
+     * Queues a three-shot volley and runs the loop until it is finished.
      *
      * Loop Conditions:
      * - opModeIsActive(): Ensures OpMode hasn't been stopped
-     * - nArtifacts > 0: Counts down from 3 to 0
-     * - !isShooting: Waits for each shot to complete before starting next
+     * - shooter.isBusy(): True until the last queued shot has recovered
      *
-     * The shoot() method includes delays, so this loop waits for each
-     * shooting sequence to finish before decrementing the counter.
+     * The flywheel stays spinning between the three shots, so the volley
+     * takes about 2.25 seconds instead of three separate 2-second shots.
+     * If the drive here pre-spun the flywheel, the first shot goes right
+     * away; otherwise the volley first waits about a second for spin-up.
+     * Vision keeps updating the whole time because nothing sleeps.
      */
     public void shootThreeArtifacts(){
-      nArtifacts = 3;
-      while (opModeIsActive() && nArtifacts > 0) {
+      shooter.requestShots(3);
+      while (opModeIsActive() && shooter.isBusy()) {
         // Put loop blocks here
-        if (!isShooting) {
-          shoot();
-          nArtifacts -= 1;
-        }
+        profiler.startLoop();
+        updateShooter();
         displayVisionPortalData();
       }
     }
@@ -321,62 +618,81 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      *    Left=0.5+0.5=1, Right=0.5-0.5=0 → Left fast, right stopped = curve right
      *
      * maxDrivePower acts as a speed limiter (typically 0.5 to 1.0)
+     *
+     * Heading Hold (USE_HEADING_HOLD):
+     * Driving with no turn input, horizontal becomes a PD correction that
+     * holds the heading the robot had when the turn input stopped. The yaw
+     * comes from the newest odometry pose, which the estimator thread reads
+     * from the IMU every ODOMETRY_PERIOD_MS, so the correction never works
+     * from a yaw older than that.
+     *
+     * With the sticks at rest the powers repeat every loop; the cached
+     * outputs only send them to the hub when they change.
      */
     public void processDriveInputs(){
+      double turn = horizontalInput;
+      if (USE_HEADING_HOLD) {
+        // Positive horizontal turns clockwise, the IMU yaw counter-clockwise
+        PoseEstimator.Pose pose = odometry.latest();
+        turn = -headingHold.turn(verticalInput, -horizontalInput, pose.heading, pose.nanos);
+      }
       // Combine inputs to create drive and turn (or both!)
-      driveLeft.setPower(verticalInput * maxDrivePower + horizontalInput * maxDrivePower);
-      driveRight.setPower(verticalInput * maxDrivePower - horizontalInput * maxDrivePower);
+      double leftPower = verticalInput * maxDrivePower + turn * maxDrivePower;
+      double rightPower = verticalInput * maxDrivePower - turn * maxDrivePower;
+      leftDriveOutput.set(leftPower);
+      rightDriveOutput.set(rightPower);
+      matchLog.set(leftPowerColumn, leftPower);
+      matchLog.set(rightPowerColumn, rightPower);
     }
     
     /**
-     * Shoot Artifact - Timed Shooting Sequence
+     * Shoot Artifact - Start One Shot
      *
-     * Controls the complete cycle of shooting one artifact.
+     * Queues one shot on the shooter state machine and returns immediately.
+     * The shot itself happens over the next few loops inside updateShooter().
      *
      * Shooting Mechanism:
-     * - Flywheel spins continuously to build up speed
      * - Servo gate opens to allow one artifact through
-     * - Artifact contacts spinning flywheel and is launched
+     * - Flywheel spins at shootPower and launches the artifact
      * - Servo gate closes to prevent multiple artifacts
+     * - Flywheel keeps spinning briefly to recover before the next shot
+     *
+     * Why not sleep()?
+     * - The old version slept for ~2 seconds, freezing driving and vision
+     * - Now the drive, vision and telemetry keep running during a shot
      *
-     * Timing Breakdown:
-     * 1. Stop drive motors (prevents misalignment while shooting)
-     * 2. Set isShooting flag (prevents overlapping sequences)
-     * 3. Open servo gate (position 0.0)
-     * 4. Spin flywheel at shootPower
-     * 5. Wait 250ms for artifact to pass through
-     * 6. Close servo gate (position 0.2)
-     * 7. Wait 200ms for gate to fully close
-     * 8. Stop flywheel
-     * 9. Wait 1.5 seconds for mechanism to settle
-     * 10. Clear isShooting flag (allow next shot)
-     *
-     * Total sequence time: ~2 seconds
+     * See shooter-state-machine-onbot.java for the full timing breakdown.
      */
     public void shoot(){
-      // Don"t move while shooting
-      driveLeft.setPower(0);
-      driveRight.setPower(0);
-      isShooting = true;
-      // Let one artifact come through
-      artifactstopper.setPosition(0);
-      shootwheel.setPower(shootPower);
-      sleep(250);
-      // Stop the next artifact
-      artifactstopper.setPosition(0.2);
-      sleep(200);
-      shootwheel.setPower(0);
-      sleep(1500);
-      // Allow for a new shot to be triggered
-      isShooting = false;
+      shooter.requestShots(1);
+    }
+
+    /**
+     * Update Shooter - Advance the Shot Sequence
+     *
+     * Called once per loop. Moves the state machine forward if the current
+     * step's time is up, then sends its gate and flywheel commands to hardware.
+     */
+    public void updateShooter(){
+      profiler.begin(LoopProfiler.FLYWHEEL);
+      shooter.update();
+      stopperOutput.set(shooter.gatePosition());
+      shootwheelOutput.set(shooter.wheelPower());
+      matchLog.set(flywheelPowerColumn, shooter.wheelPower());
+      profiler.end(LoopProfiler.FLYWHEEL);
     }
 
     /**
      * Display Vision Portal Data - AprilTag Telemetry
      *
-     * Reads AprilTag detections from the vision processor and displays them
+     * Reads the newest AprilTag frame from the vision mailbox and displays it
      * on the Driver Station screen for debugging and navigation.
      *
+     * Why a mailbox?
+     * - The vision thread does the slow work of collecting detections
+     * - This method just picks up the newest snapshot: one read, never waits
+     * - "Frame Age" shows how old that snapshot is
+     *
      * AprilTag Data:
      * - ID: Unique identifier for each tag (helps identify field location)
      * - Range: Distance from camera to tag in inches
@@ -389,20 +705,91 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
      * - Robot can use this to navigate or align with targets
      *
      * Telemetry:
-     * - addData(): Queues data to send to Driver Station
-     * - update(): Actually transmits the queued data
+     * - set(): Stores a number in a telemetry slot (cheap, every loop)
+     * - update(): Formats and transmits changed slots, at most 10 times per second
+     *
+     * Loop iterates through the detected tags (can see multiple simultaneously);
+     * unused tag slots are cleared so they show "--"
+     *
+     * Localization:
+     * - The newest odometry pose goes into the tag localizer every loop
+     * - Each new frame's tags go in once (frames are matched by capture time)
+     * - X / Y / Heading show the corrected pose
      *
-     * Loop iterates through all detected tags (can see multiple simultaneously)
+     * Match Log:
+     * - The loop's row (pose, encoders, tags, and the powers set earlier in the
+     *   loop) is saved at the end - a few number stores, no file I/O
      */
     public void displayVisionPortalData(){
-      myAprilTagDetections = (myApriltagProcessor.getDetections());
-      for (String myAprilTagDetection2 : myAprilTagDetections) {
-        myAprilTagDetection = myAprilTagDetection2;
-        telemetry.addData("ID", (myAprilTagDetection.id));
-        telemetry.addData("Range", (myAprilTagDetection.ftcPose.range));
-        telemetry.addData("Yaw", (myAprilTagDetection.ftcPose.yaw));
+      profiler.begin(LoopProfiler.VISION);
+      VisionMailbox.Snapshot tags = vision.latest();
+      PoseEstimator.Pose pose = odometry.latest();
+      localizer.addOdometry(pose);
+      if (tags.frameNanos() != lastFusedFrameNanos) {
+        localizer.addTags(tags);
+        lastFusedFrameNanos = tags.frameNanos();
       }
-      telemetry.update();
+      profiler.end(LoopProfiler.VISION);
+      profiler.begin(LoopProfiler.TELEMETRY);
+      telemetryBatcher.set(poseXSlot, localizer.x());
+      telemetryBatcher.set(poseYSlot, localizer.y());
+      telemetryBatcher.set(poseHeadingSlot, Math.toDegrees(localizer.heading()));
+      telemetryBatcher.set(tagFixesSlot, localizer.accepted());
+      int tag = 0;
+      for (; tag < tags.count() && tag < MAX_TAGS_SHOWN; tag++) {
+        telemetryBatcher.set(tagIdSlots[tag], tags.id(tag));
+        telemetryBatcher.set(tagRangeSlots[tag], tags.range(tag));
+        telemetryBatcher.set(tagYawSlots[tag], tags.yaw(tag));
+      }
+      telemetryBatcher.set(tagsSeenSlot, tags.count());
+      if (tags == VisionMailbox.Snapshot.EMPTY) {
+        telemetryBatcher.set(frameAgeSlot, Double.NaN);
+      } else {
+        telemetryBatcher.set(frameAgeSlot, (System.nanoTime() - tags.frameNanos()) / 1e6);
+      }
+      for (; tag < MAX_TAGS_SHOWN; tag++) {
+        telemetryBatcher.set(tagIdSlots[tag], Double.NaN);
+        telemetryBatcher.set(tagRangeSlots[tag], Double.NaN);
+        telemetryBatcher.set(tagYawSlots[tag], Double.NaN);
+      }
+      if (gamepad1.share && telemetryBatcher.due()) {
+        // Loop timing report on demand
+        profiler.addTo(telemetry);
+        telemetryBatcher.markDirty();
+      }
+      telemetryBatcher.update();
+      logLoop(pose, tags);
+      profiler.end(LoopProfiler.TELEMETRY);
+    }
+
+    /**
+     * Saves this loop's row to the match log. Tags beyond the ones seen are NaN
+     * (empty in the CSV).
+     */
+    public void logLoop(PoseEstimator.Pose pose, VisionMailbox.Snapshot tags){
+      matchLog.set(leftTicksColumn, pose.leftTicks);
+      matchLog.set(rightTicksColumn, pose.rightTicks);
+      matchLog.set(odometryXColumn, pose.x);
+      matchLog.set(odometryYColumn, pose.y);
+      matchLog.set(imuHeadingColumn, pose.heading);
+      matchLog.set(fusedXColumn, localizer.x());
+      matchLog.set(fusedYColumn, localizer.y());
+      matchLog.set(fusedHeadingColumn, localizer.heading());
+      matchLog.set(tagsSeenColumn, tags.count());
+      long now = System.nanoTime();
+      if (tags == VisionMailbox.Snapshot.EMPTY) {
+        matchLog.set(frameAgeColumn, Double.NaN);
+      } else {
+        matchLog.set(frameAgeColumn, (now - tags.frameNanos()) / 1e6);
+      }
+      for (int tag = 0; tag < MAX_TAGS_SHOWN; tag++) {
+        boolean seen = tag < tags.count();
+        matchLog.set(tagIdColumns[tag], seen ? tags.id(tag) : Double.NaN);
+        matchLog.set(tagRangeColumns[tag], seen ? tags.range(tag) : Double.NaN);
+        matchLog.set(tagBearingColumns[tag], seen ? tags.bearing(tag) : Double.NaN);
+        matchLog.set(tagYawColumns[tag], seen ? tags.yaw(tag) : Double.NaN);
+      }
+      matchLog.commit(now);
     }
     
     /**
@@ -446,23 +833,72 @@ var myVisionPortalBuilder, nArtifacts, myAprilTagDetections, myVisionPortal, hor
       // Configure hardware before match starts
       inititalSetup();
       initializeVisionPortal();
+      initializeOdometry();
+      initializeLocalization();
+      initializeTelemetry();
+      initializeMatchLog();
 
       // Set shooter and drive parameters
       shootPower = 0.8;       // 80% power for flywheel (range: 0.0 to 1.0)
       maxDrivePower = 1;      // Full speed driving (can reduce for precision control)
+      spinUpPlanner = new SpinUpPlanner(DRIVE_GAIN, MIN_DRIVE_POWER, maxDrivePower,
+          POSITION_TOLERANCE_INCHES, FULL_POWER_INCHES_PER_SECOND, DRIVE_LAG_SECONDS);
+
+      // Plan the drive to the goal now, so autonomous starts moving at once.
+      // The other alliance gets the same plan reflected, not a new one
+      startPose = new double[] { START_X, START_Y, START_HEADING };
+      goalTrajectory = new Trajectory(new double[][] {
+          startPose,
+          { SHOOT_X, SHOOT_Y, SHOOT_HEADING } }, false,
+          TRAJECTORY_MAX_VELOCITY, TRAJECTORY_MAX_ACCELERATION, TRAJECTORY_MAX_CENTRIPETAL,
+          TRACK_WIDTH_INCHES, TRAJECTORY_SAMPLE_SECONDS);
+      if (AllianceMirror.needed(PLAN_ALLIANCE, ALLIANCE)) {
+        startPose = AllianceMirror.pose(startPose);
+        goalTrajectory = goalTrajectory.mirrored();
+      }
+      ramsete = new RamseteFollower(TRACK_WIDTH_INCHES, DRIVE_TICKS_PER_INCH, new ProfileFollower());
 
       // Select operating mode
       // mode 0 = keyboard, 1 = gamepad, 2 = autonomous
       mode = 2;
 
+      // Only autonomous waits for the flywheel; a TeleOp shot fires at once
+      shooter = new ShooterStateMachine(RobotClock.SYSTEM, shootPower,
+          mode == 2 ? ShooterStateMachine.AUTO_SPIN_UP_MS : 0);
+
       // ===== WAIT FOR START =====
       // Critical FTC method: blocks here until driver presses START
       // Robot is initialized but won't move yet
       waitForStart();
 
+      // Track the pose from the starting spot, in field coordinates
+      odometry.resetPose(startPose[0], startPose[1], startPose[2]);
+      odometry.start(ODOMETRY_PERIOD_MS);
+
       // ===== ACTIVE PERIOD =====
       // This code only runs after START is pressed
       pickMode();
+
+      // Shut down the background threads when the OpMode ends
+      odometry.stop();
+      vision.stop();
+      matchLog.close();
+      showHubWrites();
+    }
+
+    /**
+     * Show Hub Writes - How Many Commands the Cached Outputs Saved
+     *
+     * Shown once the OpMode has stopped: commands sent to the hub, and
+     * commands skipped because the value had not changed.
+     */
+    public void showHubWrites(){
+      long sent = leftDriveOutput.issued() + rightDriveOutput.issued()
+          + shootwheelOutput.issued() + stopperOutput.issued();
+      long skipped = leftDriveOutput.suppressed() + rightDriveOutput.suppressed()
+          + shootwheelOutput.suppressed() + stopperOutput.suppressed();
+      telemetry.addData("Hub Writes", "%d sent, %d skipped", sent, skipped);
+      telemetry.update();
     }
     
 }
@@ -0,0 +1,150 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Path Sequencer - Several Drive Moves as One Continuous Motion
+ *
+ * Calling autoDrive() three times makes the robot stop dead after every move:
+ * slow down to zero, switch modes, speed up again. This class runs a whole
+ * list of moves without stopping in between.
+ *
+ * How Blending Works:
+ * Each move still gets its own MotionProfile, but the next move STARTS while
+ * the previous one is still slowing down. The two overlap for the length of
+ * the shorter ramp, and each wheel follows the SUM of both:
+ *
+ *   speed
+ *     |   ____          ______
+ *     |  /    \  +     /      \     =    ___________
+ *     | /      \      /        \        /           \
+ *     |/________\____/__________\____  /_____________\___ time
+ *          move 1       move 2              blended
+ *
+ * - Wheels going the same way never slow to zero between moves
+ * - A wheel that reverses (straight back, then spin) swings smoothly through
+ *   zero instead of stopping and waiting
+ * - Each wheel still travels exactly the sum of its distances, so the final
+ *   heading is the same as the stop-and-go version; only the corners are
+ *   rounded off
+ *
+ * Usage:
+ * <pre>
+ * PathSequencer path = new PathSequencer(follower, 3);   // at INIT
+ * path.add(left1, right1, maxVelocity, maxAcceleration, false);
+ * ...
+ * path.start(leftEncoder, rightEncoder);
+ * while (path.update(seconds, leftEncoder, rightEncoder)) { ...setPower... }
+ * </pre>
+ *
+ * Nothing is allocated after the moves are added.
+ */
+public class PathSequencer {
+
+  private final ProfileFollower follower;
+  private final MotionProfile[] profiles;
+  private final double[] leftScales;
+  private final double[] rightScales;
+  private final double[] startSeconds;
+  private int count = 0;
+  private double totalSeconds = 0;
+
+  private double leftStart;
+  private double rightStart;
+  private double leftPower;
+  private double rightPower;
+
+  /**
+   * @param maxSegments Most moves this path will hold
+   */
+  public PathSequencer(ProfileFollower follower, int maxSegments) {
+    this.follower = follower;
+    profiles = new MotionProfile[maxSegments];
+    leftScales = new double[maxSegments];
+    rightScales = new double[maxSegments];
+    startSeconds = new double[maxSegments];
+  }
+
+  /**
+   * Adds a move to the end of the path (same meaning as DriveSegment).
+   *
+   * @param leftTicks  Left side distance in encoder ticks (negative = backward)
+   * @param rightTicks Right side distance in encoder ticks
+   */
+  public void add(double leftTicks, double rightTicks, double maxVelocity, double maxAcceleration, boolean sCurve) {
+    double longest = Math.max(Math.abs(leftTicks), Math.abs(rightTicks));
+    MotionProfile profile = new MotionProfile(longest, maxVelocity, maxAcceleration, sCurve);
+    double start = 0;
+    if (count > 0) {
+      // Start this move while the previous one is slowing down
+      MotionProfile previous = profiles[count - 1];
+      double overlap = Math.min(previous.decelSeconds(), profile.accelSeconds());
+      start = startSeconds[count - 1] + previous.totalSeconds() - overlap;
+    }
+    profiles[count] = profile;
+    leftScales[count] = longest > 0 ? leftTicks / longest : 0;
+    rightScales[count] = longest > 0 ? rightTicks / longest : 0;
+    startSeconds[count] = start;
+    totalSeconds = start + profile.totalSeconds();
+    count++;
+  }
+
+  /**
+   * Call once, right before the first update(), with the current encoder positions.
+   */
+  public void start(double leftPosition, double rightPosition) {
+    leftStart = leftPosition;
+    rightStart = rightPosition;
+  }
+
+  /**
+   * Works out both motor powers for this loop.
+   *
+   * @param seconds Time since start()
+   * @return true while the path is still running
+   */
+  public boolean update(double seconds, double leftPosition, double rightPosition) {
+    double leftTarget = leftStart, rightTarget = rightStart;
+    double leftVelocity = 0, rightVelocity = 0;
+    double leftAcceleration = 0, rightAcceleration = 0;
+    for (int i = 0; i < count; i++) {
+      double t = seconds - startSeconds[i];
+      double position = profiles[i].position(t);   // 0 before the move, full distance after
+      leftTarget += leftScales[i] * position;
+      rightTarget += rightScales[i] * position;
+      if (t >= 0 && t < profiles[i].totalSeconds()) {
+        double velocity = profiles[i].velocity(t);
+        double acceleration = profiles[i].acceleration(t);
+        leftVelocity += leftScales[i] * velocity;
+        rightVelocity += rightScales[i] * velocity;
+        leftAcceleration += leftScales[i] * acceleration;
+        rightAcceleration += rightScales[i] * acceleration;
+      }
+    }
+    leftPower = follower.update(leftTarget, leftVelocity, leftAcceleration, leftPosition);
+    rightPower = follower.update(rightTarget, rightVelocity, rightAcceleration, rightPosition);
+
+    double overtime = seconds - totalSeconds;
+    if (overtime < 0) {
+      return true;
+    }
+    boolean settled = Math.abs(leftTarget - leftPosition) <= DriveSegment.TOLERANCE_TICKS
+        && Math.abs(rightTarget - rightPosition) <= DriveSegment.TOLERANCE_TICKS;
+    return !settled && overtime < DriveSegment.MAX_SETTLE_SECONDS;
+  }
+
+  public double leftPower() {
+    return leftPower;
+  }
+
+  public double rightPower() {
+    return rightPower;
+  }
+
+  /** @return Planned time for the whole path (not counting settling) */
+  public double totalSeconds() {
+    return totalSeconds;
+  }
+
+  public int segmentCount() {
+    return count;
+  }
+}
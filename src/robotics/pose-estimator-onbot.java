@@ -0,0 +1,254 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import java.util.concurrent.atomic.AtomicReference;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+
+/**
+ * Pose Estimator - Where Is the Robot on the Field?
+ *
+ * Keeps track of the robot's position (x, y) and heading by adding up small
+ * movements measured by the drive encoders and the IMU ("odometry").
+ *
+ * Each Step:
+ * 1. Read both drive encoders and the IMU heading
+ * 2. Distance moved = average of the left and right encoder changes
+ * 3. Heading change = IMU heading change (the IMU does not care about wheel
+ *    slip; without an IMU, (right - left) / track width is used instead)
+ * 4. Move the pose forward along the average heading of this step
+ *
+ * Why a Separate Thread?
+ * Odometry is most accurate when steps are small and evenly spaced. The
+ * estimator runs on its own thread at a fixed rate (e.g. every 5 ms), no
+ * matter how slow the main loop gets.
+ *
+ * Lock-Free Snapshot:
+ * Like VisionMailbox, each step publishes a new immutable Pose into an
+ * AtomicReference. Drive code calls latest() whenever it wants: one memory
+ * read, never waits, never sees a half-written pose.
+ *
+ * Units: inches and radians (counter-clockwise positive, 0 = starting direction).
+ */
+public class PoseEstimator {
+
+  /**
+   * Robot position at one moment. Never changes after creation.
+   */
+  public static final class Pose {
+    public static final Pose ORIGIN = new Pose(0, 0, 0, 0);
+
+    public final double x;          // inches
+    public final double y;          // inches
+    public final double heading;    // radians
+    public final long nanos;        // When the sensors were read (RobotClock time)
+    public final int leftTicks;     // Drive encoders as read for this pose (0 if not from sensors)
+    public final int rightTicks;
+
+    public Pose(double x, double y, double heading, long nanos) {
+      this(x, y, heading, nanos, 0, 0);
+    }
+
+    public Pose(double x, double y, double heading, long nanos, int leftTicks, int rightTicks) {
+      this.x = x;
+      this.y = y;
+      this.heading = heading;
+      this.nanos = nanos;
+      this.leftTicks = leftTicks;
+      this.rightTicks = rightTicks;
+    }
+  }
+
+  /**
+   * Anything that can report the drive encoders and a heading.
+   * Called only from the estimator thread.
+   */
+  public interface Sensors {
+    int leftPosition();
+    int rightPosition();
+
+    /** @return Heading in radians, counter-clockwise positive (NaN if there is no IMU) */
+    double heading();
+  }
+
+  private final Sensors sensors;
+  private final RobotClock clock;
+  private final double ticksPerInch;
+  private final double trackWidth;
+  private final AtomicReference<Pose> latest = new AtomicReference<>(Pose.ORIGIN);
+
+  // Estimator-thread state
+  private double x, y, heading;
+  private int lastLeft, lastRight;
+  private double lastImuHeading;
+  private boolean started = false;
+
+  private volatile boolean running = false;
+  private volatile long steps = 0;
+  private Thread thread;
+
+  /**
+   * @param ticksPerInch Encoder ticks per inch of wheel travel
+   * @param trackWidth   Distance between left and right wheels, inches
+   */
+  public PoseEstimator(Sensors sensors, RobotClock clock, double ticksPerInch, double trackWidth) {
+    this.sensors = sensors;
+    this.clock = clock;
+    this.ticksPerInch = ticksPerInch;
+    this.trackWidth = trackWidth;
+  }
+
+  /**
+   * Reads the sensors once and moves the pose forward. The thread calls this
+   * every period; simulations can call it directly.
+   */
+  public void step() {
+    int left = sensors.leftPosition();
+    int right = sensors.rightPosition();
+    double imuHeading = sensors.heading();
+    long now = clock.nanoTime();
+
+    if (!started) {
+      lastLeft = left;
+      lastRight = right;
+      lastImuHeading = imuHeading;
+      started = true;
+    }
+
+    double leftInches = (left - lastLeft) / ticksPerInch;
+    double rightInches = (right - lastRight) / ticksPerInch;
+    double distance = (leftInches + rightInches) / 2;
+    double turn;
+    if (Double.isNaN(imuHeading)) {
+      turn = (rightInches - leftInches) / trackWidth;
+    } else {
+      turn = angleWrap(imuHeading - lastImuHeading);
+    }
+    lastLeft = left;
+    lastRight = right;
+    lastImuHeading = imuHeading;
+
+    // Move along the heading halfway through the turn (more accurate on arcs)
+    double midHeading = heading + turn / 2;
+    x += distance * Math.cos(midHeading);
+    y += distance * Math.sin(midHeading);
+    heading = angleWrap(heading + turn);
+
+    latest.set(new Pose(x, y, heading, now, left, right));
+    steps++;
+  }
+
+  /**
+   * Sets the current pose (e.g. the starting spot on the field).
+   * Only call while the thread is stopped.
+   */
+  public void resetPose(double x, double y, double heading) {
+    this.x = x;
+    this.y = y;
+    this.heading = heading;
+    started = false;
+    latest.set(new Pose(x, y, heading, clock.nanoTime()));
+  }
+
+  /**
+   * Starts the estimator thread, stepping every periodMs milliseconds.
+   */
+  public void start(final long periodMs) {
+    running = true;
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        long periodNanos = periodMs * 1_000_000;
+        long next = System.nanoTime();
+        try {
+          while (running) {
+            step();
+            // Fixed rate: sleep until the next step is due (no drift from step time)
+            next += periodNanos;
+            long sleepNanos = next - System.nanoTime();
+            if (sleepNanos > 0) {
+              Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            } else {
+              next = System.nanoTime();  // Fell behind; don't try to catch up
+            }
+          }
+        } catch (InterruptedException e) {
+          // stop() was called
+        }
+      }
+    }, "PoseEstimator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the estimator thread. Call at the end of the OpMode.
+   */
+  public void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * @return The newest pose (never null). Never waits.
+   */
+  public Pose latest() {
+    return latest.get();
+  }
+
+  public long steps() {
+    return steps;
+  }
+
+  /** @return The angle moved into -π to π */
+  public static double angleWrap(double radians) {
+    while (radians > Math.PI) {
+      radians -= 2 * Math.PI;
+    }
+    while (radians < -Math.PI) {
+      radians += 2 * Math.PI;
+    }
+    return radians;
+  }
+
+  // ===== REAL ROBOT =====
+
+  /**
+   * Reads two drive motors' encoders and a BNO055 IMU (imu may be null).
+   *
+   * The IMU reports yaw counter-clockwise positive, the same as our heading.
+   */
+  public static class HardwareSensors implements Sensors {
+    private final DcMotor left;
+    private final DcMotor right;
+    private final BNO055IMU imu;
+
+    public HardwareSensors(DcMotor left, DcMotor right, BNO055IMU imu) {
+      this.left = left;
+      this.right = right;
+      this.imu = imu;
+    }
+
+    @Override
+    public int leftPosition() {
+      return left.getCurrentPosition();
+    }
+
+    @Override
+    public int rightPosition() {
+      return right.getCurrentPosition();
+    }
+
+    @Override
+    public double heading() {
+      if (imu == null) {
+        return Double.NaN;
+      }
+      return imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+    }
+  }
+}
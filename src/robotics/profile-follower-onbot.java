@@ -0,0 +1,52 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Profile Follower - Turning a Motion Profile Into Motor Power
+ *
+ * Each loop, a MotionProfile says where one side of the drivetrain should be
+ * and how fast it should be going. This class turns that into a motor power:
+ *
+ *   power = kS * sign(v) + kV * v + kA * a       (feedforward: the plan)
+ *         + kP * (target position - encoder)     (feedback: fix the drift)
+ *
+ * Feedforward does almost all the work, so the feedback only needs to nudge.
+ * That is why the robot does not overshoot like RUN_TO_POSITION, which only
+ * reacts to position error and has to "find" the target at the end.
+ *
+ * Units: encoder ticks, ticks/second and ticks/second².
+ */
+public class ProfileFollower {
+
+  // Default gains, tuned against DriveSim (StarterBot drivetrain, 12 V battery)
+  public static final double DEFAULT_KS = 0.04;
+  public static final double DEFAULT_KV = 1.0 / 1780;
+  public static final double DEFAULT_KA = 0.000084;
+  public static final double DEFAULT_KP = 0.01;
+
+  private final double kS, kV, kA, kP;
+
+  public ProfileFollower() {
+    this(DEFAULT_KS, DEFAULT_KV, DEFAULT_KA, DEFAULT_KP);
+  }
+
+  public ProfileFollower(double kS, double kV, double kA, double kP) {
+    this.kS = kS;
+    this.kV = kV;
+    this.kA = kA;
+    this.kP = kP;
+  }
+
+  /**
+   * @param targetPosition     Where the profile says we should be (ticks)
+   * @param targetVelocity     How fast the profile says we should go (ticks/second)
+   * @param targetAcceleration How hard the profile says we should accelerate (ticks/second²)
+   * @param measuredPosition   Where the encoder says we are (ticks)
+   * @return Motor power, -1.0 to 1.0
+   */
+  public double update(double targetPosition, double targetVelocity, double targetAcceleration,
+                       double measuredPosition) {
+    double feedforward = kS * Math.signum(targetVelocity) + kV * targetVelocity + kA * targetAcceleration;
+    double power = feedforward + kP * (targetPosition - measuredPosition);
+    return Math.max(-1.0, Math.min(1.0, power));
+  }
+}
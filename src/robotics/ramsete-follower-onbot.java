@@ -0,0 +1,245 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Ramsete Follower - Keeps a Tank Drive on a Trajectory
+ *
+ * DriveSegment and PathSequencer check each WHEEL against its planned
+ * distance. That cannot see everything: if one side slips, both encoders
+ * can be on target while the robot points the wrong way or sits an inch to
+ * the side. This follower checks the robot's POSE (x, y, heading from
+ * odometry) against where the trajectory says it should be, and steers
+ * back every loop.
+ *
+ * Each Loop:
+ * 1. Look up the planned pose, speed v and turn rate ω at time t
+ * 2. Error in the robot's own frame: ahead/behind, left/right, heading
+ * 3. Ramsete correction (b sets how hard to correct, zeta the damping):
+ *      k = 2 * zeta * sqrt(ω² + b * v²)
+ *      v' = v * cos(heading error) + k * (ahead error)
+ *      ω' = ω + k * (heading error) + b * v * sinc(heading error) * (sideways error)
+ * 4. Wheel speeds: v' ∓ ω' * trackWidth / 2. Each wheel's target position
+ *    moves forward by its speed every loop, and ProfileFollower turns
+ *    target speed and position into power (feedforward + kP), so the
+ *    wheels really do go the speed Ramsete asks for - even on a tired
+ *    battery
+ *
+ * Done When (like PathSequencer):
+ * - The plan has finished AND the robot is within about 1/4 inch of its
+ *   end, or
+ * - DriveSegment.MAX_SETTLE_SECONDS have passed since the plan finished
+ *
+ * A sideways error turns the robot toward the path, which is what a tank
+ * drive must do because it cannot slide sideways.
+ *
+ * Nothing is allocated in update(): the trajectory is tables, and the
+ * results are kept in fields.
+ */
+public class RamseteFollower {
+
+  public static final double DEFAULT_B = 2.0 / (39.37 * 39.37);   // The usual 2.0 per meter², in inches
+  public static final double DEFAULT_ZETA = 0.7;
+
+  // At the end the plan is standing still, which would make k zero; this
+  // keeps correcting so the robot still closes the last inches
+  private static final double MIN_GAIN = 2.0;                // 1/second
+  private static final double SETTLE_TOLERANCE_INCHES = DriveSegment.TOLERANCE_TICKS / DriveSim.TICKS_PER_INCH;
+
+  private final double b;
+  private final double zeta;
+  private final double trackWidth;
+  private final double ticksPerInch;
+  private final ProfileFollower feedforward;
+
+  private double leftTarget;    // Encoder ticks the wheels should be at
+  private double rightTarget;
+  private double lastSeconds;
+  private double leftPower;
+  private double rightPower;
+  private double alongError;
+  private double sideError;
+  private double headingError;
+
+  /**
+   * @param trackWidth   Distance between left and right wheels, inches
+   * @param ticksPerInch Encoder ticks per inch (feedforward gains are in ticks)
+   * @param feedforward  Turns each wheel's target speed and position into power
+   */
+  public RamseteFollower(double trackWidth, double ticksPerInch, ProfileFollower feedforward) {
+    this(DEFAULT_B, DEFAULT_ZETA, trackWidth, ticksPerInch, feedforward);
+  }
+
+  public RamseteFollower(double b, double zeta, double trackWidth, double ticksPerInch, ProfileFollower feedforward) {
+    this.b = b;
+    this.zeta = zeta;
+    this.trackWidth = trackWidth;
+    this.ticksPerInch = ticksPerInch;
+    this.feedforward = feedforward;
+  }
+
+  /**
+   * Call once, right before the first update(), with the current encoder positions.
+   */
+  public void start(double leftPosition, double rightPosition) {
+    leftTarget = leftPosition;
+    rightTarget = rightPosition;
+    lastSeconds = 0;
+  }
+
+  /**
+   * Works out both motor powers for this loop.
+   *
+   * @param seconds Time since the trajectory started
+   * @param x       Robot position from odometry, inches
+   * @param y       Robot position from odometry, inches
+   * @param heading Robot heading from odometry, radians
+   * @return true while the trajectory is still running (or settling)
+   */
+  public boolean update(Trajectory trajectory, double seconds, double x, double y, double heading,
+                        double leftPosition, double rightPosition) {
+    double dx = trajectory.x(seconds) - x;
+    double dy = trajectory.y(seconds) - y;
+    double cos = Math.cos(heading);
+    double sin = Math.sin(heading);
+    alongError = cos * dx + sin * dy;
+    sideError = -sin * dx + cos * dy;
+    headingError = PoseEstimator.angleWrap(trajectory.heading(seconds) - heading);
+
+    double v = trajectory.velocity(seconds);
+    double w = trajectory.angularVelocity(seconds);
+    double overtime = seconds - trajectory.totalSeconds();
+    double k = 2 * zeta * Math.sqrt(w * w + b * v * v);
+    if (overtime >= 0) {
+      k = Math.max(k, MIN_GAIN);
+    }
+    double sinc = Math.abs(headingError) < 1e-6 ? 1 : Math.sin(headingError) / headingError;
+    double velocity = v * Math.cos(headingError) + k * alongError;
+    double turnRate = w + k * headingError + b * v * sinc * sideError;
+
+    double a = trajectory.acceleration(seconds);
+    double alpha = trajectory.angularAcceleration(seconds);
+    double half = trackWidth / 2;
+    double leftVelocity = (velocity - turnRate * half) * ticksPerInch;
+    double rightVelocity = (velocity + turnRate * half) * ticksPerInch;
+    double dt = seconds - lastSeconds;
+    lastSeconds = seconds;
+    leftTarget += leftVelocity * dt;
+    rightTarget += rightVelocity * dt;
+    leftPower = feedforward.update(leftTarget, leftVelocity, (a - alpha * half) * ticksPerInch, leftPosition);
+    rightPower = feedforward.update(rightTarget, rightVelocity, (a + alpha * half) * ticksPerInch, rightPosition);
+    if (overtime < 0) {
+      return true;
+    }
+    return Math.abs(alongError) > SETTLE_TOLERANCE_INCHES && overtime < DriveSegment.MAX_SETTLE_SECONDS;
+  }
+
+  public double leftPower() {
+    return leftPower;
+  }
+
+  public double rightPower() {
+    return rightPower;
+  }
+
+  /** @return How far the planned pose was ahead of the robot last update, inches */
+  public double alongError() {
+    return alongError;
+  }
+
+  /** @return How far the planned pose was to the robot's left last update, inches */
+  public double sideError() {
+    return sideError;
+  }
+
+  /** @return Planned heading minus the robot's heading last update, radians */
+  public double headingError() {
+    return headingError;
+  }
+
+  // ===== BENCHMARK =====
+
+  /**
+   * Drives the StarterBot's parking move on DriveSim three ways and compares
+   * how long it takes and how close the robot ends to the planned pose:
+   * - stop-and-go:    back 12", spin, back 50" as three DriveSegments
+   * - wheels only:    one reversed spline to the same end pose, each wheel
+   *                   following its planned speed but nothing watching the pose
+   * - ramsete:        the same spline with Ramsete correcting the pose
+   * Each runs on a full battery, on a tired one (the plan assumes 12 V), and
+   * with a bump halfway that knocks the robot 10 degrees and 2 inches
+   * sideways. The pose here is the simulator's true pose, like a
+   * tag-corrected localizer with an IMU would see it.
+   *
+   * @return A table of times and end errors
+   */
+  public static String report(double loopSeconds) {
+    double ticksPerInch = DriveSim.TICKS_PER_INCH;
+    double trackWidth = 15;
+    double turn = 16 / trackWidth;   // autoDrive(0.5, -8, 8): each side 8", opposite ways
+    double endX = -12 - 50 * Math.cos(turn);
+    double endY = -50 * Math.sin(turn);
+    Trajectory trajectory = new Trajectory(new double[][] { { 0, 0, 0 }, { endX, endY, turn } }, true,
+        1400 / ticksPerInch, 5000 / ticksPerInch, 60, trackWidth, loopSeconds);
+    ProfileFollower follower = new ProfileFollower();
+
+    StringBuilder table = new StringBuilder(String.format("%-12s %7s %9s %9s %9s%n",
+        "drive", "test", "time", "end err", "heading"));
+    for (int test = 0; test < 3; test++) {
+      double volts = test == 1 ? 11 : 12;
+      boolean bump = test == 2;
+      String battery = bump ? "bump" : String.format("%.0f V", volts);
+      // Stop-and-go, exactly as parkCommand() did before trajectories
+      DriveSim stopAndGo = new DriveSim();
+      stopAndGo.setBatteryVoltage(volts);
+      double seconds = 0;
+      double[][] legs = { { 0.5, -12, -12 }, { 0.5, -8, 8 }, { 1.0, -50, -50 } };
+      for (double[] leg : legs) {
+        DriveSegment segment = new DriveSegment(follower, leg[1] * ticksPerInch, leg[2] * ticksPerInch,
+            leg[0] * 1600, 5000, false);
+        if (bump && leg == legs[2]) {
+          push(stopAndGo);   // Same moment as the trajectory: just into the long leg
+        }
+        seconds += DriveSim.profiled(stopAndGo, segment, leg[1] * ticksPerInch, leg[2] * ticksPerInch,
+            loopSeconds, 5).seconds;
+      }
+      table.append(row("stop-and-go", battery, seconds, stopAndGo, endX, endY, turn));
+
+      for (int pass = 0; pass < 2; pass++) {
+        RamseteFollower ramsete = pass == 0
+            ? new RamseteFollower(0, 0, trackWidth, ticksPerInch, follower)   // No pose correction
+            : new RamseteFollower(trackWidth, ticksPerInch, follower);
+        DriveSim sim = new DriveSim();
+        sim.setBatteryVoltage(volts);
+        double t = 0;
+        ramsete.start(sim.leftPosition(), sim.rightPosition());
+        while (ramsete.update(trajectory, t, sim.x(), sim.y(), sim.heading(), sim.leftPosition(), sim.rightPosition())) {
+          sim.setPower(ramsete.leftPower(), ramsete.rightPower());
+          sim.step(loopSeconds);
+          t += loopSeconds;
+          if (bump && Math.abs(t - trajectory.totalSeconds() / 2) < loopSeconds / 2) {
+            push(sim);
+          }
+        }
+        sim.setPower(0, 0);
+        for (double settle = 0; settle < 0.3; settle += loopSeconds) {
+          sim.step(loopSeconds);   // Let it coast to a stop
+        }
+        table.append(row(pass == 0 ? "wheels only" : "ramsete", battery, t, sim, endX, endY, turn));
+      }
+    }
+    table.append(String.format("planned trajectory: %.2f s, %d samples", trajectory.totalSeconds(),
+        trajectory.sampleCount()));
+    return table.toString();
+  }
+
+  private static void push(DriveSim sim) {
+    double side = sim.heading() + Math.PI / 2;
+    sim.push(2 * Math.cos(side), 2 * Math.sin(side), Math.toRadians(10));
+  }
+
+  private static String row(String name, String test, double seconds, DriveSim sim,
+                            double endX, double endY, double endHeading) {
+    return String.format("%-12s %7s %7.2f s %6.2f in %6.1f deg%n", name, test, seconds,
+        Math.hypot(endX - sim.x(), endY - sim.y()),
+        Math.toDegrees(PoseEstimator.angleWrap(endHeading - sim.heading())));
+  }
+}
@@ -0,0 +1,58 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Robot Clock - Where Timed Code Gets "Now" From
+ *
+ * Timed robot code (state machines, profilers, rate limiters) asks a RobotClock
+ * for the time instead of calling System.nanoTime() directly.
+ *
+ * Why not just use System.nanoTime()?
+ * - On the robot we do use it (RobotClock.SYSTEM)
+ * - In a test we use a Virtual clock and move time forward by hand, so a
+ *   2-second shooting sequence can be checked instantly with no hardware
+ *
+ * nanoTime() is monotonic: it never jumps backward, even if the Control Hub's
+ * wall-clock time is changed. That makes it safe for measuring durations.
+ */
+public interface RobotClock {
+
+  /**
+   * @return Current time in nanoseconds (only differences between calls are meaningful)
+   */
+  long nanoTime();
+
+  /** The real clock, used on the robot. */
+  RobotClock SYSTEM = new RobotClock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * Virtual Clock
+   *
+   * Time only moves when advance() is called, so tests and simulations run
+   * as fast as the computer allows.
+   */
+  class Virtual implements RobotClock {
+    private long now = 0;
+
+    @Override
+    public long nanoTime() {
+      return now;
+    }
+
+    public void advanceNanos(long nanos) {
+      now += nanos;
+    }
+
+    public void advanceMillis(double millis) {
+      now += (long) (millis * 1_000_000L);
+    }
+
+    public double seconds() {
+      return now / 1e9;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Shooter State Machine - Shooting Without sleep()
+ *
+ * The original shoot() method used three sleep() calls (about 2 seconds total).
+ * While sleep() runs, NOTHING else happens: no driving, no vision, no telemetry.
+ *
+ * This class does the same job one small step at a time. The OpMode calls
+ * update() once per loop; update() checks the clock and moves to the next step
+ * only when that step's time is up. Between steps it returns immediately, so the
+ * rest of the loop keeps running.
+ *
+ * Shot Cycle:
+ * IDLE → SPIN_UP → OPEN_GATE → SPIN → CLOSE_GATE → RECOVER → (next shot or IDLE)
+ *
+ * 0. SPIN_UP:    Start the flywheel and wait until it has run for spinUpMs
+ *                (skipped if it already has - see Pre-Spin below, and
+ *                skipped entirely when spinUpMs is 0)
+ * 1. OPEN_GATE:  Open the stopper
+ * 2. SPIN:       Wait gateOpenMs for one artifact to pass through
+ * 3. CLOSE_GATE: Close the stopper and wait gateCloseMs for it to seat
+ * 4. RECOVER:    Keep the flywheel spinning for recoverMs so it regains speed,
+ *                then start the next queued shot (or stop the wheel and go IDLE)
+ *
+ * Volleys:
+ * - requestShots(3) queues three shots
+ * - The flywheel stays on between queued shots, so each extra shot only costs
+ *   the gate time plus a short recovery instead of a full spin-up and settle
+ *
+ * Spin-Up Wait:
+ * The short constructors use a spinUpMs of 0, so a shot from rest opens the
+ * gate at once, as the TeleOp shoot() always has - the driver decides when
+ * the wheel is ready. Autonomous passes AUTO_SPIN_UP_MS, because there
+ * nobody is watching the wheel and a slow first shot misses.
+ *
+ * Pre-Spin:
+ * With a spin-up wait, a volley from rest spends spinUpMs waiting for the wheel before the first
+ * shot. While the robot is still driving to the shooting spot, call
+ * spinUpForArrival() every loop with the predicted seconds until it gets
+ * there: the wheel starts spinUpMs before arrival, so the first shot goes
+ * the moment the volley is requested. The wheel stays on until the volley
+ * ends or cancel() is called.
+ *
+ * This class never touches hardware. The OpMode reads gatePosition() and
+ * wheelPower() and sends them to the servo and motor. That is what makes it
+ * testable with a RobotClock.Virtual and no robot.
+ */
+public class ShooterStateMachine {
+
+  public enum State { IDLE, SPIN_UP, OPEN_GATE, SPIN, CLOSE_GATE, RECOVER }
+
+  // Stopper positions (see inititalSetup() in onbot.java)
+  public static final double GATE_OPEN = 0.0;
+  public static final double GATE_CLOSED = 0.2;
+
+  // Default timings in milliseconds
+  private static final long DEFAULT_GATE_OPEN_MS = 250;   // Time for one artifact to pass
+  private static final long DEFAULT_GATE_CLOSE_MS = 200;  // Time for the stopper to close
+  private static final long DEFAULT_RECOVER_MS = 300;     // Time for the flywheel to regain speed
+  private static final long DEFAULT_SPIN_UP_MS = 0;       // TeleOp: no wait, shoot when the driver says
+
+  // Autonomous spin-up wait: rest to ~90% speed (FlywheelSim at 0.8 power)
+  public static final long AUTO_SPIN_UP_MS = 1000;
+
+  private final RobotClock clock;
+  private final double shootPower;
+  private final long gateOpenNanos;
+  private final long gateCloseNanos;
+  private final long recoverNanos;
+  private final long spinUpNanos;
+
+  private State state = State.IDLE;
+  private long stateStartNanos;
+  private int shotsQueued = 0;
+  private int shotsFired = 0;
+  private double gatePosition = GATE_CLOSED;
+  private double wheelPower = 0;
+  private long wheelOnNanos;   // When the flywheel was last started from rest
+
+  public ShooterStateMachine(RobotClock clock, double shootPower) {
+    this(clock, shootPower, DEFAULT_GATE_OPEN_MS, DEFAULT_GATE_CLOSE_MS, DEFAULT_RECOVER_MS, DEFAULT_SPIN_UP_MS);
+  }
+
+  public ShooterStateMachine(RobotClock clock, double shootPower, long spinUpMs) {
+    this(clock, shootPower, DEFAULT_GATE_OPEN_MS, DEFAULT_GATE_CLOSE_MS, DEFAULT_RECOVER_MS, spinUpMs);
+  }
+
+  public ShooterStateMachine(RobotClock clock, double shootPower, long gateOpenMs, long gateCloseMs, long recoverMs) {
+    this(clock, shootPower, gateOpenMs, gateCloseMs, recoverMs, DEFAULT_SPIN_UP_MS);
+  }
+
+  public ShooterStateMachine(RobotClock clock, double shootPower, long gateOpenMs, long gateCloseMs, long recoverMs,
+                             long spinUpMs) {
+    this.clock = clock;
+    this.shootPower = shootPower;
+    this.gateOpenNanos = gateOpenMs * 1_000_000L;
+    this.gateCloseNanos = gateCloseMs * 1_000_000L;
+    this.recoverNanos = recoverMs * 1_000_000L;
+    this.spinUpNanos = spinUpMs * 1_000_000L;
+  }
+
+  /**
+   * Adds shots to the queue. If the shooter is idle, the first shot starts on the next update().
+   */
+  public void requestShots(int shots) {
+    shotsQueued += shots;
+  }
+
+  /**
+   * Starts the flywheel now, without shooting, so a later volley does not
+   * wait for it. Does nothing unless the shooter is idle with the wheel off.
+   */
+  public void preSpin() {
+    if (state == State.IDLE && wheelPower == 0) {
+      wheelPower = shootPower;
+      wheelOnNanos = clock.nanoTime();
+    }
+  }
+
+  /**
+   * Pre-spins once the robot is within the spin-up time of the shooting
+   * spot. Call every loop while driving there.
+   *
+   * @param secondsToArrival Predicted seconds until the robot is in place
+   */
+  public void spinUpForArrival(double secondsToArrival) {
+    if (secondsToArrival <= spinUpSeconds()) {
+      preSpin();
+    }
+  }
+
+  /**
+   * Advances the state machine. Call exactly once per loop.
+   *
+   * @return true while a shot is in progress or queued
+   */
+  public boolean update() {
+    long now = clock.nanoTime();
+    long elapsed = now - stateStartNanos;
+
+    switch (state) {
+      case IDLE:
+        if (shotsQueued > 0) {
+          enter(State.SPIN_UP, now);
+          if (wheelReady(now)) {
+            enter(State.OPEN_GATE, now);   // Pre-spun: no wait
+          }
+        }
+        break;
+      case SPIN_UP:
+        if (wheelReady(now)) {
+          enter(State.OPEN_GATE, now);
+        }
+        break;
+      case OPEN_GATE:
+        // Zero-length step: the commands were sent when we entered it
+        enter(State.SPIN, now);
+        break;
+      case SPIN:
+        if (elapsed >= gateOpenNanos) {
+          enter(State.CLOSE_GATE, now);
+        }
+        break;
+      case CLOSE_GATE:
+        if (elapsed >= gateCloseNanos) {
+          shotsQueued--;
+          shotsFired++;
+          enter(State.RECOVER, now);
+        }
+        break;
+      case RECOVER:
+        if (elapsed >= recoverNanos) {
+          enter(shotsQueued > 0 ? State.OPEN_GATE : State.IDLE, now);
+        }
+        break;
+    }
+    return isBusy();
+  }
+
+  private void enter(State next, long now) {
+    state = next;
+    stateStartNanos = now;
+    switch (next) {
+      case SPIN_UP:
+        if (wheelPower == 0) {
+          wheelOnNanos = now;
+        }
+        wheelPower = shootPower;
+        break;
+      case OPEN_GATE:
+        gatePosition = GATE_OPEN;
+        break;
+      case CLOSE_GATE:
+        gatePosition = GATE_CLOSED;
+        break;
+      case IDLE:
+        gatePosition = GATE_CLOSED;
+        wheelPower = 0;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private boolean wheelReady(long now) {
+    return now - wheelOnNanos >= spinUpNanos;
+  }
+
+  /**
+   * Cancels any queued shots and returns to IDLE with the gate closed and
+   * the flywheel off (this also ends a pre-spin).
+   */
+  public void cancel() {
+    shotsQueued = 0;
+    enter(State.IDLE, clock.nanoTime());
+  }
+
+  public boolean isBusy() {
+    return state != State.IDLE || shotsQueued > 0;
+  }
+
+  public State state() {
+    return state;
+  }
+
+  public int shotsFired() {
+    return shotsFired;
+  }
+
+  public double gatePosition() {
+    return gatePosition;
+  }
+
+  public double wheelPower() {
+    return wheelPower;
+  }
+
+  /** @return Time the flywheel needs from rest before the first shot */
+  public double spinUpSeconds() {
+    return spinUpNanos / 1e9;
+  }
+}
@@ -0,0 +1,157 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Shot Detector - Counting Shots From the Flywheel's Speed
+ *
+ * Every ball that goes through the flywheel steals some of its speed, so the
+ * velocity reading "dips" for a moment. This class watches for those dips to:
+ * - Count how many balls have actually been fired
+ * - Hold the feeder off after each shot until the wheel has recovered
+ *
+ * Why Not Just Compare Velocity to a Threshold?
+ * Velocity readings are noisy. When the reading wobbles around the threshold,
+ * the feeder switches on, off, on, off... ("chatter"). Instead this class:
+ * 1. Filters the velocity two ways (see below)
+ * 2. Uses separate rules to START feeding (wheel ready) and to STOP feeding
+ *    (a real dip happened), so small wobbles change nothing
+ *
+ * Filters:
+ * - Median of 3: throws away a single bad reading completely, but still
+ *   follows a real, sudden dip right away
+ * - EMA (exponential moving average): filtered += alpha * (median - filtered)
+ *   Smooth value for deciding when the wheel is ready and for telemetry.
+ *   Small alpha = smoother but slower; alpha = 1 turns the EMA off
+ *
+ * Dip Detection:
+ * A ball drops the speed within one or two loops, much faster than the wheel
+ * ever slows down on its own. So a shot is a median reading more than
+ * dipThreshold below the highest median of the last few loops. Looking back
+ * only a few loops means slow drift (battery sag, spin-up) never counts.
+ *
+ * States:
+ * SPINNING_UP → READY → RECOVERING → READY → ...
+ * - SPINNING_UP / RECOVERING: feeder off, wait for the wheel to be ready
+ * - READY: feeder on; a dip counts as one shot and moves to RECOVERING
+ *
+ * Nothing is allocated after construction, so this is safe to call every loop.
+ */
+public class ShotDetector {
+
+  public enum State { SPINNING_UP, READY, RECOVERING }
+
+  // How many loops back to look for the speed before a dip
+  private static final int DIP_WINDOW = 5;
+
+  private final double alpha;
+  private final double dipThreshold;
+
+  // Last three raw readings for the median filter
+  private double sample0, sample1, sample2;
+  private int samples = 0;
+  private double median = 0;
+  private double filtered = 0;
+
+  // Recent medians (ring buffer) for dip detection
+  private final double[] recent = new double[DIP_WINDOW];
+  private int recentIndex = 0;
+  private double recentPeak = 0;
+
+  private State state = State.SPINNING_UP;
+  private int shotCount = 0;
+
+  /**
+   * @param alpha        EMA smoothing factor, 0 to 1 (e.g. 0.5)
+   * @param dipThreshold Sudden drop in ticks/second that counts as a shot (e.g. 60)
+   */
+  public ShotDetector(double alpha, double dipThreshold) {
+    this.alpha = alpha;
+    this.dipThreshold = dipThreshold;
+  }
+
+  /**
+   * Adds a new velocity reading. Call once per loop, before update().
+   *
+   * @return The filtered velocity (ticks/second)
+   */
+  public double filter(double rawVelocity) {
+    sample2 = sample1;
+    sample1 = sample0;
+    sample0 = rawVelocity;
+    if (samples < 3) {
+      samples++;
+      median = rawVelocity;
+      filtered = rawVelocity;
+      forgetPeak();
+      return filtered;
+    }
+    median = Math.max(Math.min(sample0, sample1), Math.min(Math.max(sample0, sample1), sample2));
+    filtered += alpha * (median - filtered);
+
+    // Peak of the medians BEFORE this one, then remember this one
+    recentPeak = recent[0];
+    for (int i = 1; i < DIP_WINDOW; i++) {
+      recentPeak = Math.max(recentPeak, recent[i]);
+    }
+    recent[recentIndex] = median;
+    recentIndex = (recentIndex + 1) % DIP_WINDOW;
+    return filtered;
+  }
+
+  /**
+   * Advances the feeder state machine.
+   *
+   * @param wheelReady true if the flywheel is (or will be, when the ball arrives) up to speed
+   * @return true if the feeder should run this loop
+   */
+  public boolean update(boolean wheelReady) {
+    switch (state) {
+      case SPINNING_UP:
+      case RECOVERING:
+        if (wheelReady) {
+          state = State.READY;
+        }
+        break;
+      case READY:
+        if (median < recentPeak - dipThreshold) {
+          shotCount++;
+          state = State.RECOVERING;
+          // The same dip must not count again once the wheel is ready
+          forgetPeak();
+        }
+        break;
+    }
+    return state == State.READY;
+  }
+
+  private void forgetPeak() {
+    for (int i = 0; i < DIP_WINDOW; i++) {
+      recent[i] = median;
+    }
+    recentPeak = median;
+  }
+
+  public double filteredVelocity() {
+    return filtered;
+  }
+
+  public int shotCount() {
+    return shotCount;
+  }
+
+  public State state() {
+    return state;
+  }
+
+  /**
+   * Call when the flywheel is stopped. The next spin-up starts from SPINNING_UP.
+   * The shot count is kept; use resetCount() to clear it.
+   */
+  public void reset() {
+    state = State.SPINNING_UP;
+    samples = 0;
+  }
+
+  public void resetCount() {
+    shotCount = 0;
+  }
+}
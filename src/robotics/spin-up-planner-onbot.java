@@ -0,0 +1,268 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Spin-Up Planner - Flywheel at Speed the Moment the Robot Arrives
+ *
+ * "Drive to the spot, then shoot" puts the flywheel spin-up on the critical
+ * path: the robot arrives, then sits still while the wheel comes up to
+ * speed. The drive plan already says when the robot will arrive, so the
+ * wheel can be started that much earlier, while the robot is still moving.
+ *
+ * The OpMode passes the seconds until arrival to
+ * ShooterStateMachine.spinUpForArrival() every loop while driving:
+ * - A Trajectory (driveToGoal()) has a time plan: totalSeconds() - t
+ * - A closed-loop move like driveStraightTo(), whose power is
+ *   still-to-go * gain clamped between a minimum and a maximum power, has
+ *   none - secondsLeft() predicts it (a SpinUpPlanner is built with that
+ *   drive's numbers)
+ *
+ * Why predict instead of spinning the whole way?
+ * - A wheel started at the beginning of a long drive draws current while
+ *   the drive motors need it most, and wears for nothing
+ * - Started spin-up seconds before arrival, it is ready exactly on time
+ *
+ * timelineReport() plays MyFIRSTJavaOpMode's autoDrive() on DriveSim and
+ * FlywheelSim with and without pre-spinning and shows the seconds saved.
+ */
+public class SpinUpPlanner {
+
+  private final double gain;
+  private final double minPower;
+  private final double maxPower;
+  private final double tolerance;
+  private final double inchesPerSecond;
+  private final double lagSeconds;
+
+  /**
+   * Describes a proportional drive (power = remaining * gain, clamped to
+   * [minPower, maxPower], done within tolerance inches).
+   *
+   * @param inchesPerSecond Robot speed at full power
+   * @param lagSeconds      How far the robot's speed trails the power (its
+   *                        time constant); it coasts that much sooner to the
+   *                        end of every slow-down
+   */
+  public SpinUpPlanner(double gain, double minPower, double maxPower, double tolerance,
+                       double inchesPerSecond, double lagSeconds) {
+    this.gain = gain;
+    this.minPower = minPower;
+    this.maxPower = maxPower;
+    this.tolerance = tolerance;
+    this.inchesPerSecond = inchesPerSecond;
+    this.lagSeconds = lagSeconds;
+  }
+
+  /**
+   * Predicts the rest of a proportional move by following the same control
+   * law: full speed while the clamp holds, an exponential slow-down in the
+   * proportional range, then a crawl at minPower to the tolerance.
+   *
+   * @param remaining Inches still to go (either sign)
+   * @return Seconds until the move is within tolerance
+   */
+  public double secondsLeft(double remaining) {
+    double distance = Math.abs(remaining);
+    double knee = Math.max(tolerance, minPower / gain);   // Below this the power is minPower
+    double top = Math.max(knee, maxPower / gain);          // Above this the power is maxPower
+    double seconds = 0;
+    if (distance > top) {
+      seconds += (distance - top) / (maxPower * inchesPerSecond);
+      distance = top;
+    }
+    if (distance > knee) {
+      seconds += Math.log(distance / knee) / (gain * inchesPerSecond);
+      seconds -= lagSeconds;   // Still carrying speed from the last power into the slow-down
+      distance = knee;
+    }
+    if (distance > tolerance) {
+      seconds += (distance - tolerance) / (minPower * inchesPerSecond);
+    }
+    return Math.max(0, seconds);
+  }
+
+  // ===== TIMELINE REPORT =====
+
+  // MyFIRSTJavaOpMode's autonomous (see onbot.java), from its starting spot
+  private static final double[][] GOAL_WAYPOINTS = { { 0, 0, 0 }, { 45, 1.5, Math.toRadians(63) } };
+  private static final double TRACK_WIDTH_INCHES = 15;
+  private static final double LOADING_SPOT_INCHES = 48;
+  private static final double LOADING_SECONDS = 10;
+  private static final double DRIVE_GAIN = 0.05;
+  private static final double MIN_DRIVE_POWER = 0.15;
+  private static final double MAX_DRIVE_POWER = 1;
+  private static final double POSITION_TOLERANCE_INCHES = 1;
+  private static final double FULL_POWER_INCHES_PER_SECOND = 40;
+  private static final double DRIVE_LAG_SECONDS = 0.15;   // DriveSim's time constant
+  private static final double SHOOT_POWER = 0.8;
+  private static final long SPIN_UP_MS = 1000;
+
+  private static final double LOOP_SECONDS = 0.01;
+
+  private static final int NO_WAIT = 0;    // The old state machine: gate opens as the wheel starts
+  private static final int FROM_REST = 1;  // Waits spin-up at the shooting spot
+  private static final int PRE_SPIN = 2;   // Spins up on the way
+
+  /**
+   * Plays autoDrive() (drive to the goal, volley, loading spot and back,
+   * volley) three ways:
+   * - no wait:   the wheel starts with the gate open, as the shooter did
+   *              before SPIN_UP existed, so the first shots are slow
+   * - from rest: the volley waits for the wheel at the shooting spot
+   * - pre-spin:  the wheel starts spin-up seconds before arrival
+   *
+   * @return When each volley's first shot went, how fast the wheel was then
+   *         (percent of full speed), and what pre-spinning and waiting from
+   *         rest cost against the no-wait shooter
+   */
+  public static String timelineReport() {
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("MyFIRSTJavaOpMode autoDrive() - spin-up %.2f s at %.2f power%n",
+        SPIN_UP_MS / 1000.0, SHOOT_POWER));
+    report.append(String.format("%-10s %10s %7s %10s %7s %9s%n",
+        "flywheel", "1st volley", "speed", "2nd volley", "speed", "done"));
+    double[] noWait = null;
+    double[] fromRest = null;
+    double[] preSpin = null;
+    for (int mode = NO_WAIT; mode <= PRE_SPIN; mode++) {
+      double[] run = runAutoDrive(mode);
+      String name = mode == NO_WAIT ? "no wait" : mode == FROM_REST ? "from rest" : "pre-spin";
+      report.append(String.format("%-10s %8.2f s %6.0f%% %8.2f s %6.0f%% %7.2f s%n",
+          name, run[0], run[1], run[2], run[3], run[4]));
+      if (mode == NO_WAIT) {
+        noWait = run;
+      } else if (mode == FROM_REST) {
+        fromRest = run;
+      } else {
+        preSpin = run;
+      }
+    }
+    report.append(String.format("pre-spin vs no wait: %+.2f s (%+.2f s at the goal, %+.2f s after loading),"
+        + " first shots at %.0f%% instead of %.0f%% speed%n",
+        preSpin[4] - noWait[4], preSpin[0] - noWait[0],
+        (preSpin[2] - preSpin[0]) - (noWait[2] - noWait[0]), preSpin[1], noWait[1]));
+    report.append(String.format("waiting from rest instead would cost %+.2f s over no wait%n",
+        fromRest[4] - noWait[4]));
+    report.append(String.format("REVStarterBotTeleOpAutoJava doAutoBlue() - launches at START, before any drive: 0.00 s%n"));
+    return report.toString();
+  }
+
+  /**
+   * @return {1st volley time, its first shot's speed %, 2nd volley time, its
+   *         first shot's speed %, time the routine ended}
+   */
+  private static double[] runAutoDrive(int mode) {
+    Timeline timeline = new Timeline(mode == NO_WAIT ? 0 : SPIN_UP_MS);
+    SpinUpPlanner planner = new SpinUpPlanner(DRIVE_GAIN, MIN_DRIVE_POWER, MAX_DRIVE_POWER,
+        POSITION_TOLERANCE_INCHES, FULL_POWER_INCHES_PER_SECOND, DRIVE_LAG_SECONDS);
+    boolean preSpin = mode == PRE_SPIN;
+
+    // driveToGoal()
+    Trajectory toGoal = new Trajectory(GOAL_WAYPOINTS, false, 31, 110, 60, TRACK_WIDTH_INCHES, LOOP_SECONDS);
+    RamseteFollower ramsete = new RamseteFollower(TRACK_WIDTH_INCHES, DriveSim.TICKS_PER_INCH, new ProfileFollower());
+    double start = timeline.seconds();
+    ramsete.start(timeline.drive.leftPosition(), timeline.drive.rightPosition());
+    while (ramsete.update(toGoal, timeline.seconds() - start, timeline.drive.x(), timeline.drive.y(),
+        timeline.drive.heading(), timeline.drive.leftPosition(), timeline.drive.rightPosition())) {
+      timeline.drive.setPower(ramsete.leftPower(), ramsete.rightPower());
+      if (preSpin) {
+        timeline.shooter.spinUpForArrival(toGoal.totalSeconds() - (timeline.seconds() - start));
+      }
+      timeline.step();
+    }
+    timeline.drive.setPower(0, 0);
+    timeline.volley(3);
+
+    // driveToLoadingSpotAndBack()
+    double heading = timeline.drive.heading();
+    double shootX = timeline.drive.x();
+    double shootY = timeline.drive.y();
+    timeline.driveStraightTo(shootX - LOADING_SPOT_INCHES * Math.cos(heading),
+        shootY - LOADING_SPOT_INCHES * Math.sin(heading), null);
+    double loadingDone = timeline.seconds() + LOADING_SECONDS;
+    while (timeline.seconds() < loadingDone) {
+      timeline.step();
+    }
+    timeline.driveStraightTo(shootX, shootY, preSpin ? planner : null);
+    timeline.volley(3);
+
+    return new double[] { timeline.firstShotSeconds[0], timeline.firstShotSpeed[0],
+        timeline.firstShotSeconds[1], timeline.firstShotSpeed[1], timeline.seconds() };
+  }
+
+  /**
+   * The simulated robot: drive, flywheel and shooter sharing one virtual clock.
+   */
+  private static final class Timeline {
+    final RobotClock.Virtual clock = new RobotClock.Virtual();
+    final DriveSim drive = new DriveSim();
+    final FlywheelSim flywheel = new FlywheelSim();
+    final ShooterStateMachine shooter;
+    final double fullSpeed;
+    final double[] firstShotSeconds = new double[2];
+    final double[] firstShotSpeed = new double[2];
+    int volleys = 0;
+    int shotsAtVolleyStart = 0;
+
+    Timeline(long spinUpMs) {
+      shooter = new ShooterStateMachine(clock, SHOOT_POWER, 250, 200, 300, spinUpMs);
+      FlywheelSim steady = new FlywheelSim();
+      steady.setPower(SHOOT_POWER);
+      for (double t = 0; t < 5; t += LOOP_SECONDS) {
+        steady.step(LOOP_SECONDS);
+      }
+      fullSpeed = steady.velocity();
+    }
+
+    double seconds() {
+      return clock.seconds();
+    }
+
+    /** One loop: shooter, then physics, then the clock. */
+    void step() {
+      ShooterStateMachine.State before = shooter.state();
+      shooter.update();
+      if (before != ShooterStateMachine.State.SPIN && shooter.state() == ShooterStateMachine.State.SPIN) {
+        // The gate just opened: this artifact meets the wheel at its current speed
+        if (shooter.shotsFired() == shotsAtVolleyStart && volleys <= firstShotSeconds.length) {
+          firstShotSeconds[volleys - 1] = seconds();
+          firstShotSpeed[volleys - 1] = 100 * flywheel.velocity() / fullSpeed;
+        }
+        flywheel.launchBall();
+      }
+      flywheel.setPower(shooter.wheelPower());
+      flywheel.step(LOOP_SECONDS);
+      drive.step(LOOP_SECONDS);
+      clock.advanceNanos((long) (LOOP_SECONDS * 1e9));
+    }
+
+    /** shootThreeArtifacts() */
+    void volley(int shots) {
+      volleys++;
+      shotsAtVolleyStart = shooter.shotsFired();
+      shooter.requestShots(shots);
+      do {
+        step();
+      } while (shooter.isBusy());
+    }
+
+    /** driveStraightTo(), pre-spinning on the planner's prediction if there is one */
+    void driveStraightTo(double targetX, double targetY, SpinUpPlanner planner) {
+      double giveUp = seconds() + 3;
+      while (seconds() < giveUp) {
+        double heading = drive.heading();
+        double remaining = (targetX - drive.x()) * Math.cos(heading) + (targetY - drive.y()) * Math.sin(heading);
+        if (Math.abs(remaining) < POSITION_TOLERANCE_INCHES) {
+          break;
+        }
+        double power = Math.copySign(
+            Math.max(MIN_DRIVE_POWER, Math.min(MAX_DRIVE_POWER, Math.abs(remaining) * DRIVE_GAIN)), remaining);
+        drive.setPower(power, power);
+        if (planner != null) {
+          shooter.spinUpForArrival(planner.secondsLeft(remaining));
+        }
+        step();
+      }
+      drive.setPower(0, 0);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Starter Bot IO - Everything the StarterBot OpMode Asks of the Robot
+ *
+ * The OpMode never touches hardwareMap devices directly. It talks to a
+ * StarterBotIO, which can be:
+ * - StarterBot: the real motors and servo on the Control Hub (starter-bot-onbot.java)
+ * - StarterBotSim: a simulated robot on a virtual clock (starter-bot-sim-onbot.java),
+ *   so a whole match can run on a laptop in a fraction of a second
+ *
+ * Devices:
+ * - flywheel: launcher motor (velocity in encoder ticks/second)
+ * - feeder:   Core Hex motor that pushes balls into the flywheel
+ * - agitator: continuous rotation servo that stirs the hopper
+ * - drive:    left and right drive motors with encoders
+ * - imu:      the Control Hub's built-in IMU (yaw only)
+ *
+ * nextLoop():
+ * Every loop in the OpMode starts with robot.nextLoop() instead of
+ * opModeIsActive(). On the robot that is the same thing; in the simulator
+ * it is where time moves forward by one loop.
+ */
+public interface StarterBotIO {
+
+  /**
+   * Starts the next control loop.
+   *
+   * @return false once the OpMode should stop (STOP pressed, or the simulated period is over)
+   */
+  boolean nextLoop();
+
+  /** @return Flywheel velocity in ticks/second (like DcMotorEx.getVelocity()) */
+  double flywheelVelocity();
+
+  double flywheelPower();
+
+  void setFlywheelPower(double power);
+
+  void setFeederPower(double power);
+
+  void setAgitatorPower(double power);
+
+  void setDrivePower(double left, double right);
+
+  int leftPosition();
+
+  int rightPosition();
+
+  /** @return Left drive velocity in ticks/second (like DcMotorEx.getVelocity()) */
+  double leftVelocity();
+
+  double rightVelocity();
+
+  /**
+   * Drives both encoders to the given targets with RUN_TO_POSITION, no faster than power.
+   */
+  void runDriveToPosition(int leftTarget, int rightTarget, double power);
+
+  /** @return true while RUN_TO_POSITION is still moving either side */
+  boolean driveBusy();
+
+  /**
+   * Stops the drive and returns it to RUN_WITHOUT_ENCODER (plain setPower() driving).
+   */
+  void runDriveWithoutEncoder();
+
+  /**
+   * Reads the IMU (not part of the bulk read: call it only when it is needed).
+   *
+   * @return Yaw in radians, counter-clockwise positive
+   */
+  double heading();
+}
@@ -0,0 +1,251 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.rev.RevHubOrientationOnRobot;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.hardware.CRServo;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.IMU;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+/**
+ * Starter Bot - The Real Robot's Hardware, Set Up Once
+ *
+ * Both StarterBot OpModes (REVStarterBotTeleOpJava and
+ * REVStarterBotTeleOpAutoJava) drive the robot through this class instead
+ * of looking up and configuring the motors themselves.
+ *
+ * What It Does:
+ * - Looks up every device from the hardwareMap once, as DcMotorEx, so
+ *   nothing has to cast (DcMotorEx) flywheel later
+ * - Sets motor directions and modes the way the robot is built
+ * - Reads all four motors in one bulk read per loop (BulkReadCache);
+ *   nextLoop() marks the last loop's readings as stale
+ * - Sends every motor and servo power through a CachedActuator, which
+ *   skips the hub write when the power has not changed (within
+ *   WRITE_EPSILON) and resends it every REFRESH_SECONDS
+ * - Sets up the IMU only when the OpMode asks for it (heading hold), as
+ *   the SDK's universal IMU, so a BNO055 and a BHI260AP hub both work
+ *
+ * Why Skip Repeated Writes?
+ * Every setPower() is a round trip to the Control Hub, even if the power
+ * did not change. With no buttons pressed, TeleOp sends setPower(0) to the
+ * flywheel, feeder and agitator on every loop - three wasted round trips.
+ * writesSent() and writesSkipped() show how many were saved.
+ *
+ * The simulator (StarterBotSim) implements the same StarterBotIO, so the
+ * OpMode code cannot tell the two apart.
+ */
+public class StarterBot implements StarterBotIO {
+
+  // Motor order in the bulk-read snapshot
+  private static final int FLYWHEEL = 0;
+  private static final int CORE_HEX = 1;
+  private static final int LEFT_DRIVE = 2;
+  private static final int RIGHT_DRIVE = 3;
+
+  // Power changes this small are not sent; every power is resent this often
+  private static final double WRITE_EPSILON = 0.005;
+  private static final double REFRESH_SECONDS = 0.5;
+
+  private final LinearOpMode opMode;
+  private final DcMotorEx leftDrive;
+  private final DcMotorEx rightDrive;
+  private final BulkReadCache sensors;
+  private final IMU imu;   // The hub's own IMU, for heading hold; null if not asked for or missing
+
+  // Every power goes through these (see cached-actuator-onbot.java)
+  private final CachedActuator flywheelPower;
+  private final CachedActuator feederPower;
+  private final CachedActuator agitatorPower;
+  private final CachedActuator leftPower;
+  private final CachedActuator rightPower;
+
+  public StarterBot(LinearOpMode opMode) {
+    this(opMode, false);
+  }
+
+  /**
+   * @param useImu Look up and set up the IMU too. Leave it false when
+   *               nothing reads heading(), so INIT does not wait for it.
+   *               If there is no IMU named "imu", or it will not start,
+   *               hasImu() is false instead of INIT failing.
+   */
+  public StarterBot(LinearOpMode opMode, boolean useImu) {
+    this.opMode = opMode;
+    DcMotorEx flywheel = opMode.hardwareMap.get(DcMotorEx.class, "flywheel");
+    DcMotorEx coreHex = opMode.hardwareMap.get(DcMotorEx.class, "coreHex");
+    leftDrive = opMode.hardwareMap.get(DcMotorEx.class, "leftDrive");
+    CRServo servo = opMode.hardwareMap.get(CRServo.class, "servo");
+    rightDrive = opMode.hardwareMap.get(DcMotorEx.class, "rightDrive");
+
+    // Flywheel: FlywheelController does the velocity control in software
+    // RUN_WITHOUT_ENCODER passes our power straight through (the encoder still counts)
+    flywheel.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+    flywheel.setDirection(DcMotor.Direction.REVERSE);
+
+    // Reverse motors that are mounted backwards
+    coreHex.setDirection(DcMotor.Direction.REVERSE);
+    leftDrive.setDirection(DcMotor.Direction.REVERSE);
+
+    flywheelPower = CachedActuator.power(flywheel, RobotClock.SYSTEM, WRITE_EPSILON, REFRESH_SECONDS);
+    feederPower = CachedActuator.power(coreHex, RobotClock.SYSTEM, WRITE_EPSILON, REFRESH_SECONDS);
+    agitatorPower = CachedActuator.power(servo, RobotClock.SYSTEM, WRITE_EPSILON, REFRESH_SECONDS);
+    leftPower = CachedActuator.power(leftDrive, RobotClock.SYSTEM, WRITE_EPSILON, REFRESH_SECONDS);
+    rightPower = CachedActuator.power(rightDrive, RobotClock.SYSTEM, WRITE_EPSILON, REFRESH_SECONDS);
+
+    // Ensures the servo is active and ready (0 = stopped for continuous servo)
+    setAgitatorPower(0);
+
+    // Read all motors in one hub transaction per loop instead of one per getVelocity()
+    sensors = new BulkReadCache(new BulkReadCache.ControlHub(opMode.hardwareMap,
+        flywheel, coreHex, leftDrive, rightDrive));
+
+    // Every hub has an IMU, configured as "imu"; the yaw counts from here.
+    // The orientation is how the hub is mounted: logo up, USB ports forward
+    imu = useImu ? startImu(opMode) : null;
+  }
+
+  private static IMU startImu(LinearOpMode opMode) {
+    IMU found = opMode.hardwareMap.tryGet(IMU.class, "imu");
+    if (found == null || !found.initialize(new IMU.Parameters(new RevHubOrientationOnRobot(
+        RevHubOrientationOnRobot.LogoFacingDirection.UP, RevHubOrientationOnRobot.UsbFacingDirection.FORWARD)))) {
+      return null;
+    }
+    found.resetYaw();
+    return found;
+  }
+
+  /** @return true if the IMU was asked for and started, so heading() works */
+  public boolean hasImu() {
+    return imu != null;
+  }
+
+  /**
+   * Starts the next loop: last loop's readings are stale now, so the next
+   * read fetches a fresh snapshot.
+   */
+  @Override
+  public boolean nextLoop() {
+    sensors.invalidate();
+    return opMode.opModeIsActive();
+  }
+
+  // ===== READINGS (from the bulk-read snapshot) =====
+
+  @Override
+  public double flywheelVelocity() {
+    return sensors.velocity(FLYWHEEL);
+  }
+
+  /** @return The power last sent to the flywheel (no hub read) */
+  @Override
+  public double flywheelPower() {
+    return flywheelPower.value();
+  }
+
+  @Override
+  public int leftPosition() {
+    return sensors.position(LEFT_DRIVE);
+  }
+
+  @Override
+  public int rightPosition() {
+    return sensors.position(RIGHT_DRIVE);
+  }
+
+  @Override
+  public double leftVelocity() {
+    return sensors.velocity(LEFT_DRIVE);
+  }
+
+  @Override
+  public double rightVelocity() {
+    return sensors.velocity(RIGHT_DRIVE);
+  }
+
+  /**
+   * @return IMU yaw, read over I2C (a separate transaction, not in the bulk
+   *         read); NaN without an IMU (see hasImu())
+   */
+  @Override
+  public double heading() {
+    return imu == null ? Double.NaN : imu.getRobotYawPitchRollAngles().getYaw(AngleUnit.RADIANS);
+  }
+
+  /** @return Feeder encoder position (Core Hex, 288 ticks per revolution) */
+  public int feederPosition() {
+    return sensors.position(CORE_HEX);
+  }
+
+  // ===== COMMANDS (skipped when nothing changed) =====
+
+  @Override
+  public void setFlywheelPower(double power) {
+    flywheelPower.set(power);
+  }
+
+  @Override
+  public void setFeederPower(double power) {
+    feederPower.set(power);
+  }
+
+  @Override
+  public void setAgitatorPower(double power) {
+    agitatorPower.set(power);
+  }
+
+  @Override
+  public void setDrivePower(double left, double right) {
+    leftPower.set(left);
+    rightPower.set(right);
+  }
+
+  // ===== RUN_TO_POSITION =====
+  // Mode changes always go to the hub, and the powers are sent with them
+
+  @Override
+  public void runDriveToPosition(int leftTarget, int rightTarget, double power) {
+    leftDrive.setTargetPosition(leftTarget);
+    rightDrive.setTargetPosition(rightTarget);
+    leftDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+    rightDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+    leftPower.invalidate();
+    rightPower.invalidate();
+    setDrivePower(Math.abs(power), Math.abs(power));
+  }
+
+  /**
+   * The busy flags come from the bulk data. The snapshot is refreshed here
+   * first, so the flags are never from before the runDriveToPosition()
+   * that set them - and the SDK's MANUAL cache is cleared even in a loop
+   * where nothing else reads the motors. While RUN_TO_POSITION runs, this
+   * costs at most one extra bulk read per loop.
+   */
+  @Override
+  public boolean driveBusy() {
+    sensors.invalidate();
+    return sensors.busy(LEFT_DRIVE) || sensors.busy(RIGHT_DRIVE);
+  }
+
+  @Override
+  public void runDriveWithoutEncoder() {
+    setDrivePower(0, 0);
+    leftDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+    rightDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+  }
+
+  // ===== RESULTS =====
+
+  /** @return Actuator writes that went to the hub */
+  public long writesSent() {
+    return flywheelPower.issued() + feederPower.issued() + agitatorPower.issued()
+        + leftPower.issued() + rightPower.issued();
+  }
+
+  /** @return Actuator writes skipped because the value had not changed */
+  public long writesSkipped() {
+    return flywheelPower.suppressed() + feederPower.suppressed() + agitatorPower.suppressed()
+        + leftPower.suppressed() + rightPower.suppressed();
+  }
+}
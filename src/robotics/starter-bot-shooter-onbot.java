@@ -0,0 +1,163 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Starter Bot Shooter - Flywheel, Feeder and Agitator Working Together
+ *
+ * The shooting code both StarterBot OpModes use, so TeleOp, the combined
+ * OpMode's TeleOp and its autonomous all shoot the same way. It works on
+ * any StarterBotIO: the real robot (StarterBot) or StarterBotSim.
+ *
+ * Call one of these every loop:
+ * - bankShot() / farShot(): full automatic sequence (flywheel + agitator + feeder)
+ * - runAt(velocity): flywheel only, for manual spin-up
+ * - reverse(): flywheel backwards to clear a jam
+ * - stop(): flywheel off, ready for the next spin-up
+ *
+ * Software Velocity Control:
+ * - FlywheelController picks the power that holds a velocity
+ * - Feedforward predicts the power needed; PID corrects what is left over
+ * - Reacts faster than the motor's built-in setVelocity() during spin-up
+ *
+ * Why Wait for Velocity Before Feeding?
+ * - Feeding balls into a slow flywheel wastes shots (underpowered)
+ * - Creates inconsistent shot distance
+ * - May cause balls to jam in the mechanism
+ */
+public class StarterBotShooter {
+
+  // ===== FLYWHEEL VELOCITY CONSTANTS =====
+  // Setting our velocity targets. These values are in ticks per second!
+  // Motor encoders measure rotation in "ticks" - one full rotation = specific tick count
+  // Higher values = faster spin = farther shot distance
+  public static final double BANK_VELOCITY = 1300;   // Close-range shot (bank shot off backboard)
+  public static final double FAR_VELOCITY = 1900;    // Medium-range shot
+  public static final double MAX_VELOCITY = 2200;    // Maximum power shot
+
+  // How close (ticks/second) counts as "up to speed" before feeding
+  // Higher speeds have more PID oscillation, so the far shot allows more
+  public static final double BANK_TOLERANCE = 50;
+  public static final double FAR_TOLERANCE = 100;
+
+  // Time for a ball to travel from the Core Hex feeder to the flywheel (seconds)
+  // The feeder starts this far AHEAD of the flywheel reaching speed
+  public static final double FEED_LEAD_SECONDS = 0.15;
+
+  private final StarterBotIO robot;
+  // Software feedforward + PIDF velocity control (see flywheel-controller-onbot.java)
+  private final FlywheelController flywheelController;
+  // Filters flywheel velocity, counts shots, and holds the feeder until the wheel recovers
+  private final ShotDetector shotDetector = new ShotDetector(0.5, 60);
+
+  /**
+   * @param robot Real or simulated StarterBot
+   * @param clock Time source for the flywheel controller
+   */
+  public StarterBotShooter(StarterBotIO robot, RobotClock clock) {
+    this.robot = robot;
+    flywheelController = new FlywheelController(clock);
+  }
+
+  /**
+   * Bank Shot Automatic Sequence
+   *
+   * Close-range shot (touching the goal or a few inches away); the ball
+   * bounces off the backboard into the goal.
+   *
+   * 1. Spin the flywheel to BANK_VELOCITY
+   * 2. Run the agitator so balls do not jam in the hopper
+   * 3. Start the feeder FEED_LEAD_SECONDS before the wheel is within
+   *    BANK_TOLERANCE, so the ball arrives just as the wheel is ready
+   * 4. Stop feeding at each ball's velocity dip until the wheel recovers
+   *
+   * Runs continuously while called (can shoot multiple balls).
+   */
+  public void bankShot() {
+    shoot(BANK_VELOCITY, BANK_TOLERANCE);
+  }
+
+  /**
+   * Far Power Shot Automatic Sequence
+   *
+   * Same as bankShot(), at FAR_VELOCITY with FAR_TOLERANCE, for shots from
+   * several feet away. May need the deflector angle adjusted; test the
+   * distance in practice to dial in the velocity.
+   */
+  public void farShot() {
+    shoot(FAR_VELOCITY, FAR_TOLERANCE);
+  }
+
+  private void shoot(double targetVelocity, double tolerance) {
+    // One reading per loop, shared by the controller and the feeder decision
+    double velocity = robot.flywheelVelocity();
+    runAt(targetVelocity, velocity);
+
+    // Always run agitator while shooting
+    robot.setAgitatorPower(-1);
+
+    // Smart feeder control: feed when the ball will arrive at a ready flywheel
+    feedWhenReady(targetVelocity, velocity, tolerance);
+  }
+
+  /**
+   * Feeder Control With Shot Detection
+   *
+   * 1. Filter the flywheel velocity (ignores single noisy readings)
+   * 2. Ask the flywheel controller if a ball fed now would reach a ready wheel
+   * 3. ShotDetector turns that into a steady on/off decision:
+   *    - Turns the feeder ON once the wheel is ready
+   *    - Keeps it on until a ball's velocity dip is seen (one shot counted)
+   *    - Keeps it OFF until the wheel has recovered again
+   *
+   * This stops the feeder from chattering on and off when the velocity
+   * reading wobbles around the threshold.
+   */
+  private void feedWhenReady(double targetVelocity, double rawVelocity, double tolerance) {
+    double velocity = shotDetector.filter(rawVelocity);
+    boolean wheelReady = flywheelController.readyWithin(targetVelocity, velocity, tolerance, FEED_LEAD_SECONDS);
+    if (shotDetector.update(wheelReady)) {
+      robot.setFeederPower(1);  // Feed balls at full speed
+    } else {
+      robot.setFeederPower(0);  // Wait for flywheel to spin up or recover
+    }
+  }
+
+  /**
+   * Run Flywheel at a Velocity
+   *
+   * Sends the power FlywheelController calculates for this loop.
+   * Must be called every loop while the flywheel should hold this speed.
+   *
+   * @param targetVelocity Desired speed in ticks/second
+   */
+  public void runAt(double targetVelocity) {
+    runAt(targetVelocity, robot.flywheelVelocity());
+  }
+
+  private void runAt(double targetVelocity, double measuredVelocity) {
+    robot.setFlywheelPower(flywheelController.update(targetVelocity, measuredVelocity));
+  }
+
+  /** Runs the flywheel backwards (clears jammed balls). */
+  public void reverse() {
+    stop();
+    robot.setFlywheelPower(-0.5);
+  }
+
+  /**
+   * Cuts flywheel power and resets the controller and shot detector for the next spin-up.
+   */
+  public void stop() {
+    flywheelController.reset();
+    shotDetector.reset();
+    robot.setFlywheelPower(0);
+  }
+
+  /** @return Shots counted since the last resetCount() */
+  public int shotCount() {
+    return shotDetector.shotCount();
+  }
+
+  public void resetCount() {
+    shotDetector.resetCount();
+  }
+}
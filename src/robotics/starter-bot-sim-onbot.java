@@ -0,0 +1,1030 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Random;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Starter Bot Simulator - Run the Real OpMode Code Without a Robot
+ *
+ * A virtual StarterBot that REVStarterBotTeleOpAutoJava can drive through
+ * StarterBotIO. Nothing here talks to hardware, and time only moves when the
+ * OpMode starts a new loop, so a full 2:30 match finishes in a few hundredths
+ * of a second on a laptop - and the same seed always gives the same match.
+ *
+ * What Is Simulated (every physicsSeconds, several steps per loop):
+ * - Drivetrain: DriveSim - two motors with battery voltage, inertia and
+ *   friction, encoder ticks, RUN_TO_POSITION, and the robot's x/y/heading.
+ *   Its encoders, velocities and busy flags are read the way StarterBot
+ *   reads them: through a BulkReadCache snapshot (see DriveHub)
+ * - Flywheel: FlywheelSim - motor back-EMF, wheel inertia, and a speed dip
+ *   for every ball launched; getVelocity() readings get a little noise
+ * - Feeder (Core Hex): a MotorModel; each ball needs FEED_TICKS_PER_BALL of
+ *   forward feeder travel to reach the flywheel
+ * - Agitator (CR servo): a ServoModel that slews toward the commanded speed
+ * - Battery (setBatteryResistance()): every motor runs on the battery's
+ *   voltage after its internal resistance, so current drawn by the drive
+ *   sags the flywheel too. Ideal (no sag) unless a resistance is set
+ *
+ * How a Loop Works:
+ * 1. The OpMode calls robot.nextLoop()
+ * 2. The simulator runs the physics for one loop (loopSeconds) and moves the
+ *    virtual clock forward by the same amount
+ * 3. The Driver (if any) sets this loop's gamepad buttons and sticks
+ * 4. nextLoop() returns false once the period (auto or TeleOp) is over
+ *
+ * match() plays a 30-second autonomous and a 2-minute TeleOp with a
+ * scripted driver; report() times a batch of matches.
+ */
+public class StarterBotSim implements StarterBotIO, PoseEstimator.Sensors {
+
+  public static final double AUTO_SECONDS = 30;
+  public static final double TELEOP_SECONDS = 120;
+
+  private static final double VELOCITY_NOISE = 15;            // ticks/second, like getVelocity() jitter
+  private static final double FEED_TICKS_PER_BALL = 90;       // Feeder travel from hopper to flywheel
+  private static final int HUMAN_PLAYER_BALLS = 3;            // Balls per refill in TeleOp
+  private static final double HUMAN_PLAYER_SECONDS = 5;       // Hopper empty this long before a refill
+
+  /**
+   * Sets the gamepad for each loop, like a driver holding the controller.
+   */
+  public interface Driver {
+    /**
+     * @param periodSeconds Seconds since the start of TeleOp
+     * @param gamepad       The OpMode's gamepad1 - set buttons and sticks here
+     * @param robot         The simulated robot (e.g. to check how many balls are left)
+     */
+    void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot);
+  }
+
+  // ===== SIMPLE DEVICE MODELS =====
+
+  /**
+   * DC Motor Model
+   *
+   * The speed moves toward power * volts/12 * free speed with a time constant
+   * (the motor and its load take time to speed up), and the encoder counts
+   * the ticks turned.
+   */
+  public static final class MotorModel {
+    private final double freeSpeed;       // ticks/second at full power, 12 V
+    private final double timeConstant;    // seconds
+    private double power = 0;
+    private double velocity = 0;
+    private double position = 0;
+
+    public MotorModel(double freeSpeed, double timeConstant) {
+      this.freeSpeed = freeSpeed;
+      this.timeConstant = timeConstant;
+    }
+
+    public void setPower(double power) {
+      this.power = Math.max(-1.0, Math.min(1.0, power));
+    }
+
+    public void step(double dt, double volts) {
+      velocity += (power * volts / 12.0 * freeSpeed - velocity) / timeConstant * dt;
+      position += velocity * dt;
+    }
+
+    public double power() {
+      return power;
+    }
+
+    public double velocity() {
+      return velocity;
+    }
+
+    public int position() {
+      return (int) Math.round(position);
+    }
+  }
+
+  /**
+   * Servo Model
+   *
+   * A continuous rotation servo cannot change speed instantly: its output
+   * slews toward the commanded power at no more than slewPerSecond.
+   */
+  public static final class ServoModel {
+    private final double slewPerSecond;
+    private double command = 0;
+    private double output = 0;
+
+    public ServoModel(double slewPerSecond) {
+      this.slewPerSecond = slewPerSecond;
+    }
+
+    public void setPower(double power) {
+      command = Math.max(-1.0, Math.min(1.0, power));
+    }
+
+    public void step(double dt) {
+      double change = command - output;
+      double limit = slewPerSecond * dt;
+      output += Math.max(-limit, Math.min(limit, change));
+    }
+
+    /** @return The servo's actual speed (-1 to 1) */
+    public double output() {
+      return output;
+    }
+  }
+
+  private final RobotClock.Virtual clock = new RobotClock.Virtual();
+  private final double loopSeconds;
+  private final double physicsSeconds;
+  private final Random noise;
+  private final DriveSim drive = new DriveSim();
+  private final FlywheelSim flywheel = new FlywheelSim();
+  private final MotorModel feeder = new MotorModel(600, 0.05);   // Core Hex: 125 RPM, 288 ticks/rev
+  private final ServoModel agitator = new ServoModel(10);        // Full reverse to full forward in 0.2 s
+  private final BulkReadCache driveSensors = new BulkReadCache(new DriveHub());
+  private double volts = 12.0;                 // Battery voltage with no load
+  private double batteryOhms = 0;               // Internal resistance + wiring (0: ideal battery)
+  private double batteryVolts = 12.0;           // What the motors get after the sag
+  private double lowestBatteryVolts = 12.0;
+
+  private Gamepad gamepad = new Gamepad();
+  private Driver driver;
+  private REVStarterBotTeleOpAutoJava opMode;
+  private long periodStartNanos;
+  private long periodEndNanos;
+  private String routine;          // Autonomous routine text for the OpMode (null: its built-in one)
+  private Boolean headingHold;     // TeleOp heading hold for the OpMode (null: its default)
+  private Boolean driveOutput;     // TeleOp drive output stage for the OpMode (null: its default)
+  private Boolean motionProfile;   // Autonomous motion profile for the OpMode (null: its default)
+  private boolean staleBusy;       // driveBusy() answers like isBusy() on an uncleared cache (see runToPositionReport())
+  private boolean lastReadBusy;    // The busy flag in the drive's last bulk read
+  private double opModeSeconds;    // When the last period's OpMode returned
+
+  private int ballsInHopper = 0;
+  private boolean humanPlayer = false;
+  private double emptySeconds = 0;
+  private int ballsFired = 0;
+  private int autoBallsFired = 0;
+  private double feedTicks = 0;
+  private long loops = 0;
+  private long firstWriteNanos = -1;   // System.nanoTime() of the first motor write (see startGapReport())
+
+  /**
+   * @param loopSeconds    Time per OpMode loop (e.g. 0.01 s)
+   * @param physicsSeconds Physics step, a fraction of a loop (e.g. 0.001 s)
+   * @param seed           Random seed for sensor noise (same seed = same match)
+   */
+  public StarterBotSim(double loopSeconds, double physicsSeconds, long seed) {
+    this.loopSeconds = loopSeconds;
+    this.physicsSeconds = physicsSeconds;
+    this.noise = new Random(seed);
+  }
+
+  public void setBatteryVoltage(double volts) {
+    this.volts = volts;
+    batteryVolts = volts;
+    lowestBatteryVolts = volts;
+    drive.setBatteryVoltage(volts);
+    flywheel.setBatteryVoltage(volts);
+  }
+
+  /**
+   * Gives the battery an internal resistance: the voltage the motors get is
+   * the battery voltage minus ohms * the current the drive and flywheel draw
+   * (the Core Hex and the servo draw little and are left out). A fresh FTC
+   * battery with its wiring and fuse is around 0.1 ohm.
+   */
+  public void setBatteryResistance(double ohms) {
+    batteryOhms = ohms;
+  }
+
+  /** The human player drops balls into the hopper. */
+  public void loadBalls(int balls) {
+    ballsInHopper += balls;
+  }
+
+  /**
+   * With the human player on, the hopper is refilled with HUMAN_PLAYER_BALLS
+   * once it has been empty for HUMAN_PLAYER_SECONDS, no matter what the
+   * driver does - so a scripted driver and a replayed recording get the
+   * same balls.
+   */
+  public void setHumanPlayer(boolean on) {
+    humanPlayer = on;
+    emptySeconds = 0;
+  }
+
+  /**
+   * Gives every following period's OpMode this autonomous routine instead
+   * of its built-in one (see auto-routine-onbot.java), the way a routine
+   * file on the robot does.
+   */
+  public void setAutoRoutine(String routine) {
+    this.routine = routine;
+  }
+
+  /** Turns heading hold on or off in every following period's OpMode. */
+  public void setHeadingHold(boolean on) {
+    headingHold = on;
+  }
+
+  /** Turns the drive output stage on or off in every following period's OpMode. */
+  public void setDriveOutput(boolean on) {
+    driveOutput = on;
+  }
+
+  /** false: every following period's autonomous drives with RUN_TO_POSITION. */
+  public void setMotionProfile(boolean on) {
+    motionProfile = on;
+  }
+
+  // ===== RUNNING OPMODES =====
+
+  /**
+   * Runs one period of the OpMode on this robot.
+   *
+   * A fresh OpMode is created (like pressing INIT and START on the Driver
+   * Station), given a quiet telemetry and this simulator's gamepad, and run
+   * until it returns or the period is over. If it returns early, the robot
+   * sits still (motors off) until the end of the period.
+   *
+   * @param operation REVStarterBotTeleOpAutoJava.TELEOP, AUTO_BLUE or AUTO_RED
+   * @param seconds   Length of the period
+   * @param driver    Gamepad script, or null for hands off (autonomous)
+   */
+  public void runPeriod(String operation, double seconds, Driver driver) {
+    startPeriod(seconds, driver);
+    opMode.runMatch(this, clock, operation);
+    opModeSeconds = (clock.nanoTime() - periodStartNanos) / 1e9;
+    endPeriod();
+  }
+
+  /** Creates the period's OpMode (INIT pressed); the caller runs it. */
+  private void startPeriod(double seconds, Driver driver) {
+    this.driver = driver;
+    gamepad = new Gamepad();
+    periodStartNanos = clock.nanoTime();
+    periodEndNanos = periodStartNanos + Math.round(seconds * 1e9);
+
+    opMode = new REVStarterBotTeleOpAutoJava();
+    opMode.gamepad1 = gamepad;
+    opMode.telemetry = quietTelemetry();
+    if (routine != null) {
+      opMode.setRoutine(routine, "StarterBotSim");
+    }
+    if (headingHold != null) {
+      opMode.setHeadingHold(headingHold);
+    }
+    if (driveOutput != null) {
+      opMode.setDriveOutput(driveOutput);
+    }
+    if (motionProfile != null) {
+      opMode.setMotionProfile(motionProfile);
+    }
+  }
+
+  /** The OpMode has returned: motors off, then sit out the rest of the period. */
+  private void endPeriod() {
+    // The SDK stops every motor when an OpMode ends
+    setFlywheelPower(0);
+    setFeederPower(0);
+    setAgitatorPower(0);
+    runDriveWithoutEncoder();
+    this.driver = null;
+    while (nextLoop()) {
+      // Wait out the rest of the period
+    }
+  }
+
+  // ===== STARTERBOTIO =====
+
+  @Override
+  public boolean nextLoop() {
+    driveSensors.invalidate();
+    if (clock.nanoTime() - periodEndNanos >= 0) {
+      return false;
+    }
+    int steps = (int) Math.round(loopSeconds / physicsSeconds);
+    for (int step = 0; step < steps; step++) {
+      stepPhysics(physicsSeconds);
+    }
+    clock.advanceNanos(Math.round(loopSeconds * 1e9));
+    loops++;
+    if (humanPlayer) {
+      emptySeconds = ballsInHopper == 0 ? emptySeconds + loopSeconds : 0;
+      if (emptySeconds >= HUMAN_PLAYER_SECONDS) {
+        loadBalls(HUMAN_PLAYER_BALLS);
+      }
+    }
+    if (driver != null) {
+      driver.update((clock.nanoTime() - periodStartNanos) / 1e9, gamepad, this);
+    }
+    return true;
+  }
+
+  private void stepPhysics(double dt) {
+    if (batteryOhms > 0) {
+      // The current of the last step sags the voltage for this one
+      double amps = drive.batteryAmps() + Math.abs(flywheel.power()) * flywheel.currentAmps();
+      batteryVolts = volts - batteryOhms * amps;
+      lowestBatteryVolts = Math.min(lowestBatteryVolts, batteryVolts);
+      drive.setBatteryVoltage(batteryVolts);
+      flywheel.setBatteryVoltage(batteryVolts);
+    }
+    drive.step(dt);
+    flywheel.step(dt);
+    feeder.step(dt, batteryVolts);
+    agitator.step(dt);
+
+    // Balls move toward the flywheel while the feeder turns forward
+    if (ballsInHopper > 0) {
+      feedTicks = Math.max(0, feedTicks + feeder.velocity() * dt);
+      if (feedTicks >= FEED_TICKS_PER_BALL) {
+        flywheel.launchBall();
+        ballsInHopper--;
+        ballsFired++;
+        feedTicks = 0;
+      }
+    }
+  }
+
+  @Override
+  public double flywheelVelocity() {
+    return flywheel.velocity() + noise.nextGaussian() * VELOCITY_NOISE;
+  }
+
+  @Override
+  public double flywheelPower() {
+    return flywheel.power();
+  }
+
+  @Override
+  public void setFlywheelPower(double power) {
+    noteMotorWrite();
+    flywheel.setPower(power);
+  }
+
+  @Override
+  public void setFeederPower(double power) {
+    noteMotorWrite();
+    feeder.setPower(power);
+  }
+
+  @Override
+  public void setAgitatorPower(double power) {
+    noteMotorWrite();
+    agitator.setPower(power);
+  }
+
+  @Override
+  public void setDrivePower(double left, double right) {
+    noteMotorWrite();
+    drive.setPower(left, right);
+  }
+
+  @Override
+  public int leftPosition() {
+    return driveSensors.position(DriveHub.LEFT);
+  }
+
+  @Override
+  public double leftVelocity() {
+    return driveSensors.velocity(DriveHub.LEFT);
+  }
+
+  @Override
+  public double rightVelocity() {
+    return driveSensors.velocity(DriveHub.RIGHT);
+  }
+
+  @Override
+  public int rightPosition() {
+    return driveSensors.position(DriveHub.RIGHT);
+  }
+
+  @Override
+  public void runDriveToPosition(int leftTarget, int rightTarget, double power) {
+    noteMotorWrite();
+    drive.runToPosition(leftTarget, rightTarget, power);
+  }
+
+  /**
+   * Same as StarterBot.driveBusy(): a fresh snapshot, then its busy flags.
+   * With staleBusy set it answers from whatever bulk read happened last,
+   * without reading - what isBusy() does when the MANUAL cache is never
+   * cleared, the bug the fresh read fixes.
+   */
+  @Override
+  public boolean driveBusy() {
+    if (staleBusy) {
+      return lastReadBusy;
+    }
+    driveSensors.invalidate();
+    return driveSensors.busy(DriveHub.LEFT) || driveSensors.busy(DriveHub.RIGHT);
+  }
+
+  @Override
+  public void runDriveWithoutEncoder() {
+    drive.runWithoutEncoder();
+    drive.setPower(0, 0);
+  }
+
+  /**
+   * The drive motors as a Control Hub in MANUAL bulk caching mode: readAll()
+   * copies both encoders, velocities and the busy flag as they are right
+   * now, and nothing changes in the snapshot until it is read again.
+   */
+  private final class DriveHub implements BulkReadCache.Hub {
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+
+    @Override
+    public int motorCount() {
+      return 2;
+    }
+
+    @Override
+    public void readAll(int[] positions, double[] velocities, boolean[] busy) {
+      positions[LEFT] = drive.leftPosition();
+      positions[RIGHT] = drive.rightPosition();
+      velocities[LEFT] = drive.leftVelocity();
+      velocities[RIGHT] = drive.rightVelocity();
+      busy[LEFT] = drive.isBusy();   // DriveSim's flag covers both sides
+      busy[RIGHT] = busy[LEFT];
+      lastReadBusy = busy[LEFT];
+    }
+  }
+
+  private void noteMotorWrite() {
+    if (firstWriteNanos < 0) {
+      firstWriteNanos = System.nanoTime();
+    }
+  }
+
+  /** @return Heading from a perfect IMU, read without delay (for heading hold and PoseEstimator) */
+  @Override
+  public double heading() {
+    return drive.heading();
+  }
+
+  // ===== RESULTS =====
+
+  public RobotClock.Virtual clock() {
+    return clock;
+  }
+
+  public DriveSim drive() {
+    return drive;
+  }
+
+  public int ballsFired() {
+    return ballsFired;
+  }
+
+  public int ballsInHopper() {
+    return ballsInHopper;
+  }
+
+  public long loops() {
+    return loops;
+  }
+
+  /** @return Lowest voltage the motors got so far (see setBatteryResistance()) */
+  public double lowestBatteryVolts() {
+    return lowestBatteryVolts;
+  }
+
+  /** @return Seconds into the last period when its OpMode returned (autonomous: the routine was done) */
+  public double opModeSeconds() {
+    return opModeSeconds;
+  }
+
+  /** @return The OpMode of the last period (e.g. for its gamepad recording) */
+  public REVStarterBotTeleOpAutoJava opMode() {
+    return opMode;
+  }
+
+  /** @return A one-line summary of the match so far */
+  public String summary() {
+    return String.format("%.0f s, %d loops: auto fired %d, TeleOp fired %d, robot at (%.1f\", %.1f\")",
+        clock.seconds(), loops, autoBallsFired, ballsFired - autoBallsFired, drive.x(), drive.y());
+  }
+
+  // ===== FULL MATCH =====
+
+  /**
+   * TeleOp Script
+   *
+   * A 15-second cycle, repeated for all of TeleOp:
+   * - 0-2 s: drive forward to the goal, 2-2.5 s: turn to face it
+   * - 2.5-7.5 s: hold RIGHT BUMPER (automatic bank shot)
+   * - 7.5-8 s: turn back, 8-10 s: drive back to the loading zone
+   * - 10-15 s: agitate with DPAD LEFT while the human player refills the
+   *   hopper (see setHumanPlayer())
+   */
+  public static final Driver SCRIPTED_DRIVER = new Driver() {
+    @Override
+    public void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot) {
+      double t = periodSeconds % 15;
+      gamepad.left_stick_y = t < 2 ? -1 : (t >= 8 && t < 10) ? 1 : 0;
+      gamepad.right_stick_x = (t >= 2 && t < 2.5) ? 0.6f : (t >= 7.5 && t < 8) ? -0.6f : 0;
+      gamepad.right_bumper = t >= 2.5 && t < 7.5;
+      gamepad.dpad_left = t >= 10;
+    }
+  };
+
+  /**
+   * Plays a full match: AUTO BLUE with 3 preloads, then TeleOp with the
+   * driver and the human player.
+   *
+   * @return A one-line summary of the match
+   */
+  public static String match(Driver driver, long seed) {
+    return match(driver, seed, 12.0);
+  }
+
+  /**
+   * Same as match(driver, seed), on a battery at the given voltage.
+   */
+  public static String match(Driver driver, long seed, double volts) {
+    return playMatch(driver, seed, volts).summary();
+  }
+
+  /**
+   * Same as match(driver, seed, volts), but returns the simulator so the
+   * results (or the OpMode's gamepad recording) can be examined.
+   */
+  public static StarterBotSim playMatch(Driver driver, long seed, double volts) {
+    StarterBotSim sim = new StarterBotSim(0.01, 0.001, seed);
+    sim.setBatteryVoltage(volts);
+    sim.loadBalls(3);
+    sim.runPeriod(REVStarterBotTeleOpAutoJava.AUTO_BLUE, AUTO_SECONDS, null);
+    sim.autoBallsFired = sim.ballsFired();
+    sim.setHumanPlayer(true);
+    sim.runPeriod(REVStarterBotTeleOpAutoJava.TELEOP, TELEOP_SECONDS, driver);
+    return sim;
+  }
+
+  /**
+   * Plays a batch of full matches and measures how long each takes on this computer.
+   *
+   * @return The first match's summary plus the average time per match
+   */
+  public static String report(int matches) {
+    String first = match(SCRIPTED_DRIVER, 1);   // Also warms up the JIT
+    long start = System.nanoTime();
+    for (int seed = 1; seed <= matches; seed++) {
+      match(SCRIPTED_DRIVER, seed);
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / matches;
+    return String.format("%s%n%d matches: %.1f ms per 2:30 match (%.0fx real time)",
+        first, matches, millis, (AUTO_SECONDS + TELEOP_SECONDS) * 1000 / millis);
+  }
+
+  /**
+   * Runs each routine as AUTO BLUE and AUTO RED with 3 pre-loads, to
+   * compare routines (or versions of one) without touching the robot.
+   *
+   * @param names    A short name for each routine
+   * @param routines The routine texts
+   * @return One line per routine and alliance: when it was done, shots,
+   *         and where the robot ended; plus any routine that had a mistake
+   *         (the OpMode ran its built-in routine instead)
+   */
+  public static String routineReport(String[] names, String[] routines) {
+    StringBuilder report = new StringBuilder(String.format("%-14s %-9s %7s %5s %7s %7s %7s%n",
+        "routine", "alliance", "done", "shots", "x", "y", "heading"));
+    for (int i = 0; i < routines.length; i++) {
+      for (String operation : new String[] { REVStarterBotTeleOpAutoJava.AUTO_BLUE, REVStarterBotTeleOpAutoJava.AUTO_RED }) {
+        StarterBotSim sim = new StarterBotSim(0.01, 0.001, 1);
+        sim.loadBalls(3);
+        sim.setAutoRoutine(routines[i]);
+        sim.runPeriod(operation, AUTO_SECONDS, null);
+        report.append(String.format("%-14s %-9s %5.2f s %5d %6.1f\" %6.1f\" %5.1f deg%n",
+            names[i], operation.trim(), sim.opModeSeconds(), sim.ballsFired(),
+            sim.drive.x(), sim.drive.y(), Math.toDegrees(sim.drive.heading())));
+        if (operation.equals(REVStarterBotTeleOpAutoJava.AUTO_RED) && !sim.opMode.routineSource().equals("StarterBotSim")) {
+          report.append("  ").append(names[i]).append(": ").append(sim.opMode.routineSource()).append('\n');
+        }
+      }
+    }
+    return report.toString();
+  }
+
+  // The built-in moves as separate steps, so each one is its own autoDrive()
+  private static final String STOP_AND_GO_ROUTINE = ""
+      + "alliance blue\n"
+      + "shoot 3 10\n"
+      + "drive 0.5 -12\n"
+      + "turn 0.5 61.1\n"
+      + "drive 1 -50\n";
+
+  /**
+   * Runs AUTO BLUE's moves one at a time, once motion profiled and once
+   * with RUN_TO_POSITION. A RUN_TO_POSITION move ends when driveBusy() goes
+   * false, and driveBusy() reads the busy flags through BulkReadCache the
+   * same way StarterBot does. A stale flag shows up here: a move that sees
+   * "not busy" ends at once and leaves the robot short, and one that
+   * never sees it runs into its 5 s timeout and finishes late. The last
+   * row runs RUN_TO_POSITION with driveBusy() answering from the last bulk
+   * read instead of a fresh one, to show what that looks like.
+   *
+   * @return For each drive: when the routine was done, where the robot
+   *         ended, and the drive's bulk reads per loop
+   */
+  public static String runToPositionReport() {
+    StringBuilder report = new StringBuilder(String.format("%-16s %7s %7s %7s %9s %10s%n",
+        "drive", "done", "x", "y", "heading", "reads/loop"));
+    String[] names = { "motion profile", "RUN_TO_POSITION", "stale busy flag" };
+    for (int run = 0; run < names.length; run++) {
+      StarterBotSim sim = new StarterBotSim(0.01, 0.001, 1);
+      sim.loadBalls(3);
+      sim.setAutoRoutine(STOP_AND_GO_ROUTINE);
+      sim.setMotionProfile(run == 0);
+      sim.staleBusy = run == 2;
+      sim.runPeriod(REVStarterBotTeleOpAutoJava.AUTO_BLUE, AUTO_SECONDS, null);
+      double loops = sim.opModeSeconds() / sim.loopSeconds;
+      report.append(String.format("%-16s %5.2f s %6.1f\" %6.1f\" %5.1f deg %10.2f%n",
+          names[run], sim.opModeSeconds(), sim.drive.x(), sim.drive.y(),
+          Math.toDegrees(sim.drive.heading()), sim.driveSensors.readCount() / loops));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Checks that AUTO RED really is AUTO BLUE mirrored: runs each routine for
+   * both alliances, records the pose every loop, and compares Red's pose
+   * with Blue's reflected (x the same, y and heading opposite) at the same
+   * moment. Any difference beyond rounding means something was planned
+   * differently for the two alliances - a trajectory re-planned, or a turn
+   * that was not swapped.
+   *
+   * @param names    A short name for each routine
+   * @param routines The routine texts
+   * @return One line per routine: the worst x, y and heading difference
+   *         over the whole period, and each alliance's done time and shots
+   */
+  public static String mirrorReport(String[] names, String[] routines) {
+    StringBuilder report = new StringBuilder(String.format("%-14s %8s %8s %9s %9s %9s %6s%n",
+        "routine", "max dx", "max dy", "max dhead", "blue done", "red done", "shots"));
+    for (int i = 0; i < routines.length; i++) {
+      PoseTrace[] traces = new PoseTrace[2];
+      StarterBotSim[] sims = new StarterBotSim[2];
+      for (int side = 0; side < 2; side++) {
+        sims[side] = new StarterBotSim(0.01, 0.001, 1);
+        sims[side].loadBalls(3);
+        sims[side].setAutoRoutine(routines[i]);
+        traces[side] = new PoseTrace((int) Math.ceil(AUTO_SECONDS / 0.01) + 1);
+        sims[side].runPeriod(side == 0 ? REVStarterBotTeleOpAutoJava.AUTO_BLUE : REVStarterBotTeleOpAutoJava.AUTO_RED,
+            AUTO_SECONDS, traces[side]);
+      }
+      double dx = 0;
+      double dy = 0;
+      double dHeading = 0;
+      for (int loop = 0; loop < Math.min(traces[0].count, traces[1].count); loop++) {
+        dx = Math.max(dx, Math.abs(traces[1].x[loop] - traces[0].x[loop]));
+        dy = Math.max(dy, Math.abs(traces[1].y[loop] - AllianceMirror.y(traces[0].y[loop])));
+        dHeading = Math.max(dHeading, Math.abs(PoseEstimator.angleWrap(
+            traces[1].heading[loop] - AllianceMirror.heading(traces[0].heading[loop]))));
+      }
+      report.append(String.format("%-14s %6.3f\" %6.3f\" %5.2f deg %7.2f s %7.2f s %3d/%d%n",
+          names[i], dx, dy, Math.toDegrees(dHeading), sims[0].opModeSeconds(), sims[1].opModeSeconds(),
+          sims[0].ballsFired(), sims[1].ballsFired()));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Sprints to the goal in TeleOp (full forward stick, turn stick centred)
+   * with and without heading hold:
+   * - Drift: the left drive side is 5% weak, so straight curves off. Once
+   *   hands off, and once with a driver who counter-steers whenever the
+   *   robot is more than 3 degrees off (until it is back within 0.5)
+   * - Bump: mid-sprint the robot is knocked 10 degrees (sides equal). How
+   *   long until it starts turning back (the response latency, including
+   *   the motors), until it is back within 1 degree, and how far past it
+   *   swings - at 100, 50 and 25 loops per second
+   * The pose is the simulator's true pose; the OpMode reads the same yaw
+   * from the simulated IMU.
+   *
+   * @return Two tables: drift and bump
+   */
+  public static String headingHoldReport() {
+    StringBuilder report = new StringBuilder(String.format("sprint %.0f s, left side at 95%%%n", SPRINT_SECONDS));
+    report.append(String.format("%-13s %4s %9s %9s %9s %11s%n",
+        "driver", "hold", "heading", "sideways", "96\" at", "corrections"));
+    for (int correcting = 0; correcting < 2; correcting++) {
+      for (int hold = 0; hold < 2; hold++) {
+        Sprint sprint = new Sprint(correcting == 1, Double.NaN);
+        StarterBotSim sim = new StarterBotSim(0.01, 0.001, 1);
+        sim.drive.setSideStrength(0.95, 1);
+        sim.setHeadingHold(hold == 1);
+        sim.runPeriod(REVStarterBotTeleOpAutoJava.TELEOP, SPRINT_SECONDS, sprint);
+        String goal = Double.isNaN(sprint.goalSeconds) ? "never" : String.format("%.2f s", sprint.goalSeconds);
+        report.append(String.format("%-13s %4s %5.1f deg %7.1f\" %9s %11d%n",
+            correcting == 1 ? "counter-steer" : "hands off", hold == 1 ? "on" : "off",
+            Math.toDegrees(sim.drive.heading()), sprint.maxSideways, goal, sprint.corrections));
+      }
+    }
+    report.append(String.format("bump %.0f deg at %.1f s%n", Math.toDegrees(BUMP_RADIANS), BUMP_SECONDS));
+    report.append(String.format("%-5s %4s %10s %12s %10s%n", "loop", "hold", "turn back", "within 1 deg", "overshoot"));
+    double[] loops = { 0.01, 0.02, 0.04 };
+    for (int hold = 0; hold < 2; hold++) {
+      for (double loop : loops) {
+        if (hold == 0 && loop != loops[0]) {
+          continue;   // Without hold the loop time does not matter: nothing turns back
+        }
+        Sprint sprint = new Sprint(false, BUMP_SECONDS);
+        StarterBotSim sim = new StarterBotSim(loop, 0.001, 1);
+        sim.setHeadingHold(hold == 1);
+        sim.runPeriod(REVStarterBotTeleOpAutoJava.TELEOP, SPRINT_SECONDS, sprint);
+        report.append(String.format("%2.0f ms %4s %s %s %6.1f deg%n", loop * 1000, hold == 1 ? "on" : "off",
+            millis(sprint.turnBackSeconds, 7), millis(sprint.settledSeconds, 9), Math.toDegrees(sprint.overshoot)));
+      }
+    }
+    return report.toString();
+  }
+
+  /**
+   * Shoots bank shots for BATTERY_SECONDS of TeleOp on a 0.12 ohm battery
+   * while the driver does what shakes a robot most: full-stick reversals
+   * every half second, some with the turn stick hard over too.
+   * - standing:  no driving, the flywheel has the battery to itself
+   * - raw:       Y - X and Y + X straight to the motors
+   * - output:    through DriveOutput (desaturate, slew limit, current budget
+   *              with the flywheel first while it fires)
+   *
+   * @return Shots, the flywheel speed as each ball left (lowest, average
+   *         and standard deviation, ticks/second), the lowest voltage the
+   *         motors saw, the hardest wheel acceleration (traction: about
+   *         300 in/s² on foam tiles) and the distance driven
+   */
+  public static String batteryReport() {
+    StringBuilder report = new StringBuilder(String.format(
+        "bank shot (%.0f) for %.0f s, %.2f ohm battery%n", StarterBotShooter.BANK_VELOCITY, BATTERY_SECONDS, 0.12));
+    report.append(String.format("%-9s %5s %7s %7s %7s %8s %14s %8s%n",
+        "drive", "shots", "lowest", "average", "spread", "battery", "wheel accel", "driven"));
+    for (int mode = 0; mode < 3; mode++) {
+      Aggressive aggressive = new Aggressive(mode > 0);
+      StarterBotSim sim = new StarterBotSim(0.01, 0.001, 1);
+      sim.setBatteryResistance(0.12);
+      sim.setDriveOutput(mode == 2);
+      sim.loadBalls(100);
+      sim.runPeriod(REVStarterBotTeleOpAutoJava.TELEOP, BATTERY_SECONDS, aggressive);
+      double average = aggressive.shotSum / aggressive.shots;
+      report.append(String.format("%-9s %5d %7.0f %7.0f %7.1f %6.2f V %7.0f in/s^2 %6.0f\"%n",
+          mode == 0 ? "standing" : mode == 1 ? "raw" : "output", sim.ballsFired(), aggressive.lowestShot, average,
+          Math.sqrt(Math.max(0, aggressive.shotSquares / aggressive.shots - average * average)),
+          sim.lowestBatteryVolts(), aggressive.hardestAccel, aggressive.driven));
+    }
+    return report.toString();
+  }
+
+  private static final double BATTERY_SECONDS = 10;
+
+  /**
+   * Holds RIGHT BUMPER; if driving, reverses the left stick every 0.5 s and
+   * throws the turn stick over on every other pair of reversals.
+   */
+  private static final class Aggressive implements Driver {
+    final boolean driving;
+    int lastFired = 0;
+    int shots = 0;
+    double lastSpeed = 0;
+    double lowestShot = Double.POSITIVE_INFINITY;
+    double shotSum = 0;
+    double shotSquares = 0;
+    double lastLeft = 0;
+    double lastRight = 0;
+    double hardestAccel = 0;
+    double lastX = 0;
+    double lastY = 0;
+    double driven = 0;
+    double lastSeconds = 0;
+
+    Aggressive(boolean driving) {
+      this.driving = driving;
+    }
+
+    @Override
+    public void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot) {
+      gamepad.right_bumper = true;
+      if (driving) {
+        int half = (int) (periodSeconds / 0.5);
+        gamepad.left_stick_y = half % 2 == 0 ? -1 : 1;
+        gamepad.right_stick_x = half % 4 < 2 ? 0 : half % 8 < 4 ? 1 : -1;
+      }
+      // The speed at the end of last loop is the speed each new ball met
+      if (robot.ballsFired() > lastFired) {
+        for (; lastFired < robot.ballsFired(); lastFired++) {
+          shots++;
+          shotSum += lastSpeed;
+          shotSquares += lastSpeed * lastSpeed;
+          lowestShot = Math.min(lowestShot, lastSpeed);
+        }
+      }
+      lastSpeed = robot.flywheel.velocity();
+
+      DriveSim drive = robot.drive;
+      double dt = periodSeconds - lastSeconds;
+      if (dt > 0) {
+        double accel = Math.max(Math.abs(drive.leftVelocity() - lastLeft), Math.abs(drive.rightVelocity() - lastRight))
+            / DriveSim.TICKS_PER_INCH / dt;
+        hardestAccel = Math.max(hardestAccel, accel);
+      }
+      lastLeft = drive.leftVelocity();
+      lastRight = drive.rightVelocity();
+      driven += Math.hypot(drive.x() - lastX, drive.y() - lastY);
+      lastX = drive.x();
+      lastY = drive.y();
+      lastSeconds = periodSeconds;
+    }
+  }
+
+  private static final double SPRINT_SECONDS = 3;
+  private static final double SPRINT_GOAL_INCHES = 96;
+  private static final double BUMP_SECONDS = 1.5;
+  private static final double BUMP_RADIANS = Math.toRadians(10);
+
+  private static String millis(double seconds, int width) {
+    return Double.isNaN(seconds) ? String.format("%" + (width + 3) + "s", "never")
+        : String.format("%" + width + ".0f ms", seconds * 1000);
+  }
+
+  /**
+   * Full forward stick for the whole period; optionally a driver who
+   * counter-steers, and a bump. Records what headingHoldReport() shows.
+   */
+  private static final class Sprint implements Driver {
+    final boolean correcting;
+    final double bumpSeconds;
+    boolean steering = false;
+    boolean bumped = false;
+    double bumpAt;
+    int corrections = 0;
+    double maxSideways = 0;
+    double goalSeconds = Double.NaN;
+    double turnBackSeconds = Double.NaN;
+    double settledSeconds = Double.NaN;
+    double overshoot = 0;
+    double lastHeading = 0;
+
+    Sprint(boolean correcting, double bumpSeconds) {
+      this.correcting = correcting;
+      this.bumpSeconds = bumpSeconds;
+    }
+
+    @Override
+    public void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot) {
+      DriveSim drive = robot.drive;
+      double heading = drive.heading();
+      gamepad.left_stick_y = -1;
+      maxSideways = Math.max(maxSideways, Math.abs(drive.y()));
+      if (Double.isNaN(goalSeconds) && drive.x() >= SPRINT_GOAL_INCHES) {
+        goalSeconds = periodSeconds;
+      }
+      if (correcting) {
+        if (!steering && Math.abs(heading) > Math.toRadians(3)) {
+          steering = true;
+          corrections++;
+        } else if (steering && Math.abs(heading) < Math.toRadians(0.5)) {
+          steering = false;
+        }
+        // Positive turn stick turns counter-clockwise (see splitStickArcadeDrive())
+        gamepad.right_stick_x = steering ? (float) (heading > 0 ? -0.3 : 0.3) : 0;
+      }
+      if (!bumped && periodSeconds >= bumpSeconds) {
+        drive.push(0, 0, BUMP_RADIANS);
+        bumped = true;
+        bumpAt = periodSeconds;
+        lastHeading = drive.heading();
+        return;
+      }
+      if (bumped) {
+        double since = periodSeconds - bumpAt;
+        if (Double.isNaN(turnBackSeconds) && heading < lastHeading - 1e-4) {
+          turnBackSeconds = since;
+        }
+        if (Double.isNaN(settledSeconds) && Math.abs(heading) < Math.toRadians(1)) {
+          settledSeconds = since;
+        }
+        if (!Double.isNaN(settledSeconds)) {
+          overshoot = Math.max(overshoot, -heading);
+        }
+      }
+      lastHeading = heading;
+    }
+  }
+
+  /** A hands-off Driver that records the robot's true pose every loop. */
+  private static final class PoseTrace implements Driver {
+    final double[] x;
+    final double[] y;
+    final double[] heading;
+    int count = 0;
+
+    PoseTrace(int loops) {
+      x = new double[loops];
+      y = new double[loops];
+      heading = new double[loops];
+    }
+
+    @Override
+    public void update(double periodSeconds, Gamepad gamepad, StarterBotSim robot) {
+      if (count < x.length) {
+        x[count] = robot.drive.x();
+        y[count] = robot.drive.y();
+        heading[count] = robot.drive.heading();
+        count++;
+      }
+    }
+  }
+
+  /**
+   * Measures how long AUTO BLUE takes from START to its first motor
+   * command, in real time on this computer:
+   * - planned at START: initMatch() runs after START, as runOpMode() did
+   *   before the routines were planned during INIT
+   * - planned at INIT:  initMatch() runs before START (runOpMode() today)
+   * One run of each warms up the JIT first, since single runs are noisy;
+   * on the robot the OpMode shows its own gap after autonomous.
+   *
+   * @param runs Timed runs of each
+   * @return The median and slowest gap, in milliseconds
+   */
+  public static String startGapReport(int runs) {
+    StringBuilder report = new StringBuilder(String.format("%-16s %10s %10s%n", "AUTO BLUE", "median", "slowest"));
+    for (int atInit = 0; atInit < 2; atInit++) {
+      double[] millis = new double[runs];
+      for (int run = -1; run < runs; run++) {
+        StarterBotSim sim = new StarterBotSim(0.01, 0.001, run + 2);
+        sim.loadBalls(3);
+        double gap = sim.timeStart(REVStarterBotTeleOpAutoJava.AUTO_BLUE, atInit == 1) / 1e6;
+        if (run >= 0) {
+          millis[run] = gap;
+        }
+      }
+      Arrays.sort(millis);
+      report.append(String.format("%-16s %7.3f ms %7.3f ms%n",
+          atInit == 1 ? "planned at INIT" : "planned at START", millis[runs / 2], millis[runs - 1]));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Runs one autonomous period and times START to the first motor write.
+   *
+   * @param planAtInit Call initMatch() before starting the timer
+   * @return Nanoseconds from START to the first motor write
+   */
+  private long timeStart(String operation, boolean planAtInit) {
+    startPeriod(AUTO_SECONDS, null);
+    if (planAtInit) {
+      opMode.initMatch(this, clock);
+    }
+    firstWriteNanos = -1;
+    long start = System.nanoTime();
+    if (!planAtInit) {
+      opMode.initMatch(this, clock);
+    }
+    opMode.startMatch(operation);
+    long gap = firstWriteNanos - start;
+    endPeriod();
+    return gap;
+  }
+
+  // ===== QUIET TELEMETRY =====
+
+  /**
+   * A Telemetry that accepts every call and shows nothing. Methods returning
+   * Item or Line hand back another quiet object so chained calls still work.
+   */
+  private static Telemetry quietTelemetry() {
+    return (Telemetry) Proxy.newProxyInstance(Telemetry.class.getClassLoader(),
+        new Class<?>[] { Telemetry.class }, QUIET);
+  }
+
+  private static final InvocationHandler QUIET = new InvocationHandler() {
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      Class<?> type = method.getReturnType();
+      if (type.isInterface()) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this);
+      } else if (type == boolean.class) {
+        return false;
+      } else if (type == int.class) {
+        return 0;
+      } else if (type == long.class) {
+        return 0L;
+      } else if (type == double.class) {
+        return 0.0;
+      } else if (type == String.class) {
+        return "";
+      }
+      return null;
+    }
+  };
+}
@@ -0,0 +1,358 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Tag Localizer - Fixing Odometry Drift With AprilTags
+ *
+ * Odometry (PoseEstimator) is smooth and fast but slowly drifts. AprilTags
+ * are fixed on the field at known spots, so every time the camera sees one,
+ * its range and bearing tell us where the robot REALLY is - but camera
+ * readings are noisy and arrive late. This class blends the two with an
+ * Extended Kalman Filter (EKF).
+ *
+ * The Kalman Filter Idea:
+ * - Keep a best-guess pose AND how unsure we are about it (covariance P)
+ * - Driving makes us more unsure (P grows with distance and turning)
+ * - A tag reading is also unsure (noise grows with distance to the tag)
+ * - Each reading pulls the pose toward what the tag says, by an amount that
+ *   depends on which one we trust more right now
+ * - Readings that disagree wildly (a wrong tag, a reflection) are ignored
+ *
+ * Latency Compensation:
+ * A camera frame is 50-150 ms old by the time its detections arrive. The
+ * robot may have moved several inches since. So:
+ * 1. Every odometry pose is saved in a ring buffer with its timestamp
+ * 2. A tag reading is compared with where we were WHEN THE FRAME WAS TAKEN
+ *    (looked up in the buffer)
+ * 3. The correction is then carried forward to now by replaying the
+ *    odometry motion since that moment
+ *
+ * How the Correction Is Stored:
+ * fused pose = correction ∘ odometry pose. The correction is a small shift
+ * and rotation; odometry keeps running untouched on its own thread.
+ *
+ * Measurements (like AprilTagPoseFtc):
+ * - range:   inches from camera to tag
+ * - bearing: degrees the robot must turn to face the tag, left (CCW) positive
+ * The camera is assumed to sit at the center of the robot, facing forward.
+ *
+ * Nothing is allocated after construction.
+ */
+public class TagLocalizer {
+
+  // ===== NOISE SETTINGS =====
+  // Odometry uncertainty (variance) added per inch driven, radian turned, and second
+  private static final double POSITION_VARIANCE_PER_INCH = 0.05;  // in² per inch (about 3% wheel slip)
+  private static final double HEADING_VARIANCE_PER_RADIAN = 1e-4; // rad² per radian turned
+  private static final double HEADING_VARIANCE_PER_SECOND = 1e-5; // rad² per second (IMU drift)
+  private static final double RANGE_NOISE_FIXED = 0.5;            // inches
+  private static final double RANGE_NOISE_PER_INCH = 0.02;        // grows with distance
+  private static final double BEARING_NOISE = Math.toRadians(1.0);
+  private static final double OUTLIER_GATE = 9.21;                // Chi-square, 2 values, 99%
+
+  // ===== FIELD LAYOUT =====
+  private static final int MAX_TAGS = 16;
+  private final int[] tagIds = new int[MAX_TAGS];
+  private final double[] tagX = new double[MAX_TAGS];
+  private final double[] tagY = new double[MAX_TAGS];
+  private final double[] tagHeight = new double[MAX_TAGS];
+  private int tagCount = 0;
+
+  // ===== ODOMETRY HISTORY (ring buffer) =====
+  private final long[] historyNanos;
+  private final double[] historyX;
+  private final double[] historyY;
+  private final double[] historyHeading;
+  private int historyHead = 0;     // Next slot to write
+  private int historySize = 0;
+
+  // ===== FILTER STATE =====
+  // Correction from odometry frame to field frame
+  private double correctionX, correctionY, correctionHeading;
+  // Covariance of the fused pose (symmetric 3x3: x, y, heading)
+  private double pxx, pxy, pxh, pyy, pyh, phh;
+  // Latest odometry pose
+  private double odomX, odomY, odomHeading;
+  private long odomNanos;
+  private boolean hasOdometry = false;
+
+  private long accepted = 0;
+  private long rejected = 0;
+
+  // Scratch space for interpolation (avoids allocating)
+  private double lookupX, lookupY, lookupHeading;
+
+  /**
+   * @param historyLength Odometry poses kept for latency compensation
+   *                      (e.g. 256 = 1.3 s at 200 poses per second)
+   */
+  public TagLocalizer(int historyLength) {
+    historyNanos = new long[historyLength];
+    historyX = new double[historyLength];
+    historyY = new double[historyLength];
+    historyHeading = new double[historyLength];
+  }
+
+  /**
+   * Registers a tag's position on the field. Call during INIT.
+   *
+   * @param heightAboveCamera How much higher the tag's center is than the
+   *                          camera lens, inches (the camera's range is a
+   *                          straight line, so it is longer than the floor distance)
+   */
+  public void setTag(int id, double x, double y, double heightAboveCamera) {
+    tagIds[tagCount] = id;
+    tagX[tagCount] = x;
+    tagY[tagCount] = y;
+    tagHeight[tagCount] = heightAboveCamera;
+    tagCount++;
+  }
+
+  /**
+   * Sets how unsure the starting pose is (standard deviations).
+   * Large values let the first tag sightings move the pose a lot.
+   */
+  public void setUncertainty(double positionInches, double headingRadians) {
+    pxx = positionInches * positionInches;
+    pyy = pxx;
+    phh = headingRadians * headingRadians;
+    pxy = 0;
+    pxh = 0;
+    pyh = 0;
+  }
+
+  /**
+   * Adds the newest odometry pose. Call every loop (duplicates are ignored).
+   */
+  public void addOdometry(PoseEstimator.Pose odometry) {
+    if (hasOdometry && odometry.nanos == odomNanos) {
+      return;
+    }
+    if (hasOdometry) {
+      // Odometry becomes less trustworthy the farther we drive and turn
+      double dx = odometry.x - odomX;
+      double dy = odometry.y - odomY;
+      double turn = Math.abs(PoseEstimator.angleWrap(odometry.heading - odomHeading));
+      double distance = Math.hypot(dx, dy);
+      // F = [[1, 0, -dyField], [0, 1, dxField], [0, 0, 1]]: heading error swings the move
+      double c = Math.cos(correctionHeading), s = Math.sin(correctionHeading);
+      double dxField = c * dx - s * dy;
+      double dyField = s * dx + c * dy;
+      double seconds = (odometry.nanos - odomNanos) / 1e9;
+      propagate(dxField, dyField, POSITION_VARIANCE_PER_INCH * distance,
+          HEADING_VARIANCE_PER_RADIAN * turn + HEADING_VARIANCE_PER_SECOND * seconds);
+    }
+    odomX = odometry.x;
+    odomY = odometry.y;
+    odomHeading = odometry.heading;
+    odomNanos = odometry.nanos;
+    hasOdometry = true;
+
+    historyNanos[historyHead] = odometry.nanos;
+    historyX[historyHead] = odometry.x;
+    historyY[historyHead] = odometry.y;
+    historyHeading[historyHead] = odometry.heading;
+    historyHead = (historyHead + 1) % historyNanos.length;
+    historySize = Math.min(historySize + 1, historyNanos.length);
+  }
+
+  /**
+   * Fuses one AprilTag detection.
+   *
+   * @param frameNanos     When the camera captured the frame (same clock as odometry)
+   * @param id             Tag ID (ignored if not registered with setTag())
+   * @param rangeInches    Distance from camera to tag
+   * @param bearingDegrees Angle to the tag, left positive
+   * @return true if the reading was used, false if unknown, too old, or an outlier
+   */
+  public boolean addTag(long frameNanos, int id, double rangeInches, double bearingDegrees) {
+    int tag = findTag(id);
+    if (tag < 0 || !lookup(frameNanos)) {
+      return false;
+    }
+
+    // Fused pose at the moment the frame was taken
+    double c = Math.cos(correctionHeading), s = Math.sin(correctionHeading);
+    double x = correctionX + c * lookupX - s * lookupY;
+    double y = correctionY + s * lookupX + c * lookupY;
+    double heading = lookupHeading + correctionHeading;
+
+    // What we expected to see from there
+    double dx = tagX[tag] - x;
+    double dy = tagY[tag] - y;
+    double r2 = dx * dx + dy * dy;
+    double r = Math.sqrt(r2);
+    if (r < 1) {
+      return false;
+    }
+    double floorRange = Math.sqrt(Math.max(0, rangeInches * rangeInches - tagHeight[tag] * tagHeight[tag]));
+    double innovationRange = floorRange - r;
+    double innovationBearing = PoseEstimator.angleWrap(
+        Math.toRadians(bearingDegrees) - (Math.atan2(dy, dx) - heading));
+
+    // Measurement Jacobian H (rows: range, bearing; columns: x, y, heading)
+    double h00 = -dx / r, h01 = -dy / r;            // h02 = 0
+    double h10 = dy / r2, h11 = -dx / r2, h12 = -1;
+
+    // P * H^T (3x2)
+    double a0 = pxx * h00 + pxy * h01;
+    double a1 = pxy * h00 + pyy * h01;
+    double a2 = pxh * h00 + pyh * h01;
+    double b0 = pxx * h10 + pxy * h11 + pxh * h12;
+    double b1 = pxy * h10 + pyy * h11 + pyh * h12;
+    double b2 = pxh * h10 + pyh * h11 + phh * h12;
+
+    // Innovation covariance S = H P H^T + R (2x2)
+    double rangeNoise = RANGE_NOISE_FIXED + RANGE_NOISE_PER_INCH * r;
+    double s00 = h00 * a0 + h01 * a1 + rangeNoise * rangeNoise;
+    double s01 = h10 * a0 + h11 * a1 + h12 * a2;
+    double s11 = h10 * b0 + h11 * b1 + h12 * b2 + BEARING_NOISE * BEARING_NOISE;
+    double det = s00 * s11 - s01 * s01;
+    if (det <= 0) {
+      return false;
+    }
+    double i00 = s11 / det, i01 = -s01 / det, i11 = s00 / det;
+
+    // Outlier check: how many "standard deviations" away is this reading?
+    double mahalanobis = innovationRange * (i00 * innovationRange + i01 * innovationBearing)
+        + innovationBearing * (i01 * innovationRange + i11 * innovationBearing);
+    if (mahalanobis > OUTLIER_GATE) {
+      rejected++;
+      return false;
+    }
+
+    // Kalman gain K = P H^T S^-1 (3x2)
+    double k00 = a0 * i00 + b0 * i01, k01 = a0 * i01 + b0 * i11;
+    double k10 = a1 * i00 + b1 * i01, k11 = a1 * i01 + b1 * i11;
+    double k20 = a2 * i00 + b2 * i01, k21 = a2 * i01 + b2 * i11;
+
+    double newX = x + k00 * innovationRange + k01 * innovationBearing;
+    double newY = y + k10 * innovationRange + k11 * innovationBearing;
+    double newHeading = heading + k20 * innovationRange + k21 * innovationBearing;
+
+    // P = (I - K H) P, using K H P = K (P H^T)^T
+    double nxx = pxx - (k00 * a0 + k01 * b0);
+    double nxy = pxy - (k00 * a1 + k01 * b1);
+    double nxh = pxh - (k00 * a2 + k01 * b2);
+    double nyy = pyy - (k10 * a1 + k11 * b1);
+    double nyh = pyh - (k10 * a2 + k11 * b2);
+    double nhh = phh - (k20 * a2 + k21 * b2);
+    pxx = nxx;
+    pxy = nxy;
+    pxh = nxh;
+    pyy = nyy;
+    pyh = nyh;
+    phh = nhh;
+
+    // New correction maps the odometry pose at frame time onto the corrected pose,
+    // which also carries the fix forward through all odometry since then
+    correctionHeading = PoseEstimator.angleWrap(newHeading - lookupHeading);
+    c = Math.cos(correctionHeading);
+    s = Math.sin(correctionHeading);
+    correctionX = newX - (c * lookupX - s * lookupY);
+    correctionY = newY - (s * lookupX + c * lookupY);
+    accepted++;
+    return true;
+  }
+
+  /**
+   * Fuses every detection in a vision snapshot.
+   *
+   * @return Number of detections used
+   */
+  public int addTags(VisionMailbox.Snapshot frame) {
+    int used = 0;
+    for (int i = 0; i < frame.count(); i++) {
+      if (addTag(frame.frameNanos(), frame.id(i), frame.range(i), frame.bearing(i))) {
+        used++;
+      }
+    }
+    return used;
+  }
+
+  // ===== FUSED POSE (now) =====
+
+  public double x() {
+    return correctionX + Math.cos(correctionHeading) * odomX - Math.sin(correctionHeading) * odomY;
+  }
+
+  public double y() {
+    return correctionY + Math.sin(correctionHeading) * odomX + Math.cos(correctionHeading) * odomY;
+  }
+
+  public double heading() {
+    return PoseEstimator.angleWrap(odomHeading + correctionHeading);
+  }
+
+  /** @return Standard deviation of the position, in inches (how unsure we are) */
+  public double positionUncertainty() {
+    return Math.sqrt(Math.max(0, (pxx + pyy) / 2));
+  }
+
+  public long accepted() {
+    return accepted;
+  }
+
+  public long rejected() {
+    return rejected;
+  }
+
+  // ===== HELPERS =====
+
+  private void propagate(double dxField, double dyField, double moveNoise, double turnNoise) {
+    // P = F P F^T + Q, F = [[1, 0, -dy], [0, 1, dx], [0, 0, 1]]
+    double nxx = pxx - 2 * dyField * pxh + dyField * dyField * phh;
+    double nxy = pxy + dxField * pxh - dyField * pyh - dxField * dyField * phh;
+    double nxh = pxh - dyField * phh;
+    double nyy = pyy + 2 * dxField * pyh + dxField * dxField * phh;
+    double nyh = pyh + dxField * phh;
+    pxx = nxx + moveNoise;
+    pxy = nxy;
+    pxh = nxh;
+    pyy = nyy + moveNoise;
+    pyh = nyh;
+    phh += turnNoise;
+  }
+
+  /**
+   * Finds the odometry pose at the given time (linear interpolation between
+   * the two saved poses around it) and stores it in lookupX/Y/Heading.
+   *
+   * @return false if that time is older than the history (or newer than odometry)
+   */
+  private boolean lookup(long nanos) {
+    if (historySize == 0) {
+      return false;
+    }
+    int newest = (historyHead - 1 + historyNanos.length) % historyNanos.length;
+    if (nanos - historyNanos[newest] >= 0) {
+      // Frame is as new as our odometry: use the newest pose
+      lookupX = historyX[newest];
+      lookupY = historyY[newest];
+      lookupHeading = historyHeading[newest];
+      return true;
+    }
+    int later = newest;
+    for (int n = 1; n < historySize; n++) {
+      int earlier = (later - 1 + historyNanos.length) % historyNanos.length;
+      if (nanos - historyNanos[earlier] >= 0) {
+        double t = (double) (nanos - historyNanos[earlier]) / (historyNanos[later] - historyNanos[earlier]);
+        lookupX = historyX[earlier] + t * (historyX[later] - historyX[earlier]);
+        lookupY = historyY[earlier] + t * (historyY[later] - historyY[earlier]);
+        lookupHeading = historyHeading[earlier]
+            + t * PoseEstimator.angleWrap(historyHeading[later] - historyHeading[earlier]);
+        return true;
+      }
+      later = earlier;
+    }
+    return false;
+  }
+
+  private int findTag(int id) {
+    for (int tag = 0; tag < tagCount; tag++) {
+      if (tagIds[tag] == id) {
+        return tag;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,252 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Tag Observation Simulator - Fake AprilTag Sightings for Testing TagLocalizer
+ *
+ * Looks at a DriveSim (which knows the TRUE robot pose) through a pretend
+ * camera and produces VisionMailbox Snapshots like the real AprilTagSource:
+ *
+ * - Frames are captured at a fixed rate (e.g. 15 per second)
+ * - A tag is seen only if it is in front of the camera (inside the field of
+ *   view) and close enough
+ * - Range and bearing get noise, more for far-away tags
+ * - Once in a while a reading is badly wrong (a glare or a mis-read tag)
+ * - Each frame is delivered LATENCY after it was captured, stamped with the
+ *   capture time - exactly the delay TagLocalizer has to make up for
+ *
+ * accuracyReport() zig-zags up the field with sloppy wheels and compares
+ * odometry alone against TagLocalizer, with and without latency
+ * compensation, then times one filter update.
+ */
+public class TagObservationSim {
+
+  private static final double HALF_FIELD_OF_VIEW = Math.toRadians(35);
+  private static final double MAX_RANGE = 100;          // inches
+  private static final double RANGE_NOISE = 0.01;       // fraction of range (standard deviation)
+  private static final double BEARING_NOISE = 0.7;      // degrees
+  private static final double OUTLIER_RATE = 0.02;      // 2% of readings are junk
+
+  private final int[] ids;
+  private final double[] tagX;
+  private final double[] tagY;
+  private final long frameIntervalNanos;
+  private final long latencyNanos;
+  private final Random random;
+  private final ArrayDeque<VisionMailbox.Snapshot> inFlight = new ArrayDeque<>();
+  private long nextFrameNanos = 0;
+
+  /**
+   * @param tags           Field layout, one { id, x, y } per tag (inches)
+   * @param framesPerSecond Camera processing rate
+   * @param latencySeconds Time from capture until the detections arrive
+   * @param seed           Random seed (same seed = same run)
+   */
+  public TagObservationSim(double[][] tags, double framesPerSecond, double latencySeconds, long seed) {
+    ids = new int[tags.length];
+    tagX = new double[tags.length];
+    tagY = new double[tags.length];
+    for (int tag = 0; tag < tags.length; tag++) {
+      ids[tag] = (int) tags[tag][0];
+      tagX[tag] = tags[tag][1];
+      tagY[tag] = tags[tag][2];
+    }
+    frameIntervalNanos = Math.round(1e9 / framesPerSecond);
+    latencyNanos = Math.round(latencySeconds * 1e9);
+    random = new Random(seed);
+  }
+
+  /**
+   * Captures a frame if one is due, and hands out any frame whose latency is over.
+   *
+   * @param truth     The simulated robot (its true pose is what the camera sees)
+   * @param nowNanos  Current simulation time
+   * @return A delivered frame, or null if none arrived this call
+   */
+  public VisionMailbox.Snapshot poll(DriveSim truth, long nowNanos) {
+    if (nowNanos - nextFrameNanos >= 0) {
+      inFlight.addLast(capture(truth, nowNanos));
+      nextFrameNanos = nowNanos + frameIntervalNanos;
+    }
+    VisionMailbox.Snapshot oldest = inFlight.peekFirst();
+    if (oldest != null && nowNanos - oldest.frameNanos() >= latencyNanos) {
+      return inFlight.removeFirst();
+    }
+    return null;
+  }
+
+  private VisionMailbox.Snapshot capture(DriveSim truth, long nanos) {
+    int count = 0;
+    int[] seen = new int[ids.length];
+    double[] ranges = new double[ids.length];
+    double[] bearings = new double[ids.length];
+    for (int tag = 0; tag < ids.length; tag++) {
+      double dx = tagX[tag] - truth.x();
+      double dy = tagY[tag] - truth.y();
+      double range = Math.hypot(dx, dy);
+      double bearing = PoseEstimator.angleWrap(Math.atan2(dy, dx) - truth.heading());
+      if (range > MAX_RANGE || Math.abs(bearing) > HALF_FIELD_OF_VIEW) {
+        continue;
+      }
+      seen[count] = ids[tag];
+      ranges[count] = range * (1 + RANGE_NOISE * random.nextGaussian());
+      bearings[count] = Math.toDegrees(bearing) + BEARING_NOISE * random.nextGaussian();
+      if (random.nextDouble() < OUTLIER_RATE) {
+        ranges[count] *= 0.6 + 0.8 * random.nextDouble();
+      }
+      count++;
+    }
+    int[] frameIds = new int[count];
+    double[] frameRanges = new double[count];
+    double[] frameBearings = new double[count];
+    System.arraycopy(seen, 0, frameIds, 0, count);
+    System.arraycopy(ranges, 0, frameRanges, 0, count);
+    System.arraycopy(bearings, 0, frameBearings, 0, count);
+    return new VisionMailbox.Snapshot(nanos, frameIds, frameRanges, frameBearings, frameBearings.clone());
+  }
+
+  // ===== ACCURACY AND COST BENCHMARK =====
+
+  /**
+   * Zig-zags up the field for about 20 seconds (like autonomous) with
+   * slipping wheels and a drifting IMU, while five wall tags are seen
+   * by a 15 fps camera with 100 ms latency.
+   *
+   * @return Final and worst position error for each estimate, tag readings
+   *         used and rejected, and the cost of one filter update
+   */
+  public static String accuracyReport(long seed) {
+    final double loopSeconds = 0.01;
+    final double estimatorSeconds = 0.005;
+    final double trackWidth = 14;
+    final double[][] tags = { { 1, 84, 10 }, { 2, 84, 50 }, { 3, -36, 30 }, { 4, -36, 70 }, { 5, 24, 110 } };
+
+    // Wheels slip about 3%, the IMU drifts 0.1 deg/s
+    DriveSim drive = new DriveSim();
+    OdometrySim sensors = new OdometrySim(drive, 1.035, 1.02, Math.toRadians(0.1), Math.toRadians(0.05), seed);
+    RobotClock.Virtual clock = new RobotClock.Virtual();
+    PoseEstimator odometry = new PoseEstimator(sensors, clock, DriveSim.TICKS_PER_INCH, trackWidth);
+    TagObservationSim camera = new TagObservationSim(tags, 15, 0.1, seed);
+    TagLocalizer compensated = newLocalizer(tags);
+    TagLocalizer uncompensated = newLocalizer(tags);
+
+    // Zig-zag up the field: 48" across, turn, 20" up, turn the other way, ...
+    double across = 48 * DriveSim.TICKS_PER_INCH;
+    double up = 20 * DriveSim.TICKS_PER_INCH;
+    double quarterTurn = Math.PI / 2 * trackWidth / 2 * DriveSim.TICKS_PER_INCH;
+    PathSequencer path = new PathSequencer(new ProfileFollower(), 16);
+    for (int leg = 0; leg < 4; leg++) {
+      double turn = leg % 2 == 0 ? quarterTurn : -quarterTurn;
+      path.add(across, across, 900, 3000, false);
+      path.add(-turn, turn, 600, 3000, false);
+      path.add(up, up, 900, 3000, false);
+      path.add(-turn, turn, 600, 3000, false);
+    }
+
+    double worstOdometry = 0, worstCompensated = 0, worstUncompensated = 0;
+    double elapsed = 0;
+    path.start(sensors.leftPosition(), sensors.rightPosition());
+    odometry.step();
+    while (elapsed < 60 && path.update(elapsed, sensors.leftPosition(), sensors.rightPosition())) {
+      drive.setPower(path.leftPower(), path.rightPower());
+      for (int i = 0; i < Math.round(loopSeconds / estimatorSeconds); i++) {
+        sensors.step(estimatorSeconds);
+        clock.advanceNanos((long) (estimatorSeconds * 1e9));
+        odometry.step();
+      }
+      elapsed += loopSeconds;
+
+      PoseEstimator.Pose pose = odometry.latest();
+      compensated.addOdometry(pose);
+      uncompensated.addOdometry(pose);
+      VisionMailbox.Snapshot frame = camera.poll(drive, clock.nanoTime());
+      if (frame != null) {
+        compensated.addTags(frame);
+        for (int i = 0; i < frame.count(); i++) {
+          // Pretend the frame was taken just now
+          uncompensated.addTag(clock.nanoTime(), frame.id(i), frame.range(i), frame.bearing(i));
+        }
+      }
+      worstOdometry = Math.max(worstOdometry, Math.hypot(pose.x - drive.x(), pose.y - drive.y()));
+      worstCompensated = Math.max(worstCompensated, positionError(compensated, drive));
+      worstUncompensated = Math.max(worstUncompensated, positionError(uncompensated, drive));
+    }
+    PoseEstimator.Pose pose = odometry.latest();
+
+    return String.format(
+        "%-24s %12s %12s%n"
+        + "%-24s %9.2f in %9.2f in%n"
+        + "%-24s %9.2f in %9.2f in%n"
+        + "%-24s %9.2f in %9.2f in%n"
+        + "tag readings used %d, rejected as outliers %d%n"
+        + "route time %.1f s%n"
+        + "cost per tag update %.0f ns, per odometry update %.0f ns",
+        "estimate", "final error", "worst error",
+        "odometry only", Math.hypot(pose.x - drive.x(), pose.y - drive.y()), worstOdometry,
+        "tags, no latency fix", positionError(uncompensated, drive), worstUncompensated,
+        "tags + latency fix", positionError(compensated, drive), worstCompensated,
+        compensated.accepted(), compensated.rejected(),
+        elapsed,
+        tagUpdateNanos(tags), odometryUpdateNanos(tags));
+  }
+
+  private static TagLocalizer newLocalizer(double[][] tags) {
+    TagLocalizer localizer = new TagLocalizer(256);
+    for (double[] tag : tags) {
+      localizer.setTag((int) tag[0], tag[1], tag[2], 0);
+    }
+    localizer.setUncertainty(0.5, Math.toRadians(1));
+    return localizer;
+  }
+
+  /**
+   * Times addTag() with a full 256-pose history and a frame 100 ms old.
+   */
+  private static double tagUpdateNanos(double[][] tags) {
+    TagLocalizer localizer = newLocalizer(tags);
+    fillHistory(localizer);
+    long frameNanos = 155_000_000L;
+    int updates = 200_000;
+    for (int i = 0; i < updates; i++) {
+      // Warm-up so the JIT compiles addTag()
+      localizer.addTag(frameNanos, 1, 47.0, 10.0);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < updates; i++) {
+      localizer.addTag(frameNanos, 1, 47.0, 10.0);
+    }
+    return (System.nanoTime() - start) / (double) updates;
+  }
+
+  /**
+   * Times addOdometry() (covariance growth plus one history write).
+   */
+  private static double odometryUpdateNanos(double[][] tags) {
+    TagLocalizer localizer = newLocalizer(tags);
+    PoseEstimator.Pose[] poses = new PoseEstimator.Pose[1024];
+    for (int i = 0; i < poses.length; i++) {
+      poses[i] = new PoseEstimator.Pose(i * 0.01, 0, i * 0.001, i * 5_000_000L);
+    }
+    int updates = 200_000;
+    for (int i = 0; i < updates; i++) {
+      localizer.addOdometry(poses[i % poses.length]);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < updates; i++) {
+      localizer.addOdometry(poses[i % poses.length]);
+    }
+    return (System.nanoTime() - start) / (double) updates;
+  }
+
+  private static void fillHistory(TagLocalizer localizer) {
+    for (int i = 0; i < 256; i++) {
+      localizer.addOdometry(new PoseEstimator.Pose(i * 0.1, 0, 0, i * 1_000_000L));
+    }
+  }
+
+  private static double positionError(TagLocalizer localizer, DriveSim drive) {
+    return Math.hypot(localizer.x() - drive.x(), localizer.y() - drive.y());
+  }
+}
@@ -0,0 +1,129 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Telemetry Batcher - Send Telemetry Less Often, and Only When It Changes
+ *
+ * Calling telemetry.addData() and telemetry.update() every loop means building
+ * strings and sending a packet to the Driver Station hundreds of times per
+ * second. The drivers can only read the screen a few times per second anyway.
+ *
+ * How It Works:
+ * 1. At INIT, register a numbered "slot" for each value (addSlot)
+ * 2. Every loop, store numbers into slots (set) - just an array write
+ * 3. Every loop, call update(). At most publishHz times per second it:
+ *    - Formats ONLY the slots whose value changed since the last packet
+ *    - Skips sending entirely if nothing changed
+ *
+ * So the control loop only pays for string formatting and transmission a few
+ * times per second instead of every single loop.
+ *
+ * Adding Extra Lines:
+ * Anything else (like a LoopProfiler report) can be added right before a
+ * publish. Check due() first, add the lines, then call markDirty() so the
+ * packet is sent even if no slot changed.
+ *
+ * Missing Values:
+ * Set a slot to Double.NaN to show "--" (for example, no AprilTag in view).
+ */
+public class TelemetryBatcher {
+
+  private static final String MISSING = "--";
+
+  private final Telemetry telemetry;
+  private final RobotClock clock;
+  private final long periodNanos;
+
+  private final String[] captions;
+  private final String[] formats;
+  private final double[] values;
+  private final double[] sent;
+  private final String[] formatted;
+  private int slotCount = 0;
+
+  private long nextPublishNanos;
+  private boolean dirty = true;  // Always send the first packet so captions appear
+
+  public TelemetryBatcher(Telemetry telemetry, RobotClock clock, double publishHz, int maxSlots) {
+    this.telemetry = telemetry;
+    this.clock = clock;
+    this.periodNanos = (long) (1e9 / publishHz);
+    this.nextPublishNanos = clock.nanoTime();
+    captions = new String[maxSlots];
+    formats = new String[maxSlots];
+    values = new double[maxSlots];
+    sent = new double[maxSlots];
+    formatted = new String[maxSlots];
+  }
+
+  /**
+   * Registers a value to display. Call during INIT, not inside the loop.
+   *
+   * @param caption Label shown on the Driver Station
+   * @param format  String.format pattern for the number, e.g. "%.0f" or "%.2f"
+   * @return Slot number to pass to set()
+   */
+  public int addSlot(String caption, String format) {
+    int slot = slotCount++;
+    captions[slot] = caption;
+    formats[slot] = format;
+    values[slot] = Double.NaN;
+    sent[slot] = Double.NaN;
+    formatted[slot] = MISSING;
+    return slot;
+  }
+
+  /**
+   * Stores a new value. No formatting or sending happens here.
+   */
+  public void set(int slot, double value) {
+    values[slot] = value;
+  }
+
+  /**
+   * @return true if the next update() call is allowed to send a packet
+   */
+  public boolean due() {
+    return clock.nanoTime() - nextPublishNanos >= 0;
+  }
+
+  /**
+   * Forces the next publish to send, even if no slot changed.
+   */
+  public void markDirty() {
+    dirty = true;
+  }
+
+  /**
+   * Call once per loop. Sends a packet only when due and something changed.
+   *
+   * @return true if a packet was sent this call
+   */
+  public boolean update() {
+    if (!due()) {
+      return false;
+    }
+    nextPublishNanos = clock.nanoTime() + periodNanos;
+
+    boolean changed = dirty;
+    for (int slot = 0; slot < slotCount; slot++) {
+      double value = values[slot];
+      if (Double.compare(value, sent[slot]) != 0) {
+        formatted[slot] = Double.isNaN(value) ? MISSING : String.format(formats[slot], value);
+        sent[slot] = value;
+        changed = true;
+      }
+    }
+    if (!changed) {
+      return false;
+    }
+
+    for (int slot = 0; slot < slotCount; slot++) {
+      telemetry.addData(captions[slot], formatted[slot]);
+    }
+    telemetry.update();
+    dirty = false;
+    return true;
+  }
+}
@@ -2,10 +2,8 @@ package org.firstinspires.ftc.teamcode;
 
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
-import com.qualcomm.robotcore.hardware.CRServo;
-import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
-import com.qualcomm.robotcore.util.ElapsedTime;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * REV Starter Bot Combined TeleOp and Autonomous OpMode
@@ -23,35 +21,36 @@ import com.qualcomm.robotcore.util.ElapsedTime;
  * Key Features:
  * - Pre-start mode selection using PS/Home button
  * - Encoder-based autonomous driving for accuracy
- * - Timer-based shooting sequences (10-second autonomous limit)
+ * - Shot-counted autonomous launch (ends after the last shot, 10-second timeout)
  * - Alliance-specific turning (Blue vs Red mirrored paths)
+ * - TeleOp gamepad recording, saved when the OpMode stops (replay it on
+ *   StarterBotSim with GamepadReplay)
  *
  * Hardware:
  * - Differential drivetrain with encoders
  * - Velocity-controlled flywheel launcher
  * - Ball feeder and hopper agitator
+ * All reached through StarterBotIO (the real StarterBot, or StarterBotSim
+ * running the same code on a laptop - see runMatch()). Shooting is
+ * StarterBotShooter, shared with REVStarterBotTeleOpJava.
  *
  * @TeleOp annotation: This appears in TeleOp category, but runs auto if selected
  */
 @TeleOp
 public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
 
-  // ===== HARDWARE DECLARATIONS =====
-  private DcMotor flywheel;
-  private DcMotor coreHex;
-  private DcMotor leftDrive;
-  private CRServo servo;
-  private DcMotor rightDrive;
-
-  // ===== FLYWHEEL VELOCITY CONSTANTS =====
-  private static final int bankVelocity = 1300;  // Close-range shot velocity
-  private static final int farVelocity = 1900;   // Medium-range shot velocity
-  private static final int maxVelocity = 2200;   // Maximum shot velocity
+  // ===== HARDWARE =====
+  // The real robot (StarterBot) or the simulator (StarterBotSim)
+  private StarterBotIO robot;
+  // Where every timer gets "now" from (RobotClock.SYSTEM on the robot)
+  private RobotClock clock;
+  // Flywheel control and automatic shooting (see starter-bot-shooter-onbot.java)
+  private StarterBotShooter shooter;
 
   // ===== MODE SELECTION CONSTANTS =====
-  private static final String TELEOP = "TELEOP";
-  private static final String AUTO_BLUE = "AUTO BLUE";
-  private static final String AUTO_RED = " AUTO RED";
+  static final String TELEOP = "TELEOP";
+  static final String AUTO_BLUE = "AUTO BLUE";
+  static final String AUTO_RED = " AUTO RED";
   private String operationSelected = TELEOP;  // Default to TeleOp
 
   // ===== AUTONOMOUS DRIVING CONSTANTS =====
@@ -71,9 +70,105 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    */
   private double WHEELS_INCHES_TO_TICKS = (28 * 5 * 3) / (3 * Math.PI);
 
-  // ===== TIMERS =====
-  private ElapsedTime autoLaunchTimer = new ElapsedTime();  // Limits autonomous shooting to 10 seconds
-  private ElapsedTime autoDriveTimer = new ElapsedTime();   // Timeout for autonomous driving movements
+  // ===== MOTION PROFILE CONSTANTS =====
+  // true: autoDrive() follows a motion profile (see SegmentCommand)
+  // false: the original RUN_TO_POSITION drive
+  private static final boolean USE_MOTION_PROFILE = true;
+  private boolean motionProfileOn = USE_MOTION_PROFILE;
+  private static final boolean DRIVE_S_CURVE = false;              // Smoother ramps, slightly slower
+  private static final double DRIVE_MAX_TICKS_PER_SECOND = 1600;   // About 90% of top wheel speed
+  private static final double DRIVE_MAX_ACCELERATION = 5000;       // ticks/second²
+  private ProfileFollower driveFollower = new ProfileFollower();
+
+  // ===== TRAJECTORY CONSTANTS =====
+  // true: a routine's path (see pathCommand()) is one smooth spline,
+  // followed with Ramsete (see TrajectoryCommand)
+  // false: the motion-profiled (or RUN_TO_POSITION) moves above
+  private static final boolean USE_TRAJECTORY = true;
+  private static final double TRACK_WIDTH_INCHES = 15;
+  private static final double TRAJECTORY_MAX_TICKS_PER_SECOND = 1400;  // Below DRIVE_MAX: room to correct
+  private static final double TRAJECTORY_MAX_CENTRIPETAL = 60;         // inches/second² on a bend
+  // Encoder-only pose (autonomous never waits on an IMU read), stepped once per loop by TrajectoryCommand
+  private PoseEstimator odometry;
+  private RamseteFollower ramsete;
+
+  // ===== AUTONOMOUS LAUNCH CONSTANTS =====
+  // The launch phase ends once this many shots are detected (velocity dips)...
+  private static final int AUTO_PRELOADED_ARTIFACTS = 3;
+  // ...or when this much time has passed (jam, or a dip that was missed)
+  private static final double AUTO_LAUNCH_TIMEOUT_MS = 10000;
+
+  // ===== AUTONOMOUS ROUTINE =====
+  // Both alliances run one routine, written for Blue and mirrored for Red
+  // (see auto-routine-onbot.java for the format, alliance-mirror-onbot.java
+  // for the mirroring). Put a routine in ROUTINE_FILE to change it without
+  // rebuilding; without the file (or if it has a mistake) the built-in
+  // DEFAULT_ROUTINE runs.
+  private static final String ROUTINE_FILE = "/sdcard/FIRST/starterbot-auto.txt";
+  static final String DEFAULT_ROUTINE = ""
+      + "alliance blue\n"
+      + "shoot " + AUTO_PRELOADED_ARTIFACTS + " " + AUTO_LAUNCH_TIMEOUT_MS / 1000 + "   # the pre-loads\n"
+      + "path                # park: one continuous motion\n"
+      + "  drive 0.5 -12     # back away from the goal\n"
+      + "  turn 0.5 61.1     # turn left, toward the parking zone\n"
+      + "  drive 1 -50       # off the launch line\n"
+      + "end\n";
+  private String routineText = DEFAULT_ROUTINE;
+  private String routineSource = "built-in";
+
+  // ===== COMMANDS =====
+  // Autonomous steps are Commands, run one loop at a time by the scheduler
+  // (see command-scheduler-onbot.java); each requires the subsystem it moves
+  private CommandScheduler scheduler;
+  private CommandScheduler.Subsystem driveSubsystem;
+  private CommandScheduler.Subsystem shooterSubsystem;
+
+  // ===== PRECOMPUTED ROUTINES =====
+  // Every autonomous routine - its trajectory tables and its Commands - is
+  // built during INIT (see initMatch()), so START goes straight to the first loop
+  private Command autoBlueRoutine;
+  private Command autoRedRoutine;
+  private long matchStartNanos;
+  private long firstCommandNanos;   // Time of the first loop's commands, -1 until then
+
+  // ===== HEADING HOLD =====
+  // true: with the turn stick centred, TeleOp holds the IMU heading the
+  // driver left it at (see heading-hold-onbot.java)
+  // false: the sticks go straight to the motors, and the IMU is not set up
+  // If the robot has no IMU, heading hold turns itself off at INIT
+  private static final boolean USE_HEADING_HOLD = true;
+  private boolean headingHoldOn = USE_HEADING_HOLD;
+  private HeadingHold headingHold;
+
+  // ===== DRIVE OUTPUT =====
+  // true: TeleOp drive powers go through DriveOutput - desaturated, slew
+  // limited, and within a current budget shared with the flywheel, which
+  // comes first while it fires (see drive-output-onbot.java)
+  // false: Y - X and Y + X straight to the motors
+  private static final boolean USE_DRIVE_OUTPUT = true;
+  private static final double DRIVE_FREE_TICKS_PER_SECOND = 1780;     // Wheel speed at full power (measure)
+  private static final double FLYWHEEL_FREE_TICKS_PER_SECOND = 2800;  // HD Hex: 6000 RPM * 28 ticks
+  private boolean driveOutputOn = USE_DRIVE_OUTPUT;
+  private DriveOutput driveOutput;
+
+  // ===== LOOP TIMING =====
+  // Records loop and section times every loop; hold SHARE in TeleOp to see the report
+  private LoopProfiler profiler;
+
+  // ===== TELEMETRY =====
+  // Sent to the Driver Station 10 times per second, and only when a value changed
+  private static final double TELEMETRY_HZ = 10;
+  private TelemetryBatcher telemetryBatcher;
+
+  // ===== GAMEPAD RECORDING =====
+  // Every TeleOp loop of gamepad1 is kept in memory (allocated here, during INIT)
+  // and written to RECORDING_FILE after STOP (see gamepad-recorder-onbot.java)
+  // Sized for the fastest loop, not a typical one: at least one hub read per
+  // loop keeps it under about 1000 loops/second (BulkReadCache.loopRateReport()),
+  // and 262144 records (4.7 MB) hold a 2-minute TeleOp at twice that
+  private static final int RECORDING_LOOPS = 262144;
+  private static final String RECORDING_FILE = "/sdcard/FIRST/gamepad1-teleop.bin";
+  private final GamepadRecorder gamepadRecorder = new GamepadRecorder(RECORDING_LOOPS);
 
   /**
    * Main OpMode Entry Point with Mode Selection
@@ -92,25 +187,20 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
   @Override
   public void runOpMode() {
     // ===== HARDWARE INITIALIZATION =====
-    flywheel = hardwareMap.get(DcMotor.class, "flywheel");
-    coreHex = hardwareMap.get(DcMotor.class, "coreHex");
-    leftDrive = hardwareMap.get(DcMotor.class, "leftDrive");
-    servo = hardwareMap.get(CRServo.class, "servo");
-    rightDrive = hardwareMap.get(DcMotor.class, "rightDrive");
-
-    // ===== MOTOR CONFIGURATION =====
-    // Establishing the direction and mode for the motors
-
-    // Enable velocity control on flywheel
-    flywheel.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-    flywheel.setDirection(DcMotor.Direction.REVERSE);
-
-    // Configure motor directions to match physical mounting
-    coreHex.setDirection(DcMotor.Direction.REVERSE);
-    leftDrive.setDirection(DcMotor.Direction.REVERSE);
+    // Looks up and configures the motors and servo (see starter-bot-onbot.java),
+    // and the IMU only if heading hold needs it
+    StarterBot hardware = new StarterBot(this, headingHoldOn);
+    boolean imuMissing = headingHoldOn && !hardware.hasImu();
+    if (imuMissing) {
+      headingHoldOn = false;
+    }
 
-    // Ensures the servo is active and ready
-    servo.setPower(0);
+    // ===== PLAN EVERY ROUTINE =====
+    // Trajectories and Commands for every mode, so nothing is built after START
+    long planStart = System.nanoTime();
+    readRoutineFile();
+    initMatch(hardware, RobotClock.SYSTEM);
+    double planMs = (System.nanoTime() - planStart) / 1e6;
 
     // ===== MODE SELECTION LOOP =====
     // On initialization the Driver Station will prompt for which OpMode should be run
@@ -119,12 +209,170 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
     while (opModeInInit()) {
       // Update selection if PS button was pressed this iteration
       operationSelected = selectOperation(operationSelected, gamepad1.psWasPressed());
+      telemetry.addData("Routine", routineSource);
+      telemetry.addData("Routines Planned", "%.1f ms", planMs);
+      if (imuMissing) {
+        telemetry.addData("Heading Hold", "off: no IMU named \"imu\" in the configuration");
+      }
       // Display current selection on Driver Station
       telemetry.update();
     }
 
     // ===== WAIT FOR START =====
     waitForStart();
+    if (isStopRequested()) {
+      return;
+    }
+
+    startMatch(operationSelected);
+
+    // ===== SAVE THE DRIVER'S INPUTS =====
+    // The loop is over, so file I/O can no longer slow it down
+    if (operationSelected.equals(TELEOP)) {
+      saveGamepadRecording();
+    }
+  }
+
+  /**
+   * Writes the TeleOp gamepad recording to RECORDING_FILE.
+   * Copy it off the Control Hub and play it back with GamepadReplay.
+   */
+  private void saveGamepadRecording() {
+    try {
+      gamepadRecorder.save(new File(RECORDING_FILE));
+      telemetry.addData("Gamepad Recording", "%d loops saved to %s", gamepadRecorder.count(), RECORDING_FILE);
+      if (gamepadRecorder.dropped() > 0) {
+        telemetry.addData("Gamepad Recording", "first %d loops overwritten: cannot be replayed",
+            gamepadRecorder.dropped());
+      }
+    } catch (IOException e) {
+      telemetry.addData("Gamepad Recording", "not saved: %s", e.getMessage());
+    }
+    telemetry.update();
+  }
+
+  /**
+   * Uses the routine in ROUTINE_FILE, if there is one.
+   */
+  private void readRoutineFile() {
+    File file = new File(ROUTINE_FILE);
+    if (!file.exists()) {
+      return;
+    }
+    try {
+      setRoutine(AutoRoutine.read(file), ROUTINE_FILE);
+    } catch (IOException e) {
+      routineSource = "built-in (" + ROUTINE_FILE + " not read: " + e.getMessage() + ")";
+    }
+  }
+
+  /**
+   * Replaces the autonomous routine; call before initMatch().
+   * StarterBotSim uses this to try routines without a file.
+   */
+  void setRoutine(String text, String source) {
+    routineText = text;
+    routineSource = source;
+  }
+
+  /**
+   * Switches autonomous moves between the motion profile and RUN_TO_POSITION;
+   * call before the match. StarterBotSim uses this to check both.
+   */
+  void setMotionProfile(boolean on) {
+    motionProfileOn = on;
+  }
+
+  /**
+   * Turns TeleOp heading hold on or off; call before the match.
+   * StarterBotSim uses this to compare driving with and without it.
+   */
+  void setHeadingHold(boolean on) {
+    headingHoldOn = on;
+  }
+
+  /**
+   * Turns the TeleOp drive output stage on or off; call before the match.
+   * StarterBotSim uses this to compare driving with and without it.
+   */
+  void setDriveOutput(boolean on) {
+    driveOutputOn = on;
+  }
+
+  /** @return Where the routine came from, and why the built-in one is used if it is */
+  String routineSource() {
+    return routineSource;
+  }
+
+  /** @return This OpMode's TeleOp gamepad recording (StarterBotSim reads it after a match) */
+  GamepadRecorder gamepadRecorder() {
+    return gamepadRecorder;
+  }
+
+  /**
+   * Runs the Selected Mode on Any Robot
+   *
+   * runOpMode() does the same in two halves: initMatch() during INIT and
+   * startMatch() after START. StarterBotSim calls this directly with a
+   * simulated robot and a virtual clock, skipping INIT - so a whole match
+   * runs in well under a second.
+   *
+   * @param robot     Real or simulated StarterBot
+   * @param clock     Time source for every timer, controller and profiler
+   * @param operation TELEOP, AUTO_BLUE or AUTO_RED
+   */
+  void runMatch(StarterBotIO robot, RobotClock clock, String operation) {
+    initMatch(robot, clock);
+    startMatch(operation);
+  }
+
+  /**
+   * Everything that can be built before START: the shooter, the scheduler,
+   * the pose estimator, and every autonomous routine with its trajectory.
+   * The Driver can pick any mode afterwards; only the chosen one runs.
+   */
+  void initMatch(StarterBotIO robot, RobotClock clock) {
+    this.robot = robot;
+    this.clock = clock;
+    shooter = new StarterBotShooter(robot, clock);
+    profiler = new LoopProfiler(clock);
+    scheduler = new CommandScheduler(4);
+    driveSubsystem = scheduler.subsystem("drive");
+    shooterSubsystem = scheduler.subsystem("shooter");
+    odometry = new PoseEstimator(new PoseEstimator.Sensors() {
+      @Override
+      public int leftPosition() {
+        return robot.leftPosition();
+      }
+
+      @Override
+      public int rightPosition() {
+        return robot.rightPosition();
+      }
+
+      @Override
+      public double heading() {
+        return Double.NaN;   // Heading from the encoders
+      }
+    }, clock, WHEELS_INCHES_TO_TICKS, TRACK_WIDTH_INCHES);
+    ramsete = new RamseteFollower(TRACK_WIDTH_INCHES, WHEELS_INCHES_TO_TICKS, driveFollower);
+
+    // The same routine for both alliances: Red turns right where Blue turns left
+    try {
+      compileRoutines(routineText);
+    } catch (IllegalArgumentException e) {
+      routineSource = "built-in (" + routineSource + ": " + e.getMessage() + ")";
+      compileRoutines(DEFAULT_ROUTINE);
+    }
+  }
+
+  /**
+   * Runs the selected mode, from the moment START is pressed.
+   */
+  void startMatch(String operation) {
+    matchStartNanos = clock.nanoTime();
+    firstCommandNanos = -1;
+    operationSelected = operation;
 
     // ===== EXECUTE SELECTED MODE =====
     // Route to appropriate method based on user selection
@@ -137,6 +385,11 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
     }
   }
 
+  /** @return Seconds on the clock since startNanos */
+  private double secondsSince(long startNanos) {
+    return (clock.nanoTime() - startNanos) / 1e9;
+  }
+
   /**
    * Mode Selection Cycler
    *
@@ -211,18 +464,40 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * Runs continuously until STOP is pressed or time expires.
    */
   private void doTeleOp() {
-    if (opModeIsActive()) {
-      while (opModeIsActive()) {
-        // Calling our methods while the OpMode is running
-        splitStickArcadeDrive();              // Drive control
-        setFlywheelVelocity();                // Shooting control
-        manualCoreHexAndServoControl();       // Feeder control
-
-        // Real-time flywheel diagnostics
-        telemetry.addData("Flywheel Velocity", ((DcMotorEx) flywheel).getVelocity());
-        telemetry.addData("Flywheel Power", flywheel.getPower());
-        telemetry.update();
+    telemetryBatcher = new TelemetryBatcher(telemetry, clock, TELEMETRY_HZ, 3);
+    int velocitySlot = telemetryBatcher.addSlot("Flywheel Velocity", "%.0f");
+    int powerSlot = telemetryBatcher.addSlot("Flywheel Power", "%.2f");
+    int headingSlot = telemetryBatcher.addSlot("Heading Error", "%.1f deg");
+    headingHold = new HeadingHold();
+    driveOutput = new DriveOutput();
+    gamepadRecorder.start(clock.nanoTime());
+
+    while (robot.nextLoop()) {
+      profiler.startLoop();
+      gamepadRecorder.record(clock.nanoTime(), gamepad1);  // The inputs this loop acts on
+
+      // Calling our methods while the OpMode is running
+      profiler.begin(LoopProfiler.DRIVE);
+      splitStickArcadeDrive();              // Drive control
+      profiler.end(LoopProfiler.DRIVE);
+      profiler.begin(LoopProfiler.FLYWHEEL);
+      setFlywheelVelocity();                // Shooting control
+      profiler.end(LoopProfiler.FLYWHEEL);
+      profiler.begin(LoopProfiler.FEEDER);
+      manualCoreHexAndServoControl();       // Feeder control
+      profiler.end(LoopProfiler.FEEDER);
+
+      // Real-time flywheel diagnostics
+      profiler.begin(LoopProfiler.TELEMETRY);
+      telemetryBatcher.set(velocitySlot, robot.flywheelVelocity());
+      telemetryBatcher.set(powerSlot, robot.flywheelPower());
+      telemetryBatcher.set(headingSlot, headingHoldOn ? Math.toDegrees(headingHold.error()) : Double.NaN);
+      if (gamepad1.share && telemetryBatcher.due()) {
+        profiler.addTo(telemetry);          // Loop timing report on demand
+        telemetryBatcher.markDirty();
       }
+      telemetryBatcher.update();
+      profiler.end(LoopProfiler.TELEMETRY);
     }
   }
   
@@ -231,6 +506,15 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    *
    * See detailed explanation in teleop-onbot.java
    * Left stick Y: forward/backward, Right stick X: turning
+   *
+   * With heading hold on, a centred turn stick holds the heading instead
+   * of sending 0: the IMU is read right here, every loop, and the PD
+   * correction goes out with this loop's powers.
+   *
+   * With the drive output stage on, the mix goes through DriveOutput
+   * instead of straight to the motors. While a bumper shot is firing, the
+   * flywheel's stall current is kept out of the drive's budget; otherwise
+   * the flywheel's estimated current is.
    */
   private void splitStickArcadeDrive() {
     float X;  // Turning input
@@ -238,8 +522,21 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
 
     X = gamepad1.right_stick_x;
     Y = -gamepad1.left_stick_y;  // Negate for natural forward
-    leftDrive.setPower(Y - X);   // Differential drive math
-    rightDrive.setPower(Y + X);
+    if (headingHoldOn) {
+      // Y + X on the right side: positive X turns counter-clockwise, like the IMU yaw
+      X = (float) headingHold.turn(Y, X, robot.heading(), clock.nanoTime());
+    }
+    if (!driveOutputOn) {
+      robot.setDrivePower(Y - X, Y + X);   // Differential drive math
+      return;
+    }
+    boolean firing = gamepad1.left_bumper || gamepad1.right_bumper;
+    double flywheelAmps = firing ? DriveOutput.MOTOR_STALL_AMPS
+        : Math.max(0, DriveOutput.motorAmps(robot.flywheelPower(),
+            robot.flywheelVelocity() / FLYWHEEL_FREE_TICKS_PER_SECOND));
+    driveOutput.update(Y - X, Y + X, robot.leftVelocity() / DRIVE_FREE_TICKS_PER_SECOND,
+        robot.rightVelocity() / DRIVE_FREE_TICKS_PER_SECOND, flywheelAmps, clock.nanoTime());
+    robot.setDrivePower(driveOutput.leftPower(), driveOutput.rightPower());
   }
   
   /**
@@ -249,81 +546,110 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
   private void manualCoreHexAndServoControl() {
     // Core Hex intake: Cross = forward, Triangle = reverse
     if (gamepad1.cross) {
-      coreHex.setPower(0.5);
+      robot.setFeederPower(0.5);
     } else if (gamepad1.triangle) {
-      coreHex.setPower(-0.5);
+      robot.setFeederPower(-0.5);
     }
     // Hopper servo: D-pad left/right to agitate
     if (gamepad1.dpad_left) {
-      servo.setPower(1);
+      robot.setAgitatorPower(1);
     } else if (gamepad1.dpad_right) {
-      servo.setPower(-1);
+      robot.setAgitatorPower(-1);
     }
   }
 
   /**
    * Flywheel Velocity Controller
-   * See detailed explanation in teleop-onbot.java
+   * See detailed explanation in teleop-onbot.java; the shooting sequences
+   * (also used by autonomous) are in starter-bot-shooter-onbot.java
    */
   private void setFlywheelVelocity() {
     if (gamepad1.options) {
-      flywheel.setPower(-0.5);  // Emergency reverse
+      shooter.reverse();  // Emergency reverse
     } else if (gamepad1.left_bumper) {
-      FAR_POWER_AUTO();  // Automatic far shot
+      shooter.farShot();  // Automatic far shot
     } else if (gamepad1.right_bumper) {
-      BANK_SHOT_AUTO();  // Automatic bank shot
+      shooter.bankShot();  // Automatic bank shot
     } else if (gamepad1.circle) {
-      ((DcMotorEx) flywheel).setVelocity(bankVelocity);  // Manual bank velocity
+      shooter.runAt(StarterBotShooter.BANK_VELOCITY);  // Manual bank velocity
     } else if (gamepad1.square) {
-      ((DcMotorEx) flywheel).setVelocity(maxVelocity);   // Manual max velocity
+      shooter.runAt(StarterBotShooter.MAX_VELOCITY);   // Manual max velocity
     } else {
       // Stop everything when no input
-      ((DcMotorEx) flywheel).setVelocity(0);
-      coreHex.setPower(0);
+      shooter.stop();
+      robot.setFeederPower(0);
       // Only stop servo if not under manual control
       if (!gamepad1.dpad_right && !gamepad1.dpad_left) {
-        servo.setPower(0);
+        robot.setAgitatorPower(0);
       }
     }
   }
 
-  // ===== AUTOMATIC SHOOTING SEQUENCES =====
-  // Shared between TeleOp and Autonomous modes
+  // ===== AUTONOMOUS MODE =====
+  // Strategy: Launch pre-loaded balls, then drive off launch line to score points
+  // Every step is a Command run by the scheduler, one loop at a time
 
   /**
-   * Bank Shot Automatic Sequence
-   * Close-range shot with smart velocity-based feeding
-   * See detailed explanation in teleop-onbot.java
+   * Runs an autonomous routine until it is done (or the OpMode stops).
+   * Each loop gives every scheduled command one execute().
    */
-  private void BANK_SHOT_AUTO() {
-    ((DcMotorEx) flywheel).setVelocity(bankVelocity);
-    servo.setPower(-1);
-    // Only feed when flywheel is up to speed
-    if (((DcMotorEx) flywheel).getVelocity() >= bankVelocity - 100) {
-      coreHex.setPower(1);
-    } else {
-      coreHex.setPower(0);
+  private void runRoutine(Command routine) {
+    scheduler.schedule(routine);
+    while (robot.nextLoop() && scheduler.isScheduled(routine)) {
+      profiler.startLoop();
+      scheduler.run();
+      if (firstCommandNanos < 0) {
+        firstCommandNanos = clock.nanoTime();  // The first motor powers have just been set
+      }
     }
+    scheduler.cancelAll();  // STOP pressed mid-routine: end() stops the motors
+    telemetry.addData("START to First Command", "%.2f ms", startGapSeconds() * 1000);
+    telemetry.update();
+  }
+
+  /** @return Seconds from START to the end of the first autonomous loop (0 before it) */
+  double startGapSeconds() {
+    return firstCommandNanos < 0 ? 0 : (firstCommandNanos - matchStartNanos) / 1e9;
   }
 
   /**
-   * Far Power Shot Automatic Sequence
-   * Medium/long-range shot with smart velocity-based feeding
-   * See detailed explanation in teleop-onbot.java
+   * The Autonomous Routine (both alliances)
+   *
+   * Compiles the routine text (DEFAULT_ROUTINE: shoot the pre-loads, then
+   * park) once for each alliance. Each instruction becomes a Command:
+   * - shoot: LaunchCommand, raced against its timeout - race() is how a
+   *   timeout is written: whichever finishes first ends both
+   * - wait:  Command.waitSeconds()
+   * - drive: autoDrive()
+   * - path:  pathCommand()
+   * A routine written for one alliance is mirrored for the other
+   * (AllianceMirror): drives by AutoRoutine, paths by pathCommand().
    */
-  private void FAR_POWER_AUTO() {
-    ((DcMotorEx) flywheel).setVelocity(farVelocity);
-    servo.setPower(-1);
-    // Only feed when flywheel is up to speed
-    if (((DcMotorEx) flywheel).getVelocity() >= farVelocity - 100) {
-      coreHex.setPower(1);
-    } else {
-      coreHex.setPower(0);
-    }
-  }
+  private void compileRoutines(String text) {
+    AutoRoutine.Actions actions = new AutoRoutine.Actions() {
+      @Override
+      public Command shoot(int shots, double timeoutSeconds) {
+        return Command.race(new LaunchCommand(shots), Command.waitSeconds(clock, timeoutSeconds));
+      }
 
-  // ===== AUTONOMOUS MODE =====
-  // Strategy: Launch pre-loaded balls, then drive off launch line to score points
+      @Override
+      public Command waitSeconds(double seconds) {
+        return Command.waitSeconds(clock, seconds);
+      }
+
+      @Override
+      public Command drive(double speed, double leftInches, double rightInches) {
+        return autoDrive(speed, leftInches, rightInches, 5000);
+      }
+
+      @Override
+      public Command path(double[][] moves, boolean mirrored) {
+        return pathCommand(moves, mirrored);
+      }
+    };
+    autoBlueRoutine = AutoRoutine.compile(text, AllianceMirror.BLUE, TRACK_WIDTH_INCHES, actions);
+    autoRedRoutine = AutoRoutine.compile(text, AllianceMirror.RED, TRACK_WIDTH_INCHES, actions);
+  }
 
   /**
    * Encoder-Based Autonomous Drive
@@ -331,14 +657,6 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * Drives robot a specified distance using motor encoders for accuracy.
    * Far superior to time-based driving (accounts for battery, friction, wear).
    *
-   * How Encoder Navigation Works:
-   * 1. Read current encoder positions
-   * 2. Calculate target positions (current + distance_in_ticks)
-   * 3. Switch motors to RUN_TO_POSITION mode
-   * 4. Set motor power (motors automatically drive to target)
-   * 5. Wait until motors reach target or timeout expires
-   * 6. Stop motors and return to normal mode
-   *
    * Parameters:
    * @param speed - Motor power (0.0 to 1.0), use Math.abs() for safety
    * @param leftDistanceInch - Distance for left wheel (negative = backward)
@@ -351,46 +669,375 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * - Turn Left: rightDistanceInch > leftDistanceInch
    * - Spin in Place: leftDistanceInch = -rightDistanceInch
    *
+   * With USE_MOTION_PROFILE the move follows a motion profile
+   * (SegmentCommand), otherwise RUN_TO_POSITION (RunToPositionCommand).
+   * The timeout prevents waiting forever if the motors stall.
+   */
+  private Command autoDrive(double speed, double leftDistanceInch, double rightDistanceInch, int timeout_ms) {
+    Command drive = motionProfileOn
+        ? new SegmentCommand(speed, leftDistanceInch, rightDistanceInch)
+        : new RunToPositionCommand(speed, leftDistanceInch, rightDistanceInch);
+    return Command.race(drive, Command.waitSeconds(clock, timeout_ms / 1000.0));
+  }
+
+  /**
+   * Continuous Moves (a "path" in the routine)
+   *
+   * The default routine's path is the parking sequence:
+   * 1. Back up from goal (12 inches)
+   * 2. Turn toward the parking zone
+   * 3. Drive off launch line (50 inches) for bonus points
+   *
+   * With USE_TRAJECTORY the robot drives one smooth curve to the same end
+   * pose (see pathTrajectory() and TrajectoryCommand). With
+   * USE_MOTION_PROFILE, the moves run as ONE continuous path (see
+   * PathCommand), so the robot never stops between them. Otherwise each move
+   * is a separate RUN_TO_POSITION autoDrive().
+   *
+   * Mirrored, the trajectory is the one planned from the moves as written,
+   * reflected (Trajectory.mirrored()) - so both alliances drive the same
+   * timing - and the moves have their wheels swapped.
+   *
+   * @param moves    {speed, left inches, right inches} for each move, as written
+   * @param mirrored Run it for the other alliance
+   */
+  private Command pathCommand(double[][] moves, boolean mirrored) {
+    if (USE_TRAJECTORY) {
+      Trajectory trajectory = pathTrajectory(moves);
+      if (mirrored) {
+        trajectory = trajectory.mirrored();
+      }
+      return Command.race(new TrajectoryCommand(trajectory), Command.waitSeconds(clock, 15));
+    }
+    if (mirrored) {
+      moves = AllianceMirror.moves(moves);
+    }
+    if (!motionProfileOn) {
+      Command[] drives = new Command[moves.length];
+      for (int i = 0; i < moves.length; i++) {
+        drives[i] = autoDrive(moves[i][0], moves[i][1], moves[i][2], 5000);
+      }
+      return Command.sequence(drives);
+    }
+    PathSequencer path = new PathSequencer(driveFollower, moves.length);
+    for (double[] move : moves) {
+      addToPath(path, move[0], move[1], move[2]);
+    }
+    return Command.race(new PathCommand(path), Command.waitSeconds(clock, 15));
+  }
+
+  /**
+   * The moves as one spline, starting at (0, 0) facing 0 and ending where
+   * the moves would end:
+   * - Each move turns the robot by (right inches - left inches) / track width
+   * - and carries it (left + right) / 2 inches along its heading halfway
+   *   through that turn
+   * Driven backward if the moves go backward overall. The corners in
+   * between are rounded off, like PathSequencer does.
+   */
+  private Trajectory pathTrajectory(double[][] moves) {
+    double x = 0;
+    double y = 0;
+    double heading = 0;
+    double travel = 0;
+    for (double[] move : moves) {
+      double distance = (move[1] + move[2]) / 2;
+      double turn = (move[2] - move[1]) / TRACK_WIDTH_INCHES;
+      x += distance * Math.cos(heading + turn / 2);
+      y += distance * Math.sin(heading + turn / 2);
+      heading += turn;
+      travel += distance;
+    }
+    double[][] waypoints = { { 0, 0, 0 }, { x, y, heading } };
+    return new Trajectory(waypoints, travel < 0,
+        TRAJECTORY_MAX_TICKS_PER_SECOND / WHEELS_INCHES_TO_TICKS, DRIVE_MAX_ACCELERATION / WHEELS_INCHES_TO_TICKS,
+        TRAJECTORY_MAX_CENTRIPETAL, TRACK_WIDTH_INCHES, 0.01);
+  }
+
+  /**
+   * Adds one autoDrive()-style move (speed, inches) to a path.
+   */
+  private void addToPath(PathSequencer path, double speed, double leftDistanceInch, double rightDistanceInch) {
+    path.add(leftDistanceInch * WHEELS_INCHES_TO_TICKS, rightDistanceInch * WHEELS_INCHES_TO_TICKS,
+        Math.abs(speed) * DRIVE_MAX_TICKS_PER_SECOND, DRIVE_MAX_ACCELERATION, DRIVE_S_CURVE);
+  }
+
+  /**
+   * RUN_TO_POSITION Drive Command
+   *
+   * How Encoder Navigation Works:
+   * 1. Read current encoder positions
+   * 2. Calculate target positions (current + distance_in_ticks)
+   * 3. Switch motors to RUN_TO_POSITION mode
+   * 4. Set motor power (motors automatically drive to target)
+   * 5. Finished once neither motor isBusy()
+   * 6. Stop motors and return to normal mode (also when interrupted)
+   *
    * RUN_TO_POSITION Mode:
    * - Motors automatically adjust power to reach target
    * - Built-in PID control maintains speed
    * - isBusy() returns true while motors are moving
+   */
+  private class RunToPositionCommand extends Command {
+    private final double speed;
+    private final double leftTicks;
+    private final double rightTicks;
+
+    RunToPositionCommand(double speed, double leftDistanceInch, double rightDistanceInch) {
+      this.speed = speed;
+      leftTicks = leftDistanceInch * WHEELS_INCHES_TO_TICKS;
+      rightTicks = rightDistanceInch * WHEELS_INCHES_TO_TICKS;
+      addRequirements(driveSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+      // getCurrentPosition() returns cumulative encoder count since power-on
+      robot.runDriveToPosition(
+          (int) (robot.leftPosition() + leftTicks),
+          (int) (robot.rightPosition() + rightTicks),
+          Math.abs(speed));
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !robot.driveBusy();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      // Stop motors and return to normal drive mode for TeleOp compatibility
+      robot.runDriveWithoutEncoder();
+    }
+  }
+
+  /**
+   * Motion-Profiled Drive Command
+   *
+   * Same move as RunToPositionCommand, but instead of RUN_TO_POSITION it
+   * plans the whole move (see motion-profile-onbot.java) and follows the
+   * plan every loop.
+   *
+   * How It Works:
+   * 1. Convert inches to encoder ticks (WHEELS_INCHES_TO_TICKS)
+   * 2. Plan a speed profile: speed up, cruise, slow down
+   *    (speed scales the cruise speed, like the power in autoDrive())
+   * 3. Every loop, DriveSegment compares each encoder with where the plan
+   *    says it should be and picks the motor powers
+   * 4. Finished once the plan is finished and both wheels are on target
+   *
+   * Why Better Than RUN_TO_POSITION?
+   * - Gentle start instead of a jump to full power
+   * - Braking starts at the right time, so no overshoot
+   * - No long "creeping" at the end while the motors hunt for the target
+   * - The motors stay in RUN_WITHOUT_ENCODER, so there is no mode switching
    *
-   * Safety Features:
-   * - Timeout prevents infinite loops if motors stall
-   * - opModeIsActive() allows emergency stop
-   * - idle() yields CPU time to other FTC systems
+   * DriveSim.report() compares segment times of both drives on a laptop.
    */
-  private void autoDrive(double speed, int leftDistanceInch, int rightDistanceInch, int timeout_ms) {
-    // Reset safety timeout timer
-    autoDriveTimer.reset();
+  private class SegmentCommand extends Command {
+    private final DriveSegment segment;
+    private long startNanos;
+    private boolean moving;
 
-    // Calculate target positions in encoder ticks
-    // getCurrentPosition() returns cumulative encoder count since power-on
-    leftDrive.setTargetPosition((int) (leftDrive.getCurrentPosition() + leftDistanceInch * WHEELS_INCHES_TO_TICKS));
-    rightDrive.setTargetPosition((int) (rightDrive.getCurrentPosition() + rightDistanceInch * WHEELS_INCHES_TO_TICKS));
+    SegmentCommand(double speed, double leftDistanceInch, double rightDistanceInch) {
+      segment = new DriveSegment(driveFollower,
+          leftDistanceInch * WHEELS_INCHES_TO_TICKS, rightDistanceInch * WHEELS_INCHES_TO_TICKS,
+          Math.abs(speed) * DRIVE_MAX_TICKS_PER_SECOND, DRIVE_MAX_ACCELERATION, DRIVE_S_CURVE);
+      addRequirements(driveSubsystem);
+    }
 
-    // Switch to RUN_TO_POSITION mode (motors automatically drive to target)
-    leftDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-    rightDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+    @Override
+    public void initialize() {
+      segment.start(robot.leftPosition(), robot.rightPosition());
+      startNanos = clock.nanoTime();
+      moving = true;
+    }
 
-    // Set motor power (Math.abs ensures positive power regardless of direction)
-    leftDrive.setPower(Math.abs(speed));
-    rightDrive.setPower(Math.abs(speed));
+    @Override
+    public void execute() {
+      moving = segment.update(secondsSince(startNanos), robot.leftPosition(), robot.rightPosition());
+      if (moving) {
+        robot.setDrivePower(segment.leftPower(), segment.rightPower());
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !moving;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      robot.setDrivePower(0, 0);
+    }
+  }
+
+  /**
+   * Continuous Path Command
+   *
+   * Drives every move in the path without stopping in between: each move
+   * starts while the previous one is still slowing down (see path-sequencer-onbot.java).
+   * The motors stay in RUN_WITHOUT_ENCODER the whole time.
+   *
+   * Shows the actual and planned path time at the end, to compare with the
+   * stop-and-go autoDrive() version (DriveSim.report() does the same on a laptop).
+   */
+  private class PathCommand extends Command {
+    private final PathSequencer path;
+    private long startNanos;
+    private boolean moving;
 
-    // Wait while motors are driving to target
-    // Loop exits when: motors reach target OR timeout expires OR OpMode stops
-    while (opModeIsActive() && (leftDrive.isBusy() || rightDrive.isBusy()) && autoDriveTimer.milliseconds() < timeout_ms) {
-      idle();  // Yields CPU time to FTC system (prevents watchdog timeout)
+    PathCommand(PathSequencer path) {
+      this.path = path;
+      addRequirements(driveSubsystem);
     }
 
-    // Stop motors
-    leftDrive.setPower(0);
-    rightDrive.setPower(0);
+    @Override
+    public void initialize() {
+      path.start(robot.leftPosition(), robot.rightPosition());
+      startNanos = clock.nanoTime();
+      moving = true;
+    }
 
-    // Return to normal drive mode for TeleOp compatibility
-    leftDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-    rightDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+    @Override
+    public void execute() {
+      moving = path.update(secondsSince(startNanos), robot.leftPosition(), robot.rightPosition());
+      if (moving) {
+        robot.setDrivePower(path.leftPower(), path.rightPower());
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !moving;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      robot.setDrivePower(0, 0);
+      telemetry.addData("Path Time", "%.2f s (planned %.2f s)", secondsSince(startNanos), path.totalSeconds());
+      telemetry.update();
+    }
+  }
+
+  /**
+   * Trajectory Command
+   *
+   * Follows a Trajectory (see trajectory-onbot.java) with RamseteFollower:
+   * every loop the encoder pose is stepped, compared with the planned pose,
+   * and both motor powers steer back toward the plan. The motors stay in
+   * RUN_WITHOUT_ENCODER the whole time.
+   *
+   * The pose starts at the trajectory's first waypoint, so the plan is
+   * always relative to where the robot is when the command starts.
+   *
+   * Shows the actual and planned time at the end, like PathCommand
+   * (RamseteFollower.report() compares both on a laptop).
+   */
+  private class TrajectoryCommand extends Command {
+    private final Trajectory trajectory;
+    private long startNanos;
+    private boolean moving;
+
+    TrajectoryCommand(Trajectory trajectory) {
+      this.trajectory = trajectory;
+      addRequirements(driveSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+      odometry.resetPose(trajectory.x(0), trajectory.y(0), trajectory.heading(0));
+      odometry.step();
+      ramsete.start(robot.leftPosition(), robot.rightPosition());
+      startNanos = clock.nanoTime();
+      moving = true;
+    }
+
+    @Override
+    public void execute() {
+      odometry.step();
+      PoseEstimator.Pose pose = odometry.latest();
+      moving = ramsete.update(trajectory, secondsSince(startNanos), pose.x, pose.y, pose.heading,
+          pose.leftTicks, pose.rightTicks);
+      if (moving) {
+        robot.setDrivePower(ramsete.leftPower(), ramsete.rightPower());
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !moving;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      robot.setDrivePower(0, 0);
+      telemetry.addData("Path Time", "%.2f s (planned %.2f s)", secondsSince(startNanos), trajectory.totalSeconds());
+      telemetry.update();
+    }
+  }
+
+  /**
+   * Autonomous Launch Command
+   *
+   * Shoots the pre-loaded balls and finishes as soon as they are all gone,
+   * so the rest of autonomous is left for navigation.
+   *
+   * When Is It Done?
+   * - The shooter's ShotDetector counts a shot at every flywheel velocity dip
+   * - After the routine's number of shots (AUTO_PRELOADED_ARTIFACTS in the
+   *   built-in routine), the command finishes right away
+   * - If a shot is never detected (jammed feeder, missed dip), the
+   *   timeout it races against (AUTO_LAUNCH_TIMEOUT_MS) still ends it
+   *
+   * AutoTimelineSim (auto-timeline-sim-onbot.java) replays this phase with
+   * a simulated flywheel and reports how many seconds it reclaims.
+   */
+  private class LaunchCommand extends Command {
+    private final TelemetryBatcher launchTelemetry;
+    private final int countdownSlot;
+    private final int shotsSlot;
+    private final int shots;
+    private long startNanos;
+
+    LaunchCommand(int shots) {
+      this.shots = shots;
+      launchTelemetry = new TelemetryBatcher(telemetry, clock, TELEMETRY_HZ, 2);
+      countdownSlot = launchTelemetry.addSlot("Launcher Countdown", "%.1f");
+      shotsSlot = launchTelemetry.addSlot("Shots Fired", "%.0f");
+      addRequirements(shooterSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+      shooter.resetCount();
+      startNanos = clock.nanoTime();
+    }
+
+    @Override
+    public void execute() {
+      profiler.begin(LoopProfiler.FLYWHEEL);
+      shooter.bankShot();  // Continuous shooting with smart feeding
+      profiler.end(LoopProfiler.FLYWHEEL);
+      profiler.begin(LoopProfiler.TELEMETRY);
+      launchTelemetry.set(countdownSlot, secondsSince(startNanos));
+      launchTelemetry.set(shotsSlot, shooter.shotCount());
+      launchTelemetry.update();
+      profiler.end(LoopProfiler.TELEMETRY);
+    }
+
+    @Override
+    public boolean isFinished() {
+      return shooter.shotCount() >= shots;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      // Stop all shooter components
+      shooter.stop();
+      robot.setFeederPower(0);
+      robot.setAgitatorPower(0);
+    }
   }
 
   /**
@@ -399,7 +1046,7 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * Optimized scoring sequence for Blue alliance starting position.
    *
    * Autonomous Strategy:
-   * 1. Shoot pre-loaded balls for up to 10 seconds
+   * 1. Shoot pre-loaded balls until all 3 are detected (10 seconds at most)
    * 2. Back away from goal (12 inches)
    * 3. Turn left to align with launch line
    * 4. Drive backward off launch line (50 inches)
@@ -410,15 +1057,17 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * - Robot must park off launch line for bonus points
    * - Different paths for Blue vs Red due to field symmetry
    *
-   * Why 10-Second Shooting Limit?
-   * - Leaves 20 seconds for navigation
-   * - Prevents wasting time if feeder jams
-   * - Ensures robot has time to park
+   * Why Stop After the Last Shot?
+   * - Three balls usually leave in a few seconds, not 10
+   * - Every second saved is extra time for navigation
+   * - The 10-second timeout still ends shooting if the feeder jams
    *
-   * Movement Breakdown:
+   * Movement Breakdown (DEFAULT_ROUTINE's path, see pathCommand()):
    * - Step 1: Back up 12" at 50% speed (clear goal zone)
    * - Step 2: Turn left by differential drive (-8" left, +8" right)
    * - Step 3: Drive backward 50" at full speed (cross launch line)
+   * With USE_TRAJECTORY the three steps blend into one backward curve that
+   * ends at the same spot and heading.
    *
    * Telemetry Usage:
    * - Displays countdown timer during shooting
@@ -426,35 +1075,12 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * - Shows autonomous is running (vs frozen)
    */
   private void doAutoBlue() {
-    if (opModeIsActive()) {
-      // Display which autonomous is running
-      telemetry.addData("RUNNING OPMODE", operationSelected);
-      telemetry.update();
+    // Display which autonomous is running
+    telemetry.addData("RUNNING OPMODE", operationSelected);
+    telemetry.update();
 
-      // ===== PHASE 1: SHOOT PRE-LOADED BALLS =====
-      autoLaunchTimer.reset();
-      while (opModeIsActive() && autoLaunchTimer.milliseconds() < 10000) {
-        BANK_SHOT_AUTO();  // Continuous shooting with smart feeding
-        telemetry.addData("Launcher Countdown", autoLaunchTimer.seconds());
-        telemetry.update();
-      }
-
-      // Stop all shooter components
-      ((DcMotorEx) flywheel).setVelocity(0);
-      coreHex.setPower(0);
-      servo.setPower(0);
-
-      // ===== PHASE 2: NAVIGATE TO PARKING ZONE =====
-      // Back Up from goal
-      autoDrive(0.5, -12, -12, 5000);
-
-      // Turn Left (Blue alliance turn direction)
-      // Left wheel: -8" (backward), Right wheel: +8" (forward) = left turn
-      autoDrive(0.5, -8, 8, 5000);
-
-      // Drive off Launch Line (park for bonus points)
-      autoDrive(1, -50, -50, 5000);
-    }
+    // Planned during INIT (see initMatch())
+    runRoutine(autoBlueRoutine);
   }
 
   /**
@@ -467,39 +1093,18 @@ public class REVStarterBotTeleOpAutoJava extends LinearOpMode {
    * - Turn direction is reversed (turns right instead of left)
    * - Left wheel: +8" (forward), Right wheel: -8" (backward) = right turn
    * - This accounts for mirrored field layout
+   * - Nothing is written twice: AutoRoutine mirrors the Blue routine when
+   *   it is compiled for Red (see compileRoutines())
    *
    * All other logic is identical to doAutoBlue()
    * See doAutoBlue() for detailed explanation
    */
   private void doAutoRed() {
-    if (opModeIsActive()) {
-      // Display which autonomous is running
-      telemetry.addData("RUNNING OPMODE", operationSelected);
-      telemetry.update();
+    // Display which autonomous is running
+    telemetry.addData("RUNNING OPMODE", operationSelected);
+    telemetry.update();
 
-      // ===== PHASE 1: SHOOT PRE-LOADED BALLS =====
-      autoLaunchTimer.reset();
-      while (opModeIsActive() && autoLaunchTimer.milliseconds() < 10000) {
-        BANK_SHOT_AUTO();  // Continuous shooting with smart feeding
-        telemetry.addData("Launcher Countdown", autoLaunchTimer.seconds());
-        telemetry.update();
-      }
-
-      // Stop all shooter components
-      ((DcMotorEx) flywheel).setVelocity(0);
-      coreHex.setPower(0);
-      servo.setPower(0);
-
-      // ===== PHASE 2: NAVIGATE TO PARKING ZONE =====
-      // Back Up from goal
-      autoDrive(0.5, -12, -12, 5000);
-
-      // Turn Right (Red alliance turn direction - ONLY DIFFERENCE FROM BLUE)
-      // Left wheel: +8" (forward), Right wheel: -8" (backward) = right turn
-      autoDrive(0.5, 8, -8, 5000);
-
-      // Drive off Launch Line (park for bonus points)
-      autoDrive(1, -50, -50, 5000);
-    }
+    // Planned during INIT (see initMatch())
+    runRoutine(autoRedRoutine);
   }
 }
@@ -2,9 +2,6 @@ package org.firstinspires.ftc.teamcode;
 
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
-import com.qualcomm.robotcore.hardware.CRServo;
-import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 
 /**
  * REV Starter Bot TeleOp Mode
@@ -29,20 +26,39 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 @TeleOp
 public class REVStarterBotTeleOpJava extends LinearOpMode {
 
-  // ===== HARDWARE DECLARATIONS =====
-  private DcMotor flywheel;     // Shooter flywheel (uses DcMotorEx for velocity control)
-  private DcMotor coreHex;      // Ball feeder motor
-  private DcMotor leftDrive;    // Left drivetrain motor
-  private CRServo servo;        // Continuous rotation servo (hopper agitator)
-  private DcMotor rightDrive;   // Right drivetrain motor
+  // ===== HARDWARE =====
+  // Motors and servo, looked up once and read in one bulk read per loop (see starter-bot-onbot.java)
+  private StarterBot robot;
+  // Flywheel control and automatic shooting (see starter-bot-shooter-onbot.java)
+  private StarterBotShooter shooter;
 
-  // ===== FLYWHEEL VELOCITY CONSTANTS =====
-  // Setting our velocity targets. These values are in ticks per second!
-  // Motor encoders measure rotation in "ticks" - one full rotation = specific tick count
-  // Higher values = faster spin = farther shot distance
-  private static final int bankVelocity = 1300;   // Close-range shot (bank shot off backboard)
-  private static final int farVelocity = 1900;    // Medium-range shot
-  private static final int maxVelocity = 2200;    // Maximum power shot
+  // ===== HEADING HOLD =====
+  // With the turn stick centred, hold the IMU heading the driver left it at
+  // (see heading-hold-onbot.java); false sends the sticks straight to the motors
+  // and skips the IMU set-up. Turns itself off if the robot has no IMU
+  private static final boolean USE_HEADING_HOLD = true;
+  private boolean headingHoldOn = USE_HEADING_HOLD;
+  private final HeadingHold headingHold = new HeadingHold();
+
+  // ===== DRIVE OUTPUT =====
+  // Drive powers are desaturated, slew limited, and kept within a current
+  // budget shared with the flywheel (see drive-output-onbot.java); false
+  // sends Y - X and Y + X straight to the motors
+  private static final boolean USE_DRIVE_OUTPUT = true;
+  private static final double DRIVE_FREE_TICKS_PER_SECOND = 1780;     // Wheel speed at full power (measure)
+  private static final double FLYWHEEL_FREE_TICKS_PER_SECOND = 2800;  // HD Hex: 6000 RPM * 28 ticks
+  private final DriveOutput driveOutput = new DriveOutput();
+
+  // ===== LOOP TIMING =====
+  // Records loop and section times every loop; hold SHARE to see the report
+  private final LoopProfiler profiler = new LoopProfiler(RobotClock.SYSTEM);
+
+  // ===== TELEMETRY =====
+  // Sent to the Driver Station 10 times per second, and only when a value changed
+  private TelemetryBatcher telemetryBatcher;
+  private int velocitySlot;
+  private int powerSlot;
+  private int shotsSlot;
 
   /**
    * Main OpMode Entry Point
@@ -58,45 +74,55 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
   @Override
   public void runOpMode() {
     // ===== HARDWARE INITIALIZATION =====
-    // Map hardware devices from Robot Controller configuration
-    flywheel = hardwareMap.get(DcMotor.class, "flywheel");
-    coreHex = hardwareMap.get(DcMotor.class, "coreHex");
-    leftDrive = hardwareMap.get(DcMotor.class, "leftDrive");
-    servo = hardwareMap.get(CRServo.class, "servo");
-    rightDrive = hardwareMap.get(DcMotor.class, "rightDrive");
-
-    // ===== MOTOR CONFIGURATION =====
-    // Establishing the direction and mode for the motors
-
-    // Flywheel: Use encoder for velocity control
-    // RUN_USING_ENCODER enables closed-loop velocity control (maintains consistent speed)
-    flywheel.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-    flywheel.setDirection(DcMotor.Direction.REVERSE);
-
-    // Reverse motors that are mounted backwards
-    coreHex.setDirection(DcMotor.Direction.REVERSE);
-    leftDrive.setDirection(DcMotor.Direction.REVERSE);
+    // Map and configure the motors and servo from the Robot Controller configuration
+    // (and the IMU, only if heading hold needs it)
+    robot = new StarterBot(this, USE_HEADING_HOLD);
+    if (headingHoldOn && !robot.hasImu()) {
+      headingHoldOn = false;
+      telemetry.addData("Heading Hold", "off: no IMU named \"imu\" in the configuration");
+      telemetry.update();
+    }
+    shooter = new StarterBotShooter(robot, RobotClock.SYSTEM);
 
-    // Ensures the servo is active and ready (0 = stopped for continuous servo)
-    servo.setPower(0);
+    // Register the values shown on the Driver Station
+    telemetryBatcher = new TelemetryBatcher(telemetry, RobotClock.SYSTEM, 10, 3);
+    velocitySlot = telemetryBatcher.addSlot("Flywheel Velocity", "%.0f");
+    powerSlot = telemetryBatcher.addSlot("Flywheel Power", "%.2f");
+    shotsSlot = telemetryBatcher.addSlot("Shots Fired", "%.0f");
 
     // ===== WAIT FOR START =====
     // Blocks here until driver presses START on Driver Station
     waitForStart();
 
     // ===== MAIN CONTROL LOOP =====
-    // opModeIsActive() returns true until STOP is pressed or time expires
+    // nextLoop() is opModeIsActive() that also marks last loop's readings as stale
     if (opModeIsActive()) {
-      while (opModeIsActive()) {
+      while (robot.nextLoop()) {
+        profiler.startLoop();
+
         // Calling our methods while the OpMode is running
+        profiler.begin(LoopProfiler.DRIVE);
         splitStickArcadeDrive();              // Process drive inputs
+        profiler.end(LoopProfiler.DRIVE);
+        profiler.begin(LoopProfiler.FLYWHEEL);
         setFlywheelVelocity();                // Process shooter inputs
+        profiler.end(LoopProfiler.FLYWHEEL);
+        profiler.begin(LoopProfiler.FEEDER);
         manualCoreHexAndServoControl();       // Process feeder/agitator inputs
+        profiler.end(LoopProfiler.FEEDER);
 
-        // Display real-time flywheel diagnostics
-        telemetry.addData("Flywheel Velocity", ((DcMotorEx) flywheel).getVelocity());
-        telemetry.addData("Flywheel Power", flywheel.getPower());
-        telemetry.update();
+        // Display real-time flywheel diagnostics (served from the snapshot, no extra hub reads)
+        // set() only stores the number; update() formats and sends at most 10 times per second
+        profiler.begin(LoopProfiler.TELEMETRY);
+        telemetryBatcher.set(velocitySlot, robot.flywheelVelocity());
+        telemetryBatcher.set(powerSlot, robot.flywheelPower());
+        telemetryBatcher.set(shotsSlot, shooter.shotCount());
+        if (gamepad1.share && telemetryBatcher.due()) {
+          profiler.addTo(telemetry);          // Loop timing report on demand
+          telemetryBatcher.markDirty();
+        }
+        telemetryBatcher.update();
+        profiler.end(LoopProfiler.TELEMETRY);
       }
     }
   }
@@ -122,6 +148,19 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
    * Why negative left_stick_y?
    * - Gamepad Y-axis: up = negative, down = positive
    * - Negating makes forward feel natural
+   *
+   * Heading Hold (USE_HEADING_HOLD):
+   * No two drive sides are exactly alike, so "straight" slowly curves off.
+   * While driving with the turn stick centred, x becomes a PD correction
+   * that holds the IMU heading the robot had when the stick was released.
+   * Pushing the turn stick always wins.
+   *
+   * Drive Output (USE_DRIVE_OUTPUT):
+   * Y - X can be over 1.0, and a full-stick reversal jumps from -1 to +1 in
+   * one loop. DriveOutput keeps the turn when a side is over 1.0, ramps the
+   * powers, and cuts them back when the drive would pull the battery down
+   * under the flywheel. While a bumper shot fires, the flywheel's whole
+   * stall current is kept for it.
    */
   private void splitStickArcadeDrive() {
     float x;  // Horizontal input (turning)
@@ -129,8 +168,20 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
 
     x = gamepad1.right_stick_x;
     y = -gamepad1.left_stick_y;  // Negate to make forward = positive
-    leftDrive.setPower(y - x);
-    rightDrive.setPower(y + x);
+    if (headingHoldOn) {
+      x = (float) headingHold.turn(y, x, robot.heading(), RobotClock.SYSTEM.nanoTime());
+    }
+    if (!USE_DRIVE_OUTPUT) {
+      robot.setDrivePower(y - x, y + x);
+      return;
+    }
+    boolean firing = gamepad1.left_bumper || gamepad1.right_bumper;
+    double flywheelAmps = firing ? DriveOutput.MOTOR_STALL_AMPS
+        : Math.max(0, DriveOutput.motorAmps(robot.flywheelPower(),
+            robot.flywheelVelocity() / FLYWHEEL_FREE_TICKS_PER_SECOND));
+    driveOutput.update(y - x, y + x, robot.leftVelocity() / DRIVE_FREE_TICKS_PER_SECOND,
+        robot.rightVelocity() / DRIVE_FREE_TICKS_PER_SECOND, flywheelAmps, RobotClock.SYSTEM.nanoTime());
+    robot.setDrivePower(driveOutput.leftPower(), driveOutput.rightPower());
   }
 
   /**
@@ -154,15 +205,15 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
   private void manualCoreHexAndServoControl() {
     // Manual control for the Core Hex intake
     if (gamepad1.cross) {
-      coreHex.setPower(0.5);
+      robot.setFeederPower(0.5);
     } else if (gamepad1.triangle) {
-      coreHex.setPower(-0.5);
+      robot.setFeederPower(-0.5);
     }
     // Manual control for the hopper's servo
     if (gamepad1.dpad_left) {
-      servo.setPower(1);
+      robot.setAgitatorPower(1);
     } else if (gamepad1.dpad_right) {
-      servo.setPower(-1);
+      robot.setAgitatorPower(-1);
     }
   }
   
@@ -182,10 +233,8 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
    * 5. Square Button: Manual flywheel spin-up (max velocity)
    * 6. No Input: Stop everything
    *
-   * DcMotorEx vs DcMotor:
-   * - DcMotorEx provides setVelocity() for precise speed control
-   * - Uses PID controller to maintain constant RPM regardless of load
-   * - Regular DcMotor only has setPower() which varies with battery/load
+   * The sequences themselves are in StarterBotShooter, shared with
+   * REVStarterBotTeleOpAutoJava (see starter-bot-shooter-onbot.java).
    *
    * Velocity Control Benefits:
    * - Consistent shot distance even as battery drains
@@ -195,112 +244,35 @@ public class REVStarterBotTeleOpJava extends LinearOpMode {
   private void setFlywheelVelocity() {
     if (gamepad1.options) {
       // Emergency reverse (clear jammed balls)
-      flywheel.setPower(-0.5);
+      shooter.reverse();
 
     } else if (gamepad1.left_bumper) {
       // Automatic far shot (full sequence)
-      farPowerAuto();
+      shooter.farShot();
 
     } else if (gamepad1.right_bumper) {
       // Automatic bank shot (full sequence)
-      bankShotAuto();
+      shooter.bankShot();
 
     } else if (gamepad1.circle) {
       // Manual flywheel only (bank velocity)
-      ((DcMotorEx) flywheel).setVelocity(bankVelocity);
+      shooter.runAt(StarterBotShooter.BANK_VELOCITY);
 
     } else if (gamepad1.square) {
       // Manual flywheel only (max velocity)
-      ((DcMotorEx) flywheel).setVelocity(maxVelocity);
+      shooter.runAt(StarterBotShooter.MAX_VELOCITY);
 
     } else {
       // No input: Stop all shooter components
-      ((DcMotorEx) flywheel).setVelocity(0);
-      coreHex.setPower(0);
+      shooter.stop();
+      robot.setFeederPower(0);
 
       // The check below is in place to prevent stuttering with the servo.
       // It checks if the servo is under manual control!
       if (!gamepad1.dpad_right && !gamepad1.dpad_left) {
-        servo.setPower(0);
+        robot.setAgitatorPower(0);
       }
     }
   }
 
-  /**
-   * Bank Shot Automatic Sequence
-   *
-   * Optimized shooting sequence for close-range shots (touching goal or few inches away).
-   * Uses the bank shot technique where balls bounce off the backboard into the goal.
-   *
-   * Smart Feeding Logic:
-   * 1. Immediately spin flywheel to target velocity (1300 ticks/sec)
-   * 2. Start agitator servo to prevent jams
-   * 3. Wait until flywheel reaches speed (within 50 ticks/sec tolerance)
-   * 4. Only then activate feeder to send balls into flywheel
-   *
-   * Why Wait for Velocity?
-   * - Feeding balls into slow flywheel wastes shots (underpowered)
-   * - Creates inconsistent shot distance
-   * - May cause balls to jam in the mechanism
-   *
-   * Tolerance Explanation:
-   * - Target: 1300 ticks/sec
-   * - Threshold: 1250 ticks/sec (1300 - 50)
-   * - Allows for small PID oscillations while maintaining accuracy
-   *
-   * Runs continuously while bumper is held (can shoot multiple balls)
-   */
-  private void bankShotAuto() {
-    // Set target velocity
-    ((DcMotorEx) flywheel).setVelocity(bankVelocity);
-
-    // Always run agitator while shooting
-    servo.setPower(-1);
-
-    // Smart feeder control: only feed when flywheel is up to speed
-    if (((DcMotorEx) flywheel).getVelocity() >= bankVelocity - 50) {
-      coreHex.setPower(1);  // Feed balls at full speed
-    } else {
-      coreHex.setPower(0);  // Wait for flywheel to spin up
-    }
-  }
-
-  /**
-   * Far Power Shot Automatic Sequence
-   *
-   * Shooting sequence for medium-to-far range shots (several feet from goal).
-   * Requires higher flywheel speed for increased projectile velocity.
-   *
-   * Smart Feeding Logic:
-   * 1. Spin flywheel to higher velocity (1900 ticks/sec)
-   * 2. Activate agitator servo
-   * 3. Wait for flywheel to reach speed (within 100 ticks/sec tolerance)
-   * 4. Activate feeder when ready
-   *
-   * Larger Tolerance (100 vs 50):
-   * - Higher speeds have more PID oscillation
-   * - Slightly larger tolerance prevents feeder stuttering
-   * - Still maintains consistent shot accuracy
-   *
-   * Usage Note:
-   * - May require adjusting deflector angle for optimal trajectory
-   * - Test distance in practice to dial in velocity
-   *
-   * Runs continuously while bumper is held
-   */
-  private void farPowerAuto() {
-    // Set higher target velocity for longer shots
-    ((DcMotorEx) flywheel).setVelocity(farVelocity);
-
-    // Always run agitator while shooting
-    servo.setPower(-1);
-
-    // Smart feeder control: only feed when flywheel is up to speed
-    if (((DcMotorEx) flywheel).getVelocity() >= farVelocity - 100) {
-      coreHex.setPower(1);  // Feed balls at full speed
-    } else {
-      coreHex.setPower(0);  // Wait for flywheel to spin up
-    }
-  }
-
-}
+}
\ No newline at end of file
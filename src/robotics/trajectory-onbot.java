@@ -0,0 +1,273 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Trajectory - A Smooth Path With a Time Plan, Worked Out Before the Match
+ *
+ * "Back up, turn in place, back up again" stops the robot twice and turns
+ * with the wheels fighting each other. A trajectory is ONE smooth curve
+ * through the waypoints, with a speed for every point on it, so the robot
+ * drives the whole thing in one flowing motion - as fast as the drivetrain
+ * can take each bend.
+ *
+ * How It Is Built (once, in the constructor):
+ * 1. Path: a cubic Hermite spline between each pair of waypoints. Each
+ *    waypoint gives a position AND a heading, so the curve leaves and
+ *    arrives pointing the right way.
+ * 2. Speed limits along the path, sampled every fraction of an inch:
+ *    - the outer wheel may not go faster than maxVelocity on a bend
+ *      (speed * (1 + |curvature| * trackWidth / 2) <= maxVelocity)
+ *    - sideways (centripetal) acceleration stays under maxCentripetal
+ * 3. Speed plan: a forward pass speeds up no harder than maxAcceleration, a
+ *    backward pass slows down no harder than maxAcceleration, and the
+ *    trajectory starts and ends stopped
+ * 4. Time: the plan is resampled every sampleSeconds into plain double[]
+ *    tables: x, y, heading, speed, turn rate and their accelerations
+ *
+ * Reversed:
+ * With reversed = true the robot drives the curve backward: its heading
+ * points away from the direction of travel and every speed is negative.
+ * The waypoint headings are still the way the robot FACES.
+ *
+ * Mirrored:
+ * mirrored() is the same trajectory reflected for the other alliance (see
+ * AllianceMirror). It reflects the finished tables instead of planning
+ * again, so both alliances drive exactly the same speeds at exactly the
+ * same times.
+ *
+ * Reading It:
+ * x(t), y(t), heading(t), ... interpolate between two table rows. They only
+ * do arithmetic on the tables, so following a trajectory never allocates -
+ * build it during INIT, not in the loop.
+ *
+ * Units: inches, radians, seconds (counter-clockwise positive).
+ */
+public class Trajectory {
+
+  private static final int SAMPLES_PER_SEGMENT = 400;   // Path points per waypoint pair (while building)
+
+  private final double sampleSeconds;
+  private final int count;
+  private final double totalSeconds;
+  private final boolean reversed;
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] heading;
+  private final double[] velocity;             // inches/second (negative when reversed)
+  private final double[] angularVelocity;      // radians/second
+  private final double[] acceleration;         // inches/second²
+  private final double[] angularAcceleration;  // radians/second²
+
+  /**
+   * @param waypoints       {x, y, heading} for each point to pass through (at least two)
+   * @param reversed        Drive the path backward
+   * @param maxVelocity     Fastest either wheel may go, inches/second
+   * @param maxAcceleration Hardest the robot may speed up or slow down, inches/second²
+   * @param maxCentripetal  Hardest sideways acceleration on a bend, inches/second²
+   * @param trackWidth      Distance between left and right wheels, inches
+   * @param sampleSeconds   Time between table rows (the loop time or less)
+   */
+  public Trajectory(double[][] waypoints, boolean reversed, double maxVelocity, double maxAcceleration,
+                    double maxCentripetal, double trackWidth, double sampleSeconds) {
+    if (waypoints.length < 2) {
+      throw new IllegalArgumentException("a trajectory needs at least two waypoints");
+    }
+    this.sampleSeconds = sampleSeconds;
+    this.reversed = reversed;
+
+    // ----- 1. Path points, arc length and curvature -----
+    int points = (waypoints.length - 1) * SAMPLES_PER_SEGMENT + 1;
+    double[] px = new double[points];
+    double[] py = new double[points];
+    double[] tangent = new double[points];     // Direction of travel
+    double[] curvature = new double[points];   // 1/inches, counter-clockwise positive
+    double[] distance = new double[points];
+    int n = 0;
+    for (int segment = 0; segment < waypoints.length - 1; segment++) {
+      double[] from = waypoints[segment];
+      double[] to = waypoints[segment + 1];
+      double fromAngle = from[2] + (reversed ? Math.PI : 0);
+      double toAngle = to[2] + (reversed ? Math.PI : 0);
+      double scale = Math.hypot(to[0] - from[0], to[1] - from[1]);   // Tangent length
+      double[] cx = hermite(from[0], to[0], scale * Math.cos(fromAngle), scale * Math.cos(toAngle));
+      double[] cy = hermite(from[1], to[1], scale * Math.sin(fromAngle), scale * Math.sin(toAngle));
+      for (int i = segment == 0 ? 0 : 1; i <= SAMPLES_PER_SEGMENT; i++) {
+        double u = i / (double) SAMPLES_PER_SEGMENT;
+        double dx = cx[1] + u * (2 * cx[2] + u * 3 * cx[3]);
+        double dy = cy[1] + u * (2 * cy[2] + u * 3 * cy[3]);
+        double ddx = 2 * cx[2] + 6 * cx[3] * u;
+        double ddy = 2 * cy[2] + 6 * cy[3] * u;
+        px[n] = cx[0] + u * (cx[1] + u * (cx[2] + u * cx[3]));
+        py[n] = cy[0] + u * (cy[1] + u * (cy[2] + u * cy[3]));
+        tangent[n] = Math.atan2(dy, dx);
+        double speed = Math.hypot(dx, dy);
+        curvature[n] = speed > 1e-9 ? (dx * ddy - dy * ddx) / (speed * speed * speed) : 0;
+        distance[n] = n == 0 ? 0 : distance[n - 1] + Math.hypot(px[n] - px[n - 1], py[n] - py[n - 1]);
+        n++;
+      }
+    }
+
+    // ----- 2 and 3. Speed limits, then the acceleration passes -----
+    double[] speed = new double[points];
+    for (int i = 0; i < points; i++) {
+      double bend = Math.abs(curvature[i]);
+      double limit = maxVelocity / (1 + bend * trackWidth / 2);
+      if (bend > 1e-9) {
+        limit = Math.min(limit, Math.sqrt(maxCentripetal / bend));
+      }
+      speed[i] = limit;
+    }
+    speed[0] = 0;
+    speed[points - 1] = 0;
+    for (int i = 1; i < points; i++) {
+      double step = distance[i] - distance[i - 1];
+      speed[i] = Math.min(speed[i], Math.sqrt(speed[i - 1] * speed[i - 1] + 2 * maxAcceleration * step));
+    }
+    for (int i = points - 2; i >= 0; i--) {
+      double step = distance[i + 1] - distance[i];
+      speed[i] = Math.min(speed[i], Math.sqrt(speed[i + 1] * speed[i + 1] + 2 * maxAcceleration * step));
+    }
+    double[] time = new double[points];
+    for (int i = 1; i < points; i++) {
+      double average = (speed[i - 1] + speed[i]) / 2;
+      time[i] = time[i - 1] + (average > 1e-9 ? (distance[i] - distance[i - 1]) / average : 0);
+    }
+
+    // ----- 4. Resample every sampleSeconds -----
+    totalSeconds = time[points - 1];
+    count = Math.max(2, (int) Math.ceil(totalSeconds / sampleSeconds) + 1);
+    x = new double[count];
+    y = new double[count];
+    heading = new double[count];
+    velocity = new double[count];
+    angularVelocity = new double[count];
+    acceleration = new double[count];
+    angularAcceleration = new double[count];
+    int i = 0;
+    for (int row = 0; row < count; row++) {
+      double t = Math.min(row * sampleSeconds, totalSeconds);
+      while (i < points - 2 && time[i + 1] < t) {
+        i++;
+      }
+      double span = time[i + 1] - time[i];
+      double f = span > 0 ? (t - time[i]) / span : 0;
+      double bend = curvature[i] + f * (curvature[i + 1] - curvature[i]);
+      double rowSpeed = speed[i] + f * (speed[i + 1] - speed[i]);
+      x[row] = px[i] + f * (px[i + 1] - px[i]);
+      y[row] = py[i] + f * (py[i + 1] - py[i]);
+      heading[row] = PoseEstimator.angleWrap(tangent[i] + f * PoseEstimator.angleWrap(tangent[i + 1] - tangent[i])
+          + (reversed ? Math.PI : 0));
+      velocity[row] = reversed ? -rowSpeed : rowSpeed;
+      angularVelocity[row] = rowSpeed * bend;   // The heading turns with the path either way
+    }
+    for (int row = 0; row < count; row++) {
+      int next = Math.min(row + 1, count - 1);
+      int previous = Math.max(row - 1, 0);
+      double span = (next - previous) * sampleSeconds;
+      acceleration[row] = span > 0 ? (velocity[next] - velocity[previous]) / span : 0;
+      angularAcceleration[row] = span > 0 ? (angularVelocity[next] - angularVelocity[previous]) / span : 0;
+    }
+  }
+
+  /** Copy of original reflected across the field's x axis (see mirrored()). */
+  private Trajectory(Trajectory original) {
+    sampleSeconds = original.sampleSeconds;
+    count = original.count;
+    totalSeconds = original.totalSeconds;
+    reversed = original.reversed;
+    x = original.x;                        // Unchanged tables are shared
+    velocity = original.velocity;
+    acceleration = original.acceleration;
+    y = new double[count];
+    heading = new double[count];
+    angularVelocity = new double[count];
+    angularAcceleration = new double[count];
+    for (int row = 0; row < count; row++) {
+      y[row] = AllianceMirror.y(original.y[row]);
+      heading[row] = AllianceMirror.heading(original.heading[row]);
+      angularVelocity[row] = -original.angularVelocity[row];
+      angularAcceleration[row] = -original.angularAcceleration[row];
+    }
+  }
+
+  /**
+   * @return This trajectory for the other alliance: y, heading, turn rate
+   *         and turn acceleration change sign; x, speed and every time stay
+   *         the same
+   */
+  public Trajectory mirrored() {
+    return new Trajectory(this);
+  }
+
+  /** @return {a0, a1, a2, a3} of the cubic from p0 (slope m0) to p1 (slope m1) over u = 0..1 */
+  private static double[] hermite(double p0, double p1, double m0, double m1) {
+    return new double[] { p0, m0, 3 * (p1 - p0) - 2 * m0 - m1, 2 * (p0 - p1) + m0 + m1 };
+  }
+
+  // ===== READING THE TABLES (no allocation) =====
+
+  public double x(double t) {
+    return sample(x, t);
+  }
+
+  public double y(double t) {
+    return sample(y, t);
+  }
+
+  /** @return Heading the robot should face at time t */
+  public double heading(double t) {
+    int row = row(t);
+    double f = fraction(t, row);
+    return PoseEstimator.angleWrap(heading[row] + f * PoseEstimator.angleWrap(heading[row + 1] - heading[row]));
+  }
+
+  /** @return Forward speed at time t, inches/second (negative when reversed) */
+  public double velocity(double t) {
+    return sample(velocity, t);
+  }
+
+  /** @return Turn rate at time t, radians/second */
+  public double angularVelocity(double t) {
+    return sample(angularVelocity, t);
+  }
+
+  public double acceleration(double t) {
+    return sample(acceleration, t);
+  }
+
+  public double angularAcceleration(double t) {
+    return sample(angularAcceleration, t);
+  }
+
+  /** @return Planned time for the whole trajectory */
+  public double totalSeconds() {
+    return totalSeconds;
+  }
+
+  /** @return Rows in each table */
+  public int sampleCount() {
+    return count;
+  }
+
+  public boolean isReversed() {
+    return reversed;
+  }
+
+  private double sample(double[] table, double t) {
+    int row = row(t);
+    return table[row] + fraction(t, row) * (table[row + 1] - table[row]);
+  }
+
+  /** @return The row at or before t (never the last one, so row + 1 is valid) */
+  private int row(double t) {
+    if (t <= 0) {
+      return 0;
+    }
+    return Math.min((int) (t / sampleSeconds), count - 2);
+  }
+
+  private double fraction(double t, int row) {
+    double f = (Math.min(t, totalSeconds) - row * sampleSeconds) / sampleSeconds;
+    return Math.max(0, Math.min(1, f));
+  }
+}
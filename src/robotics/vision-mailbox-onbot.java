@@ -0,0 +1,324 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+/**
+ * Vision Mailbox - AprilTags Without Slowing the Control Loop
+ *
+ * Asking the AprilTag processor for detections and looping over the list
+ * every control loop makes the drive code wait on vision. This class moves
+ * that work to a background thread.
+ *
+ * How It Works:
+ * 1. A background thread waits for each new camera frame
+ * 2. It copies the detections into an immutable Snapshot (arrays of numbers
+ *    plus the time the frame was captured)
+ * 3. It drops the Snapshot into a one-slot "mailbox" (an AtomicReference),
+ *    replacing whatever was there
+ * 4. The control loop calls latest() whenever it wants - one memory read,
+ *    no waiting, no locks
+ *
+ * Why Immutable?
+ * - The control loop and the vision thread never change the same object
+ * - A Snapshot can never be half-written when the loop reads it
+ * - Older frames are simply replaced; the loop always sees the newest one
+ *
+ * Detection Sources:
+ * - AprilTagSource reads the real AprilTagProcessor
+ * - SyntheticSource makes fake frames at a chosen rate for testing on a laptop
+ *   (see mailboxReport())
+ */
+public class VisionMailbox {
+
+  /**
+   * One camera frame's worth of AprilTag detections. Never changes after creation.
+   */
+  public static final class Snapshot {
+    public static final Snapshot EMPTY = new Snapshot(0, new int[0], new double[0], new double[0], new double[0]);
+
+    private final long frameNanos;
+    private final int[] ids;
+    private final double[] ranges;
+    private final double[] bearings;
+    private final double[] yaws;
+
+    /**
+     * The arrays are owned by the Snapshot after this call - do not change them.
+     */
+    public Snapshot(long frameNanos, int[] ids, double[] ranges, double[] bearings, double[] yaws) {
+      this.frameNanos = frameNanos;
+      this.ids = ids;
+      this.ranges = ranges;
+      this.bearings = bearings;
+      this.yaws = yaws;
+    }
+
+    /** @return When the camera captured this frame (System.nanoTime() time base) */
+    public long frameNanos() {
+      return frameNanos;
+    }
+
+    public int count() {
+      return ids.length;
+    }
+
+    public int id(int detection) {
+      return ids[detection];
+    }
+
+    /** @return Distance from camera to tag, in inches */
+    public double range(int detection) {
+      return ranges[detection];
+    }
+
+    /** @return Angle the camera must turn to face the tag, in degrees */
+    public double bearing(int detection) {
+      return bearings[detection];
+    }
+
+    /** @return Rotation of the tag relative to the camera, in degrees */
+    public double yaw(int detection) {
+      return yaws[detection];
+    }
+
+    /** @return Index of the detection with this tag ID, or -1 if it was not seen */
+    public int find(int id) {
+      for (int detection = 0; detection < ids.length; detection++) {
+        if (ids[detection] == id) {
+          return detection;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Anything that produces frames of detections. nextFrame() may block until a
+   * new frame is ready; it runs on the vision thread, never the control loop.
+   */
+  public interface DetectionSource {
+    Snapshot nextFrame() throws InterruptedException;
+  }
+
+  private final DetectionSource source;
+  private final AtomicReference<Snapshot> latest = new AtomicReference<>(Snapshot.EMPTY);
+  private volatile boolean running = false;
+  private volatile long framesPublished = 0;
+  private Thread thread;
+
+  public VisionMailbox(DetectionSource source) {
+    this.source = source;
+  }
+
+  /**
+   * Starts the background vision thread.
+   */
+  public void start() {
+    running = true;
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          while (running) {
+            Snapshot frame = source.nextFrame();
+            if (frame != null) {
+              latest.set(frame);
+              framesPublished++;
+            }
+          }
+        } catch (InterruptedException e) {
+          // stop() was called
+        }
+      }
+    }, "VisionMailbox");
+    // A daemon thread cannot keep the app alive if stop() is forgotten
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the background thread. Call at the end of the OpMode.
+   */
+  public void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * @return The newest frame (never null, may be Snapshot.EMPTY). Never waits.
+   */
+  public Snapshot latest() {
+    return latest.get();
+  }
+
+  public long framesPublished() {
+    return framesPublished;
+  }
+
+  // ===== REAL CAMERA =====
+
+  /**
+   * Reads new frames from an AprilTagProcessor.
+   *
+   * getFreshDetections() returns null when no new frame has been processed
+   * since the last call, so this source naps for pollMs and asks again.
+   */
+  public static class AprilTagSource implements DetectionSource {
+    private final AprilTagProcessor processor;
+    private final long pollMs;
+
+    public AprilTagSource(AprilTagProcessor processor, long pollMs) {
+      this.processor = processor;
+      this.pollMs = pollMs;
+    }
+
+    @Override
+    public Snapshot nextFrame() throws InterruptedException {
+      List<AprilTagDetection> detections = processor.getFreshDetections();
+      while (detections == null) {
+        Thread.sleep(pollMs);
+        detections = processor.getFreshDetections();
+      }
+
+      // Tags not in the library have no pose; leave them out
+      int count = 0;
+      for (AprilTagDetection detection : detections) {
+        if (detection.ftcPose != null) {
+          count++;
+        }
+      }
+      int[] ids = new int[count];
+      double[] ranges = new double[count];
+      double[] bearings = new double[count];
+      double[] yaws = new double[count];
+      long frameNanos = System.nanoTime();
+      int i = 0;
+      for (AprilTagDetection detection : detections) {
+        if (detection.ftcPose != null) {
+          ids[i] = detection.id;
+          ranges[i] = detection.ftcPose.range;
+          bearings[i] = detection.ftcPose.bearing;
+          yaws[i] = detection.ftcPose.yaw;
+          frameNanos = detection.frameAcquisitionNanoTime;
+          i++;
+        }
+      }
+      return new Snapshot(frameNanos, ids, ranges, bearings, yaws);
+    }
+  }
+
+  // ===== FAKE CAMERA (for testing without a robot) =====
+
+  /**
+   * Produces frames at a fixed rate, each showing the same list of tags.
+   * The frame time comes from the given clock so tests can check frame age.
+   */
+  public static class SyntheticSource implements DetectionSource {
+    private final RobotClock clock;
+    private final long frameIntervalMs;
+    private final int[] ids;
+    private final double range;
+    private final double bearing;
+    private long frames = 0;
+
+    public SyntheticSource(RobotClock clock, double framesPerSecond, int[] ids, double range, double bearing) {
+      this.clock = clock;
+      this.frameIntervalMs = Math.round(1000 / framesPerSecond);
+      this.ids = ids.clone();
+      this.range = range;
+      this.bearing = bearing;
+    }
+
+    @Override
+    public Snapshot nextFrame() throws InterruptedException {
+      Thread.sleep(frameIntervalMs);
+      frames++;
+      int count = ids.length;
+      double[] ranges = new double[count];
+      double[] bearings = new double[count];
+      double[] yaws = new double[count];
+      for (int i = 0; i < count; i++) {
+        ranges[i] = range;
+        bearings[i] = bearing;
+        yaws[i] = bearing;
+      }
+      return new Snapshot(clock.nanoTime(), ids.clone(), ranges, bearings, yaws);
+    }
+
+    public long frames() {
+      return frames;
+    }
+  }
+  // ===== MAILBOX BENCHMARK =====
+
+  private static final long BENCH_LOOP_NANOS = 2_000_000;   // Control loop work: a 500 Hz loop
+
+  /**
+   * Runs a VisionMailbox from a SyntheticSource at each frame rate for the
+   * given time, while a control loop (BENCH_LOOP_NANOS of busy work) reads
+   * latest() on every pass, the way MyFIRSTJavaOpMode's drive loops do.
+   *
+   * @return For each frame rate: frames published, the loop rate, what one
+   *         latest() costs, and how old the newest frame was when the loop
+   *         read it
+   */
+  public static String mailboxReport(double seconds, double... framesPerSecond) {
+    // Warm-up so the JIT has compiled the loop before it is timed
+    benchmarkMailbox(seconds / 4, framesPerSecond[0]);
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%-7s %9s %9s %10s %11s %11s %11s%n",
+        "camera", "published", "loop Hz", "latest ns", "new frames", "age p50 ms", "age max ms"));
+    for (double rate : framesPerSecond) {
+      report.append(benchmarkMailbox(seconds, rate));
+    }
+    return report.toString();
+  }
+
+  private static String benchmarkMailbox(double seconds, double framesPerSecond) {
+    SyntheticSource source = new SyntheticSource(RobotClock.SYSTEM, framesPerSecond, new int[] { 20, 24 }, 48, 10);
+    VisionMailbox mailbox = new VisionMailbox(source);
+    long[] ages = new long[(int) (seconds * 1e9 / BENCH_LOOP_NANOS) + 1];
+    int samples = 0;
+    long loops = 0;
+    long newFrames = 0;
+    long readNanos = 0;
+    Snapshot seen = Snapshot.EMPTY;
+
+    mailbox.start();
+    long start = System.nanoTime();
+    long end = start + (long) (seconds * 1e9);
+    while (System.nanoTime() < end) {
+      long before = System.nanoTime();
+      Snapshot frame = mailbox.latest();
+      long now = System.nanoTime();
+      readNanos += now - before;
+      if (frame != Snapshot.EMPTY) {
+        if (samples < ages.length) {
+          ages[samples++] = now - frame.frameNanos();
+        }
+        if (frame != seen) {
+          newFrames++;
+          seen = frame;
+        }
+      }
+      while (System.nanoTime() < now + BENCH_LOOP_NANOS) {
+        // The rest of the control loop
+      }
+      loops++;
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    mailbox.stop();
+
+    Arrays.sort(ages, 0, samples);
+    return String.format("%3.0f fps %9d %9.1f %10.0f %11d %11.1f %11.1f%n", framesPerSecond,
+        mailbox.framesPublished(), loops / elapsed, readNanos / (double) loops, newFrames,
+        samples > 0 ? ages[samples / 2] / 1e6 : 0, samples > 0 ? ages[samples - 1] / 1e6 : 0);
+  }
+}